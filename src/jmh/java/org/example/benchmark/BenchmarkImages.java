@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.example.ImageAPI;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Синтетические изображения для бенчмарков.
+ *
+ * <p>Картинка — шум с набором залитых прямоугольников 40x60, чтобы детекторам
+ * контуров и объектов было что находить. Содержимое детерминировано (фиксированный seed).
+ */
+final class BenchmarkImages {
+    static final int TARGET_WIDTH = 40;
+    static final int TARGET_HEIGHT = 60;
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * Загружает OpenCV и отключает подробный лог ImageAPI, чтобы не мерить консольный вывод.
+     */
+    static ImageAPI api() throws Exception {
+        ImageAPI api = new ImageAPI();
+        LogManager.getRootLogger().setLevel(Level.WARN);
+        return api;
+    }
+
+    /**
+     * @param size VGA, 1080p, 4K или 24MP
+     */
+    static Size dimensions(String size) {
+        switch (size) {
+            case "VGA":
+                return new Size(640, 480);
+            case "1080p":
+                return new Size(1920, 1080);
+            case "4K":
+                return new Size(3840, 2160);
+            case "24MP":
+                return new Size(6000, 4000);
+            default:
+                throw new IllegalArgumentException("Неизвестный размер: " + size);
+        }
+    }
+
+    static Mat create(String size, int channels) {
+        Size dims = dimensions(size);
+        Mat image = new Mat(dims, CvType.makeType(CvType.CV_8U, channels));
+        Core.setRNGSeed(42);
+        Core.randu(image, 0, 64);
+
+        Random random = new Random(42);
+        Scalar color = Scalar.all(220);
+        int count = (int) (dims.width * dims.height / 40_000);
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt((int) dims.width - TARGET_WIDTH);
+            int y = random.nextInt((int) dims.height - TARGET_HEIGHT);
+            Imgproc.rectangle(image, new Point(x, y), new Point(x + TARGET_WIDTH, y + TARGET_HEIGHT), color, -1);
+        }
+        return image;
+    }
+
+    /**
+     * Сохраняет изображение во временный PNG для операций, принимающих путь.
+     */
+    static Path writeTemp(Mat image) throws IOException {
+        Path path = Files.createTempFile("jmh-", ".png");
+        path.toFile().deleteOnExit();
+        Imgcodecs.imwrite(path.toString(), image);
+        return path;
+    }
+
+    static Path tempFile(String suffix) throws IOException {
+        Path path = Files.createTempFile("jmh-out-", suffix);
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    static void delete(Path path) {
+        if (path != null) {
+            new File(path.toString()).delete();
+        }
+    }
+
+    /**
+     * Освобождает результат операции; возвращает адрес данных, чтобы JMH не счёл вызов мёртвым кодом.
+     */
+    static long consume(Mat result) {
+        long address = result.dataAddr();
+        result.release();
+        return address;
+    }
+}
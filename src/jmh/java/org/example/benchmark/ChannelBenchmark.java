@@ -0,0 +1,90 @@
+package org.example.benchmark;
+
+import org.example.ImageAPI;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поканальные операции ImageAPI. Операции на месте выполняются над рабочей копией,
+ * которая восстанавливается перед каждой итерацией.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelBenchmark {
+
+    @Param({"VGA", "1080p", "4K", "24MP"})
+    public String size;
+
+    @Param({"3", "4"})
+    public int channels;
+
+    private ImageAPI api;
+    private Mat image;
+    private Mat work;
+    private Mat plane;
+    private Mat dst;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, channels);
+        work = new Mat();
+        plane = new Mat(image.size(), CvType.CV_8UC1);
+        dst = new Mat();
+    }
+
+    @Setup(Level.Iteration)
+    public void restore() {
+        image.copyTo(work);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+        work.release();
+        plane.release();
+        dst.release();
+    }
+
+    @Benchmark
+    public long zeroChannel() {
+        return BenchmarkImages.consume(api.zeroChannel(image, 1));
+    }
+
+    @Benchmark
+    public Mat zeroChannelInto() {
+        api.zeroChannel(image, 1, dst);
+        return dst;
+    }
+
+    @Benchmark
+    public Mat setChannel() {
+        api.setChannel(work, 2, 128);
+        return work;
+    }
+
+    @Benchmark
+    public Mat swapChannels() {
+        api.swapChannels(work, 0, 2);
+        return work;
+    }
+
+    @Benchmark
+    public Mat extractChannel() {
+        api.extractChannel(image, 1, plane);
+        return plane;
+    }
+
+    @Benchmark
+    public Mat mergeChannel() {
+        api.mergeChannel(plane, work, 0);
+        return work;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.benchmark;
+
+import org.example.MatImageConverter;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mat → BufferedImage: прежняя конвертация через промежуточный byte[] и System.arraycopy
+ * против {@link MatImageConverter} с одним нативным копированием в закэшированный растр.
+ *
+ * <p>Для 4 каналов прежний путь копирует в TYPE_4BYTE_ABGR без перестановки каналов:
+ * объём копирования тот же, порядок каналов в результате не проверяется.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+    @Param({"VGA", "1080p", "4K"})
+    public String size;
+
+    @Param({"1", "3", "4"})
+    public int channels;
+
+    private Mat image;
+    private MatImageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkImages.api();
+        image = BenchmarkImages.create(size, channels);
+        converter = new MatImageConverter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+        converter.release();
+    }
+
+    @Benchmark
+    public BufferedImage legacyArrayCopy() {
+        int type = image.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY
+                : image.channels() == 3 ? BufferedImage.TYPE_3BYTE_BGR
+                : BufferedImage.TYPE_4BYTE_ABGR;
+        byte[] b = new byte[image.channels() * image.cols() * image.rows()];
+        image.get(0, 0, b);
+        BufferedImage result = new BufferedImage(image.cols(), image.rows(), type);
+        byte[] targetPixels = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+        System.arraycopy(b, 0, targetPixels, 0, b.length);
+        return result;
+    }
+
+    @Benchmark
+    public BufferedImage converter() {
+        return converter.toBufferedImage(image);
+    }
+}
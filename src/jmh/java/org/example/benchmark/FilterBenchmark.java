@@ -0,0 +1,91 @@
+package org.example.benchmark;
+
+import org.example.ImageAPI;
+import org.example.MorphologyUtils;
+import org.example.filters.FilterResults;
+import org.example.filters.FilterUtils;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтры и морфология. Операции, принимающие путь, включают в замер декодирование PNG.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({"VGA", "1080p", "4K", "24MP"})
+    public String size;
+
+    @Param({"3"})
+    public int channels;
+
+    @Param({"3", "9", "21"})
+    public int kernel;
+
+    private ImageAPI api;
+    private Mat image;
+    private Path path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, channels);
+        path = BenchmarkImages.writeTemp(image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+        BenchmarkImages.delete(path);
+    }
+
+    @Benchmark
+    public long sobel() {
+        // Sobel поддерживает ядра до 7
+        int ksize = Math.min(kernel, 7);
+        return BenchmarkImages.consume(api.applySobel(image, 1, 0, ksize, 1, 0, Core.BORDER_DEFAULT));
+    }
+
+    @Benchmark
+    public long laplace() {
+        int ksize = Math.min(kernel, 7);
+        return BenchmarkImages.consume(api.applyLaplace(image, ksize, 1, 0, Core.BORDER_DEFAULT));
+    }
+
+    @Benchmark
+    public long applyFilters() {
+        return release(FilterUtils.applyFilters(path.toString(), kernel));
+    }
+
+    @Benchmark
+    public long applyFiltersParallel() {
+        return release(FilterUtils.applyFiltersParallel(path.toString(), kernel));
+    }
+
+    @Benchmark
+    public long morphologyGradient() {
+        return BenchmarkImages.consume(MorphologyUtils.applyMorphology(path.toString(), kernel,
+                Imgproc.MORPH_GRADIENT, Imgproc.MORPH_RECT));
+    }
+
+    @Benchmark
+    public long morphologyOpenEllipse() {
+        return BenchmarkImages.consume(MorphologyUtils.applyMorphology(path.toString(), kernel,
+                Imgproc.MORPH_OPEN, Imgproc.MORPH_ELLIPSE));
+    }
+
+    private static long release(FilterResults results) {
+        return BenchmarkImages.consume(results.blur) ^ BenchmarkImages.consume(results.gaussian)
+                ^ BenchmarkImages.consume(results.median) ^ BenchmarkImages.consume(results.bilateral);
+    }
+}
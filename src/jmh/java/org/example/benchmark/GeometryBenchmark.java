@@ -0,0 +1,82 @@
+package org.example.benchmark;
+
+import org.example.ImageAPI;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Геометрические операции ImageAPI.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryBenchmark {
+
+    @Param({"VGA", "1080p", "4K", "24MP"})
+    public String size;
+
+    @Param({"1", "3", "4"})
+    public int channels;
+
+    private ImageAPI api;
+    private Mat image;
+    private List<Mat> pair;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, channels);
+        pair = List.of(image, image);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+    }
+
+    @Benchmark
+    public long resize() {
+        return BenchmarkImages.consume(api.resize(image, image.cols() / 2, image.rows() / 2));
+    }
+
+    @Benchmark
+    public long rotate() {
+        return BenchmarkImages.consume(api.rotate(image, 30, false));
+    }
+
+    @Benchmark
+    public long rotateKeepContent() {
+        return BenchmarkImages.consume(api.rotate(image, 30, true));
+    }
+
+    @Benchmark
+    public long shift() {
+        return BenchmarkImages.consume(api.shift(image, 25, -15));
+    }
+
+    @Benchmark
+    public long flip() {
+        return BenchmarkImages.consume(api.flip(image, true));
+    }
+
+    @Benchmark
+    public long repeat() {
+        return BenchmarkImages.consume(api.repeat(image, 2, 2));
+    }
+
+    @Benchmark
+    public long concatImages() {
+        return BenchmarkImages.consume(api.concatImages(pair, true));
+    }
+
+    @Benchmark
+    public long perspectiveTransform() {
+        return BenchmarkImages.consume(api.perspectiveTransform(image, 30, "TOP", 0.5));
+    }
+}
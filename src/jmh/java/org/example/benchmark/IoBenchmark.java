@@ -0,0 +1,104 @@
+package org.example.benchmark;
+
+import org.example.ImageAPI;
+import org.example.ImagePipeline;
+import org.example.tiles.MatTileSink;
+import org.example.tiles.TileOperation;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка, сохранение, конвертация в BufferedImage, поплиточная обработка и ленивая цепочка.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoBenchmark {
+
+    @Param({"VGA", "1080p", "4K", "24MP"})
+    public String size;
+
+    @Param({"1", "3", "4"})
+    public int channels;
+
+    private ImageAPI api;
+    private Mat image;
+    private Path path;
+    private Path pngOut;
+    private Path jpegOut;
+    private BufferedImage buffered;
+    private ImagePipeline pipeline;
+    private Mat pipelineOut;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, channels);
+        path = BenchmarkImages.writeTemp(image);
+        pngOut = BenchmarkImages.tempFile(".png");
+        jpegOut = BenchmarkImages.tempFile(".jpg");
+        buffered = api.toBufferedImage(image);
+        pipeline = api.pipeline()
+                .resize(image.cols() / 2, image.rows() / 2)
+                .rotate(15, false)
+                .flip(true);
+        pipelineOut = new Mat();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+        pipeline.release();
+        pipelineOut.release();
+        BenchmarkImages.delete(path);
+        BenchmarkImages.delete(pngOut);
+        BenchmarkImages.delete(jpegOut);
+    }
+
+    @Benchmark
+    public long loadImage() {
+        return BenchmarkImages.consume(api.loadImage(path.toString()));
+    }
+
+    @Benchmark
+    public Path saveImagePng() {
+        api.saveImage(pngOut.toString(), image);
+        return pngOut;
+    }
+
+    @Benchmark
+    public Path saveImageJpeg() {
+        api.saveImage(jpegOut.toString(), image);
+        return jpegOut;
+    }
+
+    @Benchmark
+    public BufferedImage toBufferedImage() {
+        return api.toBufferedImage(image);
+    }
+
+    @Benchmark
+    public long fromBufferedImage() {
+        return BenchmarkImages.consume(api.fromBufferedImage(buffered));
+    }
+
+    @Benchmark
+    public long applyTiled() throws Exception {
+        MatTileSink sink = new MatTileSink(image.cols(), image.rows());
+        api.applyTiled(path.toString(), TileOperation.gaussianBlur(5), sink, 512, 512);
+        return BenchmarkImages.consume(sink.getResult());
+    }
+
+    @Benchmark
+    public Mat pipeline() {
+        pipeline.execute(image, pipelineOut);
+        return pipelineOut;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.benchmark;
+
+import org.example.AnalysisContext;
+import org.example.ComponentCounter;
+import org.example.CountMethod;
+import org.example.ImageAPI;
+import org.example.SegmentationUtils;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсчёт объектов: контуры против связных компонент, последовательная и полосовая разметка.
+ *
+ * <p>{@code opencvThreads=1} отключает собственный параллелизм OpenCV, чтобы сравнить
+ * полосовую разметку в пуле с однопоточной.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectCountBenchmark {
+
+    @Param({"1080p", "4K", "24MP"})
+    public String size;
+
+    /**
+     * contours и components — {@link ImageAPI#getCountObj} соответствующим способом,
+     * bands — компоненты с разметкой полосами в общем пуле для любого размера кадра.
+     */
+    @Param({"contours", "components", "bands"})
+    public String path;
+
+    @Param({"-1", "1"})
+    public int opencvThreads;
+
+    private ImageAPI api;
+    private Mat image;
+    private int previousThreads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, 3);
+        previousThreads = Core.getNumThreads();
+        if (opencvThreads > 0) {
+            Core.setNumThreads(opencvThreads);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Core.setNumThreads(previousThreads);
+        image.release();
+    }
+
+    @Benchmark
+    public int countObj() {
+        switch (path) {
+            case "contours":
+                return api.getCountObj(image, BenchmarkImages.TARGET_WIDTH, BenchmarkImages.TARGET_HEIGHT, 5,
+                        CountMethod.CONTOURS);
+            case "components":
+                return api.getCountObj(image, BenchmarkImages.TARGET_WIDTH, BenchmarkImages.TARGET_HEIGHT, 5,
+                        CountMethod.COMPONENTS);
+            default:
+                ForkJoinPool pool = ForkJoinPool.commonPool();
+                ComponentCounter counter = new ComponentCounter(BenchmarkImages.TARGET_WIDTH,
+                        BenchmarkImages.TARGET_HEIGHT, 5)
+                        .parallel(pool, Math.max(64, image.rows() / (4 * pool.getParallelism())), 0);
+                try (AnalysisContext frame = new AnalysisContext(image)) {
+                    return SegmentationUtils.countObjectsByComponents(frame, counter);
+                }
+        }
+    }
+}
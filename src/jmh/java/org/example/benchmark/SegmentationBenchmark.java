@@ -0,0 +1,95 @@
+package org.example.benchmark;
+
+import org.example.ImageAPI;
+import org.example.SegmentationUtils;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сегментация и поиск объектов (SegmentationUtils, SearchObj через ImageAPI).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentationBenchmark {
+
+    @Param({"VGA", "1080p", "4K", "24MP"})
+    public String size;
+
+    @Param({"3", "9"})
+    public int kernel;
+
+    private ImageAPI api;
+    private Mat image;
+    private Mat shifted;
+    private Mat work;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = BenchmarkImages.api();
+        image = BenchmarkImages.create(size, 3);
+        shifted = api.shift(image, 3, 3);
+        work = new Mat();
+    }
+
+    @Setup(Level.Invocation)
+    public void restore() {
+        // floodFill меняет изображение на месте
+        image.copyTo(work);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.release();
+        shifted.release();
+        work.release();
+    }
+
+    @Benchmark
+    public Mat floodFill() {
+        return api.floodFillWithParams(work, new Point(0, 0), new Scalar(255, 0, 0), null, null);
+    }
+
+    @Benchmark
+    public long pyramidDown() {
+        // ImageAPI.applyPyramidDown возвращает исходник, результат берём напрямую
+        return BenchmarkImages.consume(SegmentationUtils.applyPyramidDown(image, 2));
+    }
+
+    @Benchmark
+    public long pyramidUp() {
+        return BenchmarkImages.consume(SegmentationUtils.applyPyramidUp(image, 1));
+    }
+
+    @Benchmark
+    public long imageDifference() {
+        return BenchmarkImages.consume(api.getImageDifference(image, shifted));
+    }
+
+    @Benchmark
+    public int countObj() {
+        return api.getCountObj(image, BenchmarkImages.TARGET_WIDTH, BenchmarkImages.TARGET_HEIGHT, 5);
+    }
+
+    @Benchmark
+    public long imageEdges() {
+        return BenchmarkImages.consume(api.getImageEdges(image, kernel, 50, 150, false));
+    }
+
+    @Benchmark
+    public long imageEdgesOtsu() {
+        return BenchmarkImages.consume(api.getImageEdges(image, kernel, 0, 0, true));
+    }
+
+    @Benchmark
+    public int countObjCanny() {
+        return api.getCountObjCanny(image, BenchmarkImages.TARGET_WIDTH, BenchmarkImages.TARGET_HEIGHT, 5);
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.example.ImageAPI;
+import org.example.metrics.LatencyHistogram;
+import org.example.serving.GatedImageAPI;
+import org.example.serving.NativeGate;
+import org.example.serving.VirtualThreads;
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест режимов обслуживания запросов на локальном HTTP-сервере.
+ *
+ * <p>Сравниваются: фиксированный пул платформенных потоков по числу ядер и «поток на запрос»
+ * (виртуальный на JDK 21+) с ограничением нативных вычислений {@link NativeGate}.
+ * Каждый запрос уменьшает изображение вдвое и ищет на нём границы.
+ *
+ * <pre>
+ * mvn -P jmh package
+ * java -cp target/benchmarks.jar org.example.benchmark.ServingLoadTest [запросов] [параллельных клиентов] [размер]
+ * </pre>
+ */
+public class ServingLoadTest {
+
+    private interface Work {
+        int process(Mat image);
+    }
+
+    private static final class Result {
+        final String mode;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long wallNanos;
+        int failures;
+
+        Result(String mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        String size = args.length > 2 ? args[2] : "1080p";
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        ImageAPI api = BenchmarkImages.api();
+        Mat image = BenchmarkImages.create(size, 3);
+
+        Work direct = img -> {
+            Mat small = api.resize(img, img.cols() / 2, img.rows() / 2);
+            Mat edges = api.getImageEdges(small, 3, 50, 150, false);
+            int rows = edges.rows();
+            small.release();
+            edges.release();
+            return rows;
+        };
+        GatedImageAPI gated = new GatedImageAPI(api, new NativeGate(cores));
+        Work throttled = img -> {
+            Mat small = gated.resize(img, img.cols() / 2, img.rows() / 2);
+            Mat edges = gated.getImageEdges(small, 3, 50, 150, false);
+            int rows = edges.rows();
+            small.release();
+            edges.release();
+            return rows;
+        };
+
+        // Прогрев JIT и нативных буферов
+        run("warmup", Executors.newFixedThreadPool(cores), direct, image, requests / 4, clients);
+
+        List<Result> results = new ArrayList<>();
+        results.add(run("platform pool x" + cores, Executors.newFixedThreadPool(cores), direct, image,
+                requests, clients));
+        String perTask = VirtualThreads.isAvailable() ? "virtual threads" : "thread per request";
+        results.add(run(perTask + " + gate x" + cores, VirtualThreads.newPerTaskExecutor(), throttled, image,
+                requests, clients));
+
+        System.out.printf(Locale.ROOT, "%n%d requests, %d clients, %s image, %d cores%n", requests, clients, size, cores);
+        System.out.printf(Locale.ROOT, "%-36s %10s %10s %10s %8s%n", "mode", "p50 ms", "p99 ms", "req/s", "failed");
+        for (Result r : results) {
+            System.out.printf(Locale.ROOT, "%-36s %10.2f %10.2f %10.1f %8d%n", r.mode,
+                    r.latency.getValueAtQuantile(0.5) / 1e6, r.latency.getValueAtQuantile(0.99) / 1e6,
+                    r.latency.getCount() / (r.wallNanos / 1e9), r.failures);
+        }
+        NativeGate gate = gated.getGate();
+        System.out.printf(Locale.ROOT, "gate queue time   p50 %.2f ms, p99 %.2f ms%n",
+                gate.getQueueTime().getValueAtQuantile(0.5) / 1e6, gate.getQueueTime().getValueAtQuantile(0.99) / 1e6);
+        System.out.printf(Locale.ROOT, "gate compute time p50 %.2f ms, p99 %.2f ms%n",
+                gate.getComputeTime().getValueAtQuantile(0.5) / 1e6, gate.getComputeTime().getValueAtQuantile(0.99) / 1e6);
+
+        image.release();
+        System.exit(0);
+    }
+
+    private static Result run(String mode, ExecutorService serverExecutor, Work work, Mat image,
+                              int requests, int clients) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/process", handler(work, image));
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        Result result = new Result(mode);
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.getAddress().getPort() + "/process")).build();
+        ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+        AtomicInteger failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(clientPool.submit(() -> {
+                long sent = System.nanoTime();
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    failures.incrementAndGet();
+                }
+                result.latency.record(System.nanoTime() - sent);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        result.wallNanos = System.nanoTime() - start;
+        result.failures = failures.get();
+
+        clientPool.shutdown();
+        server.stop(0);
+        serverExecutor.shutdown();
+        return result;
+    }
+
+    private static HttpHandler handler(Work work, Mat image) {
+        return (HttpExchange exchange) -> {
+            int status = 200;
+            String body;
+            try {
+                body = Integer.toString(work.process(image));
+            } catch (RuntimeException e) {
+                status = 500;
+                body = String.valueOf(e.getMessage());
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        };
+    }
+}
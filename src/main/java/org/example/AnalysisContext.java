@@ -0,0 +1,207 @@
+package org.example;
+
+import org.example.memory.MatLease;
+import org.example.memory.MatPool;
+import org.example.memory.NativeScope;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Общая предобработка одного кадра для нескольких детекторов.
+ *
+ * <p>Оттенки серого, размытия, гистограмма, порог Оцу и бинарное изображение по нему вычисляются
+ * при первом обращении и запоминаются, поэтому проход из нескольких детекторов
+ * ({@link SearchObj#detectEdges}, {@link SearchObj#detectRectangles},
+ * {@link SegmentationUtils#countRectangularObjects}) выполняет каждый шаг один раз:
+ *
+ * <pre>
+ * try (AnalysisContext frame = new AnalysisContext(image)) {
+ *     Mat edges = SearchObj.detectEdges(frame, 3, 50, 150, true);
+ *     int boxes = SearchObj.detectRectangles(frame, 40, 60, 5);
+ *     int blobs = SegmentationUtils.countRectangularObjects(frame, 40, 60, 5);
+ * }
+ * </pre>
+ *
+ * <p>Промежуточные матрицы берутся из {@link MatPool} и возвращаются при закрытии; после закрытия
+ * ими пользоваться нельзя. Исходное изображение не копируется и не должно меняться, пока
+ * контекст открыт. Экземпляр не потокобезопасен.
+ */
+public class AnalysisContext implements AutoCloseable {
+    // calcHist считает во float: счётчик точен до 2^24, поэтому большие изображения считаем частями
+    private static final int HISTOGRAM_CHUNK_PIXELS = 1 << 24;
+
+    private final Mat source;
+    private final MatPool pool = MatPool.shared();
+    private final List<MatLease> leases = new ArrayList<>();
+    private final Map<Integer, Mat> boxBlurs = new HashMap<>();
+    private final Map<Integer, Mat> gaussianBlurs = new HashMap<>();
+    private Mat gray;
+    private Mat otsuBinary;
+    private int[] histogram;
+    private double otsuThreshold = -1;
+
+    /**
+     * @param source кадр BGR или уже в оттенках серого (8 бит)
+     */
+    public AnalysisContext(Mat source) {
+        this.source = source;
+    }
+
+    public Mat source() {
+        return source;
+    }
+
+    /**
+     * @return кадр в оттенках серого (одноканальный кадр возвращается как есть)
+     */
+    public Mat gray() {
+        if (gray == null) {
+            if (source.channels() == 1) {
+                gray = source;
+            } else {
+                gray = lease();
+                Imgproc.cvtColor(source, gray, Imgproc.COLOR_BGR2GRAY);
+            }
+        }
+        return gray;
+    }
+
+    /**
+     * @return {@code Imgproc.blur} серого кадра с квадратным ядром
+     */
+    public Mat blur(int kernelSize) {
+        Mat blurred = boxBlurs.get(kernelSize);
+        if (blurred == null) {
+            blurred = lease();
+            Imgproc.blur(gray(), blurred, new Size(kernelSize, kernelSize));
+            boxBlurs.put(kernelSize, blurred);
+        }
+        return blurred;
+    }
+
+    /**
+     * @return {@code Imgproc.GaussianBlur} серого кадра с квадратным ядром и sigma по размеру ядра
+     */
+    public Mat gaussianBlur(int kernelSize) {
+        Mat blurred = gaussianBlurs.get(kernelSize);
+        if (blurred == null) {
+            blurred = lease();
+            Imgproc.GaussianBlur(gray(), blurred, new Size(kernelSize, kernelSize), 0);
+            gaussianBlurs.put(kernelSize, blurred);
+        }
+        return blurred;
+    }
+
+    /**
+     * @return гистограмма яркостей серого кадра, 256 корзин (массив нельзя изменять)
+     */
+    public int[] histogram() {
+        if (histogram == null) {
+            Mat image = gray();
+            int[] counts = new int[256];
+            float[] chunk = new float[256];
+            try (NativeScope scope = NativeScope.open()) {
+                Mat hist = scope.mat();
+                Mat noMask = scope.mat();
+                MatOfInt channels = scope.track(new MatOfInt(0));
+                MatOfInt histSize = scope.track(new MatOfInt(256));
+                MatOfFloat ranges = scope.track(new MatOfFloat(0, 256));
+                int rowsPerChunk = Math.max(1, HISTOGRAM_CHUNK_PIXELS / Math.max(1, image.cols()));
+                for (int y = 0; y < image.rows(); y += rowsPerChunk) {
+                    Mat rows = scope.track(image.rowRange(y, Math.min(image.rows(), y + rowsPerChunk)));
+                    Imgproc.calcHist(List.of(rows), channels, noMask, hist, histSize, ranges);
+                    hist.get(0, 0, chunk);
+                    for (int i = 0; i < 256; i++) {
+                        counts[i] += (int) chunk[i];
+                    }
+                }
+            }
+            histogram = counts;
+        }
+        return histogram;
+    }
+
+    /**
+     * Порог Оцу по гистограмме — тот же, что вычисляет {@code Imgproc.threshold} с {@code THRESH_OTSU},
+     * но без построения порогового изображения.
+     */
+    public double otsuThreshold() {
+        if (otsuThreshold < 0) {
+            otsuThreshold = otsu(histogram(), gray().total());
+        }
+        return otsuThreshold;
+    }
+
+    /**
+     * @return бинарное изображение по порогу Оцу (255 — ярче порога)
+     */
+    public Mat otsuBinary() {
+        if (otsuBinary == null) {
+            otsuBinary = lease();
+            Imgproc.threshold(gray(), otsuBinary, otsuThreshold(), 255, Imgproc.THRESH_BINARY);
+        }
+        return otsuBinary;
+    }
+
+    /**
+     * Повторяет {@code getThreshVal_Otsu_8u} из OpenCV, включая порядок операций с double,
+     * чтобы порог совпадал побитово.
+     */
+    static double otsu(int[] histogram, long total) {
+        double scale = 1.0 / total;
+        double mu = 0;
+        for (int i = 0; i < 256; i++) {
+            mu += i * (double) histogram[i];
+        }
+        mu *= scale;
+
+        double mu1 = 0;
+        double q1 = 0;
+        double maxSigma = 0;
+        double maxValue = 0;
+        double epsilon = Math.ulp(1.0f);
+        for (int i = 0; i < 256; i++) {
+            double p = histogram[i] * scale;
+            mu1 *= q1;
+            q1 += p;
+            double q2 = 1.0 - q1;
+            if (Math.min(q1, q2) < epsilon || Math.max(q1, q2) > 1.0 - epsilon) {
+                continue;
+            }
+            mu1 = (mu1 + i * p) / q1;
+            double mu2 = (mu - q1 * mu1) / q2;
+            double sigma = q1 * q2 * (mu1 - mu2) * (mu1 - mu2);
+            if (sigma > maxSigma) {
+                maxSigma = sigma;
+                maxValue = i;
+            }
+        }
+        return maxValue;
+    }
+
+    private Mat lease() {
+        MatLease lease = pool.acquire(source.rows(), source.cols(), CvType.CV_8UC1);
+        leases.add(lease);
+        return lease.mat();
+    }
+
+    /**
+     * Возвращает промежуточные матрицы в пул.
+     */
+    @Override
+    public void close() {
+        for (MatLease lease : leases) {
+            lease.close();
+        }
+        leases.clear();
+        boxBlurs.clear();
+        gaussianBlurs.clear();
+        gray = null;
+        otsuBinary = null;
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+/**
+ * Операции над отдельными каналами изображения, выполняемые на месте
+ * или в переданную вызывающим матрицу-приёмник.
+ *
+ * <p>Работает с любым числом каналов и любой глубиной (CV_8U, CV_16U, CV_32F и т.д.).
+ * Затрагивается только целевой канал: данные копируются нативно через
+ * {@link Core#extractChannel} / {@link Core#insertChannel}, без выгрузки пикселей в Java-массивы.
+ * Вспомогательные одноканальные плоскости кэшируются и переиспользуются, поэтому
+ * при повторных вызовах с изображениями одного размера и типа память в Java-куче не выделяется.
+ *
+ * <p>Экземпляр не потокобезопасен — одновременно им пользуется один поток
+ * ({@link ImageProcessor} выдаёт экземпляры из ограниченного набора).
+ */
+public class ChannelProcessor {
+    // Плоскость из нулей для zeroChannel
+    private final Mat zeroPlane = new Mat();
+    // Плоскость с постоянным значением для setChannel
+    private final Mat constPlane = new Mat();
+    private double constValue = Double.NaN;
+    // Временные плоскости для swapChannels
+    private final Mat tmpA = new Mat();
+    private final Mat tmpB = new Mat();
+
+    /**
+     * Обнуляет канал изображения на месте.
+     *
+     * @param img     изображение (изменяется)
+     * @param channel номер канала
+     */
+    public void zeroChannel(Mat img, int channel) {
+        checkChannel(img, channel);
+        if (preparePlane(zeroPlane, img)) {
+            zeroPlane.setTo(Scalar.all(0));
+        }
+        Core.insertChannel(zeroPlane, img, channel);
+    }
+
+    /**
+     * Заполняет канал изображения постоянным значением на месте.
+     *
+     * @param img     изображение (изменяется)
+     * @param channel номер канала
+     * @param value   значение (приводится к глубине изображения с насыщением)
+     */
+    public void setChannel(Mat img, int channel, double value) {
+        checkChannel(img, channel);
+        boolean reallocated = preparePlane(constPlane, img);
+        if (reallocated || Double.compare(constValue, value) != 0) {
+            constPlane.setTo(Scalar.all(value));
+            constValue = value;
+        }
+        Core.insertChannel(constPlane, img, channel);
+    }
+
+    /**
+     * Меняет местами два канала изображения на месте.
+     *
+     * @param img      изображение (изменяется)
+     * @param channelA первый канал
+     * @param channelB второй канал
+     */
+    public void swapChannels(Mat img, int channelA, int channelB) {
+        checkChannel(img, channelA);
+        checkChannel(img, channelB);
+        if (channelA == channelB) {
+            return;
+        }
+        Core.extractChannel(img, tmpA, channelA);
+        Core.extractChannel(img, tmpB, channelB);
+        Core.insertChannel(tmpA, img, channelB);
+        Core.insertChannel(tmpB, img, channelA);
+    }
+
+    /**
+     * Копирует канал изображения в одноканальную матрицу-приёмник.
+     * Приёмник пересоздаётся, только если его размер или тип не подходят.
+     *
+     * @param src     исходное изображение
+     * @param channel номер канала
+     * @param dst     одноканальный приёмник той же глубины
+     */
+    public void extractChannel(Mat src, int channel, Mat dst) {
+        checkChannel(src, channel);
+        Core.extractChannel(src, dst, channel);
+    }
+
+    /**
+     * Записывает одноканальную плоскость в указанный канал изображения.
+     *
+     * @param plane   одноканальная матрица того же размера и глубины, что и dst
+     * @param dst     изображение-приёмник (изменяется)
+     * @param channel номер канала
+     */
+    public void mergeChannel(Mat plane, Mat dst, int channel) {
+        checkChannel(dst, channel);
+        if (plane.channels() != 1 || plane.depth() != dst.depth()
+                || plane.rows() != dst.rows() || plane.cols() != dst.cols()) {
+            throw new IllegalArgumentException("Плоскость должна быть одноканальной и совпадать с изображением по размеру и глубине");
+        }
+        Core.insertChannel(plane, dst, channel);
+    }
+
+    /**
+     * Освобождает кэшированные плоскости.
+     */
+    public void release() {
+        zeroPlane.release();
+        constPlane.release();
+        tmpA.release();
+        tmpB.release();
+        constValue = Double.NaN;
+    }
+
+    /**
+     * Подгоняет плоскость под размер и глубину изображения.
+     *
+     * @return true, если плоскость была пересоздана
+     */
+    private static boolean preparePlane(Mat plane, Mat img) {
+        int type = CvType.makeType(img.depth(), 1);
+        if (plane.rows() == img.rows() && plane.cols() == img.cols() && plane.type() == type) {
+            return false;
+        }
+        plane.create(img.rows(), img.cols(), type);
+        return true;
+    }
+
+    static void checkChannel(Mat img, int channel) {
+        if (channel < 0 || channel >= img.channels()) {
+            throw new IllegalArgumentException("Канал должен быть в диапазоне 0–" + (img.channels() - 1));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package org.example;
+
+import org.example.memory.MatLease;
+import org.example.memory.MatPool;
+import org.example.memory.NativeScope;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Подсчёт объектов заданного размера по связным компонентам ({@code connectedComponentsWithStats})
+ * вместо контуров.
+ *
+ * <p>Результат совпадает с контурным путём {@link SegmentationUtils#countRectangularObjects}: каждому
+ * внешнему контуру соответствует 8-связная компонента объекта с тем же габаритным прямоугольником,
+ * каждому контуру дырки — 4-связная компонента фона, не касающаяся края изображения, габарит которой
+ * на пиксель меньше с каждой стороны. Размеры сравниваются так же: строго меньше допуска. Дырки можно
+ * не считать ({@link #includeHoles(boolean)}), тогда разметка фона не выполняется.
+ *
+ * <p>Точки компонент в Java не читаются — только таблица статистик. Для больших изображений
+ * разметку можно выполнять горизонтальными полосами в пуле ({@link #parallel}): компоненты, пересекающие
+ * границы полос, склеиваются по соседним строкам меток. OpenCV распараллеливает разметку и сам, если его
+ * пул потоков не ограничен через {@code Core.setNumThreads}; полосы нужны, когда он ограничен
+ * или работа должна идти в заданном пуле.
+ */
+public class ComponentCounter {
+    // x, y, ширина, высота, площадь — как столбцы CC_STAT_* в stats
+    private static final int STATS = 5;
+
+    private final SizeClasses classes;
+    private int minArea = 0;
+    private int maxArea = Integer.MAX_VALUE;
+    private boolean includeHoles = true;
+    private ForkJoinPool pool;
+    private int bandHeight;
+    private long minParallelPixels;
+
+    public ComponentCounter(int targetWidth, int targetHeight, double tolerance) {
+        this(SizeClasses.of(targetWidth, targetHeight, tolerance));
+    }
+
+    /**
+     * Подсчёт сразу по нескольким классам размеров ({@link #countByClass}).
+     */
+    public ComponentCounter(SizeClasses classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Ограничение площади компоненты в пикселях (для дырок — площадь дырки), включительно.
+     */
+    public ComponentCounter area(int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Некорректный диапазон площади: " + min + "–" + max);
+        }
+        this.minArea = min;
+        this.maxArea = max;
+        return this;
+    }
+
+    /**
+     * Считать ли дырки объектов (по умолчанию да, как контурный путь с {@code RETR_LIST}).
+     */
+    public ComponentCounter includeHoles(boolean value) {
+        this.includeHoles = value;
+        return this;
+    }
+
+    /**
+     * Размечать изображения от {@code minPixels} пикселей полосами высотой {@code bandHeight} в пуле.
+     */
+    public ComponentCounter parallel(ForkJoinPool pool, int bandHeight, long minPixels) {
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("Высота полосы должна быть положительной");
+        }
+        this.pool = pool;
+        this.bandHeight = bandHeight;
+        this.minParallelPixels = minPixels;
+        return this;
+    }
+
+    /**
+     * @param binary бинарное изображение CV_8UC1 (ненулевые пиксели — объекты)
+     * @return число объектов и дырок, подошедших хотя бы к одному классу
+     */
+    public int count(Mat binary) {
+        return count(binary, new int[classes.size()]);
+    }
+
+    /**
+     * @param binary бинарное изображение CV_8UC1 (ненулевые пиксели — объекты)
+     * @return число объектов и дырок в каждом классе размеров (в порядке добавления классов)
+     */
+    public int[] countByClass(Mat binary) {
+        int[] counts = new int[classes.size()];
+        count(binary, counts);
+        return counts;
+    }
+
+    private int count(Mat binary, int[] counts) {
+        int count = countMatches(components(binary, 8), false, binary, counts);
+        if (includeHoles) {
+            try (MatLease inverted = MatPool.shared().acquire(binary.rows(), binary.cols(), CvType.CV_8UC1)) {
+                // Фон, кроме нулевых пикселей объекта, становится ненулевым; дырки — его компоненты
+                Imgproc.threshold(binary, inverted.mat(), 0, 255, Imgproc.THRESH_BINARY_INV);
+                count += countMatches(components(inverted.mat(), 4), true, binary, counts);
+            }
+        }
+        return count;
+    }
+
+    private int countMatches(int[] stats, boolean holes, Mat image, int[] counts) {
+        int count = 0;
+        for (int i = 0; i < stats.length; i += STATS) {
+            int x = stats[i];
+            int y = stats[i + 1];
+            int width = stats[i + 2];
+            int height = stats[i + 3];
+            int area = stats[i + 4];
+            if (holes) {
+                if (x == 0 || y == 0 || x + width == image.cols() || y + height == image.rows()) {
+                    // Фон, соединённый с краем, — не дырка
+                    continue;
+                }
+                // Контур дырки проходит по пикселям объекта вокруг неё
+                width += 2;
+                height += 2;
+            }
+            if (area >= minArea && area <= maxArea && classes.match(width, height, false, counts) > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return статистики компонент без фона (метки 0), по {@link #STATS} значений подряд
+     */
+    int[] components(Mat binary, int connectivity) {
+        if (pool == null || binary.total() < minParallelPixels || binary.rows() <= bandHeight) {
+            return label(binary, connectivity, 0, null).stats;
+        }
+
+        List<Callable<Band>> tasks = new ArrayList<>();
+        for (int y = 0; y < binary.rows(); y += bandHeight) {
+            int from = y;
+            int to = Math.min(binary.rows(), y + bandHeight);
+            tasks.add(() -> {
+                try (NativeScope scope = NativeScope.open()) {
+                    return label(scope.track(binary.rowRange(from, to)), connectivity, from, new int[2][]);
+                }
+            });
+        }
+        List<Band> bands = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Band> future : pool.invokeAll(tasks)) {
+                bands.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Разметка компонент прервана", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка разметки компонент", e.getCause());
+        }
+        return merge(bands, connectivity, binary.cols());
+    }
+
+    /**
+     * Разметка одной полосы (или всего изображения). Для полос сохраняются первая и последняя строки меток.
+     */
+    private static Band label(Mat image, int connectivity, int offsetY, int[][] edgeRows) {
+        try (NativeScope scope = NativeScope.open()) {
+            Mat labels = scope.mat();
+            Mat stats = scope.mat();
+            Mat centroids = scope.mat();
+            int n = Imgproc.connectedComponentsWithStats(image, labels, stats, centroids, connectivity, CvType.CV_32S);
+
+            int[] all = new int[n * STATS];
+            stats.get(0, 0, all);
+            // Строка 0 — фон
+            int[] result = Arrays.copyOfRange(all, Math.min(STATS, all.length), all.length);
+            for (int i = 1; i < result.length; i += STATS) {
+                result[i] += offsetY;
+            }
+
+            if (edgeRows != null) {
+                edgeRows[0] = new int[image.cols()];
+                edgeRows[1] = new int[image.cols()];
+                labels.get(0, 0, edgeRows[0]);
+                labels.get(image.rows() - 1, 0, edgeRows[1]);
+            }
+            return new Band(result, edgeRows);
+        }
+    }
+
+    /**
+     * Склеивает компоненты соседних полос: метки на последней строке полосы и первой строке следующей,
+     * связанные по 4- или 8-соседству, объединяются; габариты и площади складываются.
+     */
+    private static int[] merge(List<Band> bands, int connectivity, int cols) {
+        int[] offsets = new int[bands.size()];
+        int total = 0;
+        for (int b = 0; b < bands.size(); b++) {
+            offsets[b] = total;
+            total += bands.get(b).stats.length / STATS;
+        }
+
+        int[] parent = new int[total];
+        for (int i = 0; i < total; i++) {
+            parent[i] = i;
+        }
+        int reach = connectivity == 8 ? 1 : 0;
+        for (int b = 0; b + 1 < bands.size(); b++) {
+            int[] upper = bands.get(b).edgeRows[1];
+            int[] lower = bands.get(b + 1).edgeRows[0];
+            for (int x = 0; x < cols; x++) {
+                if (lower[x] == 0) {
+                    continue;
+                }
+                for (int dx = -reach; dx <= reach; dx++) {
+                    int ux = x + dx;
+                    if (ux >= 0 && ux < cols && upper[ux] != 0) {
+                        // Метка 0 — фон, компоненты нумеруются с 1
+                        union(parent, offsets[b] + upper[ux] - 1, offsets[b + 1] + lower[x] - 1);
+                    }
+                }
+            }
+        }
+
+        // Итоговая компонента копит x0, y0, x1, y1 (исключительно) и площадь в месте корня
+        int[] merged = new int[total * STATS];
+        boolean[] used = new boolean[total];
+        int roots = 0;
+        for (int b = 0; b < bands.size(); b++) {
+            int[] stats = bands.get(b).stats;
+            for (int i = 0; i < stats.length; i += STATS) {
+                int root = find(parent, offsets[b] + i / STATS);
+                int r = root * STATS;
+                int x0 = stats[i];
+                int y0 = stats[i + 1];
+                int x1 = x0 + stats[i + 2];
+                int y1 = y0 + stats[i + 3];
+                if (!used[root]) {
+                    used[root] = true;
+                    roots++;
+                    merged[r] = x0;
+                    merged[r + 1] = y0;
+                    merged[r + 2] = x1;
+                    merged[r + 3] = y1;
+                    merged[r + 4] = stats[i + 4];
+                } else {
+                    merged[r] = Math.min(merged[r], x0);
+                    merged[r + 1] = Math.min(merged[r + 1], y0);
+                    merged[r + 2] = Math.max(merged[r + 2], x1);
+                    merged[r + 3] = Math.max(merged[r + 3], y1);
+                    merged[r + 4] += stats[i + 4];
+                }
+            }
+        }
+
+        int[] result = new int[roots * STATS];
+        int k = 0;
+        for (int i = 0; i < total; i++) {
+            if (used[i]) {
+                int r = i * STATS;
+                result[k] = merged[r];
+                result[k + 1] = merged[r + 1];
+                result[k + 2] = merged[r + 2] - merged[r];
+                result[k + 3] = merged[r + 3] - merged[r + 1];
+                result[k + 4] = merged[r + 4];
+                k += STATS;
+            }
+        }
+        return result;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    private static final class Band {
+        final int[] stats;
+        final int[][] edgeRows;
+
+        Band(int[] stats, int[][] edgeRows) {
+            this.stats = stats;
+            this.edgeRows = edgeRows;
+        }
+    }
+}
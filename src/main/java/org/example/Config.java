@@ -21,4 +21,9 @@ public class Config {
     public static String getProp(String key) {
         return props.getProperty(key);
     }
+
+    public static int getIntProp(String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
 }
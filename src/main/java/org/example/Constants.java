@@ -3,6 +3,35 @@ package org.example;
 public class Constants {
     public static final String PATH_TO_NATIVE_LIB_LINUX = "pathToNativeLibLinux";
     public static final String PATH_TO_NATIVE_LIB_WIN = "pathToNativeLibWin";
+    public static final String BATCH_DECODE_THREADS = "batchDecodeThreads";
+    public static final String BATCH_COMPUTE_THREADS = "batchComputeThreads";
+    public static final String BATCH_ENCODE_THREADS = "batchEncodeThreads";
+    public static final String BATCH_QUEUE_CAPACITY = "batchQueueCapacity";
+    public static final String FILTER_PARALLELISM = "filterParallelism";
+    public static final String MAT_POOL_MAX_MB = "matPoolMaxMb";
+    public static final String MAT_POOL_LEAK_DETECTION = "matPoolLeakDetection";
+    public static final String PREVIEW_MODE = "previewMode";
+    public static final String PREVIEW_DIR = "previewDir";
+    public static final String PREVIEW_MAX_SIZE = "previewMaxSize";
+    public static final String PREVIEW_INTERVAL_MS = "previewIntervalMs";
+    public static final String TRANSFORM_CACHE_MAX_MB = "transformCacheMaxMb";
+    public static final String TRANSFORM_CACHE_REMAP = "transformCacheRemap";
+    public static final String METRICS_ENABLED = "metricsEnabled";
+    public static final String METRICS_PORT = "metricsPort";
+    public static final String ASYNC_COMPUTE_THREADS = "asyncComputeThreads";
+    public static final String ASYNC_IO_THREADS = "asyncIoThreads";
+    public static final String ASYNC_MAX_QUEUED = "asyncMaxQueued";
+    public static final String NATIVE_GATE_PERMITS = "nativeGatePermits";
+    public static final String STREAM_QUEUE_CAPACITY = "streamQueueCapacity";
+    public static final String INCREMENTAL_BLOCK_SIZE = "incrementalBlockSize";
+    public static final String MAPPED_CACHE_DIR = "mappedCacheDir";
+    public static final String MAPPED_CACHE_MAX_MB = "mappedCacheMaxMb";
+    public static final String IMAGE_CACHE_MAX_MB = "imageCacheMaxMb";
+    public static final String ENCODE_THREADS = "encodeThreads";
+    public static final String ENCODE_QUEUE_CAPACITY = "encodeQueueCapacity";
+    public static final String COUNT_METHOD = "countMethod";
+    public static final String COMPONENTS_PARALLEL_MIN_PIXELS = "componentsParallelMinPixels";
+    public static final String CHANNEL_CACHE_SIZE = "channelCacheSize";
 
     public enum OSType {
         WINDOWS, MACOS, LINUX, OTHER
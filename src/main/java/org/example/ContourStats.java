@@ -0,0 +1,374 @@
+package org.example;
+
+import org.opencv.core.MatOfPoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Подсчёт контуров заданного размера (или нескольких классов размеров, см. {@link SizeClasses})
+ * без объектов Java на каждый контур.
+ *
+ * <p>Точки контура читаются одним вызовом {@code Mat.get} в переиспользуемый массив; габаритный
+ * прямоугольник, выпуклая оболочка и прямоугольник минимальной площади (вращающиеся калиперы)
+ * считаются по примитивным массивам. Для {@link Fit#MIN_AREA_RECT} контуры, которые по габаритам
+ * заведомо не подходят, отбрасываются до построения оболочки.
+ *
+ * <p>Сравнение размеров повторяет прежние детекторы:
+ * <ul>
+ *     <li>{@link Fit#BOUNDING_RECT} — ширина и высота {@code Imgproc.boundingRect}, строго меньше допуска
+ *     ({@link SegmentationUtils#countRectangularObjects});</li>
+ *     <li>{@link Fit#MIN_AREA_RECT} — короткая и длинная стороны {@code Imgproc.minAreaRect} с целевыми
+ *     шириной и высотой, не больше допуска ({@link SearchObj#detectRectangles}).</li>
+ * </ul>
+ *
+ * <p>Найденные прямоугольники сохраняются, если включён {@link #collectRects(boolean)}. Экземпляр
+ * переиспользуется между кадрами, но не потокобезопасен.
+ */
+public class ContourStats {
+    public enum Fit {
+        BOUNDING_RECT,
+        MIN_AREA_RECT
+    }
+
+    // Запас на расхождение float-вычислений OpenCV и double здесь при отсечении по габаритам
+    private static final double PRUNE_SLACK = 1.0;
+    private static final double SQRT2 = Math.sqrt(2);
+
+    private final Fit fit;
+    private final SizeClasses classes;
+    private boolean collectRects;
+    // Границы всех классов для отсечения по габаритам
+    private double minWidth;
+    private double minHeight;
+    private double maxHeight;
+
+    private int[] points = new int[512];
+    private long[] sorted = new long[256];
+    private int[] hull = new int[514];
+
+    private int count;
+    private int examined;
+    private int pruned;
+    private int[] classCounts = new int[0];
+    private int[] boundingRects = new int[0];
+    private double[] minAreaRects = new double[0];
+
+    public ContourStats(Fit fit, int targetWidth, int targetHeight, double tolerance) {
+        this(fit, SizeClasses.of(targetWidth, targetHeight, tolerance));
+    }
+
+    /**
+     * Подсчёт сразу по нескольким классам размеров; счётчики по классам — {@link #getClassCounts()}.
+     * Для {@link Fit#MIN_AREA_RECT} ширина класса сравнивается с короткой стороной, высота — с длинной.
+     */
+    public ContourStats(Fit fit, SizeClasses classes) {
+        this.fit = fit;
+        this.classes = classes;
+    }
+
+    /**
+     * Сохранять найденные прямоугольники для {@link #getBoundingRects()} и {@link #getMinAreaRects()}.
+     */
+    public ContourStats collectRects(boolean value) {
+        this.collectRects = value;
+        return this;
+    }
+
+    /**
+     * Подсчитывает подходящие контуры. Результаты предыдущего вызова сбрасываются.
+     *
+     * @return число контуров, подошедших хотя бы к одному классу
+     */
+    public int count(List<MatOfPoint> contours) {
+        count = 0;
+        examined = 0;
+        pruned = 0;
+        classCounts = new int[classes.size()];
+        minWidth = classes.minWidth();
+        minHeight = classes.minHeight();
+        maxHeight = classes.maxHeight();
+        for (MatOfPoint contour : contours) {
+            int n = contour.rows();
+            if (n == 0) {
+                continue;
+            }
+            examined++;
+            ensurePoints(n);
+            contour.get(0, 0, points);
+
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < 2 * n; i += 2) {
+                minX = Math.min(minX, points[i]);
+                maxX = Math.max(maxX, points[i]);
+                minY = Math.min(minY, points[i + 1]);
+                maxY = Math.max(maxY, points[i + 1]);
+            }
+
+            if (fit == Fit.BOUNDING_RECT) {
+                // Габариты в пикселях, как у Imgproc.boundingRect
+                int width = maxX - minX + 1;
+                int height = maxY - minY + 1;
+                if (classes.match(width, height, false, classCounts) > 0) {
+                    addBounding(minX, minY, width, height);
+                }
+            } else if (sizeMayMatch(maxX - minX, maxY - minY)) {
+                fitMinAreaRect(n, minX, minY, maxX, maxY);
+            } else {
+                pruned++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Оценка сторон прямоугольника минимальной площади по габаритам точек {@code ex × ey}
+     * (сравнивается с границами всех классов):
+     * длинная сторона не больше диагонали габаритов и не меньше {@code max(ex, ey) / √2},
+     * короткая не больше {@code √2 · min(ex, ey)}.
+     */
+    private boolean sizeMayMatch(int ex, int ey) {
+        double longMin = Math.max(ex, ey) / SQRT2;
+        double longMax = Math.sqrt((double) ex * ex + (double) ey * ey);
+        double shortMax = SQRT2 * Math.min(ex, ey);
+        return longMax >= minHeight - PRUNE_SLACK
+                && longMin <= maxHeight + PRUNE_SLACK
+                && shortMax >= minWidth - PRUNE_SLACK;
+    }
+
+    private void fitMinAreaRect(int n, int minX, int minY, int maxX, int maxY) {
+        int h = convexHull(n);
+        double side1;
+        double side2;
+        double cx;
+        double cy;
+        double angle;
+        if (h == 1) {
+            side1 = 0;
+            side2 = 0;
+            cx = hull[0];
+            cy = hull[1];
+            angle = 0;
+        } else if (h == 2) {
+            double dx = hull[2] - hull[0];
+            double dy = hull[3] - hull[1];
+            side1 = Math.hypot(dx, dy);
+            side2 = 0;
+            cx = (hull[0] + hull[2]) / 2.0;
+            cy = (hull[1] + hull[3]) / 2.0;
+            angle = Math.atan2(dy, dx);
+        } else {
+            double bestArea = Double.MAX_VALUE;
+            double bestU = 0, bestN = 0, bestCx = 0, bestCy = 0, bestAngle = 0;
+            // a — максимум проекции на ребро, b — максимум по нормали, c — минимум проекции на ребро
+            int a = 1;
+            int b = 1;
+            int c = 1;
+            for (int i = 0; i < h; i++) {
+                int j = (i + 1) % h;
+                double ox = hull[2 * i];
+                double oy = hull[2 * i + 1];
+                double ux = hull[2 * j] - ox;
+                double uy = hull[2 * j + 1] - oy;
+                double len = Math.hypot(ux, uy);
+                ux /= len;
+                uy /= len;
+                // Оболочка обходится против часовой стрелки (в осях x, y), внутренность слева от ребра
+                double nx = -uy;
+                double ny = ux;
+
+                if (i == 0) {
+                    a = advance(a, h, ox, oy, ux, uy, true);
+                    b = advance(a, h, ox, oy, nx, ny, true);
+                    c = advance(b, h, ox, oy, ux, uy, false);
+                } else {
+                    a = advance(a, h, ox, oy, ux, uy, true);
+                    b = advance(b, h, ox, oy, nx, ny, true);
+                    c = advance(c, h, ox, oy, ux, uy, false);
+                }
+                double maxU = project(a, ox, oy, ux, uy);
+                double minU = project(c, ox, oy, ux, uy);
+                double maxN = project(b, ox, oy, nx, ny);
+                double area = (maxU - minU) * maxN;
+                if (area < bestArea) {
+                    bestArea = area;
+                    bestU = maxU - minU;
+                    bestN = maxN;
+                    double mu = (maxU + minU) / 2;
+                    double mn = maxN / 2;
+                    bestCx = ox + ux * mu + nx * mn;
+                    bestCy = oy + uy * mu + ny * mn;
+                    bestAngle = Math.atan2(uy, ux);
+                }
+            }
+            side1 = bestU;
+            side2 = bestN;
+            cx = bestCx;
+            cy = bestCy;
+            angle = bestAngle;
+        }
+
+        double w = Math.min(side1, side2);
+        double l = Math.max(side1, side2);
+        if (classes.match(w, l, true, classCounts) > 0) {
+            if (side2 > side1) {
+                angle += Math.PI / 2;
+            }
+            double degrees = Math.toDegrees(angle) % 180;
+            if (degrees < 0) {
+                degrees += 180;
+            }
+            if (collectRects) {
+                addMinArea(cx, cy, w, l, degrees);
+            }
+            addBounding(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+    }
+
+    /**
+     * Сдвигает указатель по оболочке, пока проекция на направление (dx, dy) растёт
+     * ({@code increasing}) или убывает.
+     */
+    private int advance(int from, int h, double ox, double oy, double dx, double dy, boolean increasing) {
+        int k = from;
+        double current = project(k, ox, oy, dx, dy);
+        for (int step = 0; step < h; step++) {
+            int next = (k + 1) % h;
+            double value = project(next, ox, oy, dx, dy);
+            if (increasing ? value < current : value > current) {
+                break;
+            }
+            k = next;
+            current = value;
+        }
+        return k;
+    }
+
+    private double project(int k, double ox, double oy, double dx, double dy) {
+        return (hull[2 * k] - ox) * dx + (hull[2 * k + 1] - oy) * dy;
+    }
+
+    /**
+     * Выпуклая оболочка точек (монотонная цепочка Эндрю) без коллинеарных вершин,
+     * против часовой стрелки; вершины пишутся в {@code hull}.
+     *
+     * @return число вершин
+     */
+    private int convexHull(int n) {
+        if (sorted.length < n) {
+            sorted = new long[Math.max(n, sorted.length * 2)];
+        }
+        // Координаты на изображении неотрицательны, поэтому порядок long совпадает с порядком (x, y)
+        for (int i = 0; i < n; i++) {
+            sorted[i] = ((long) points[2 * i] << 32) | (points[2 * i + 1] & 0xffffffffL);
+        }
+        Arrays.sort(sorted, 0, n);
+        if (hull.length < 4 * n + 2) {
+            hull = new int[Math.max(4 * n + 2, hull.length * 2)];
+        }
+
+        int k = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int lower = k;
+            for (int s = 0; s < n; s++) {
+                long p = sorted[pass == 0 ? s : n - 1 - s];
+                int x = (int) (p >> 32);
+                int y = (int) p;
+                while (k >= lower + 2 && cross(k - 2, k - 1, x, y) <= 0) {
+                    k--;
+                }
+                hull[2 * k] = x;
+                hull[2 * k + 1] = y;
+                k++;
+            }
+            // Последняя точка цепочки — первая точка следующей
+            k--;
+        }
+        if (k == 0) {
+            // Все точки совпадают
+            return 1;
+        }
+        return k;
+    }
+
+    private long cross(int o, int a, int x, int y) {
+        long ox = hull[2 * o];
+        long oy = hull[2 * o + 1];
+        return (hull[2 * a] - ox) * (y - oy) - (hull[2 * a + 1] - oy) * (x - ox);
+    }
+
+    private void ensurePoints(int n) {
+        if (points.length < 2 * n) {
+            points = new int[Math.max(2 * n, points.length * 2)];
+        }
+    }
+
+    private void addBounding(int x, int y, int width, int height) {
+        if (collectRects) {
+            int offset = 4 * count;
+            if (boundingRects.length < offset + 4) {
+                boundingRects = Arrays.copyOf(boundingRects, Math.max(offset + 4, boundingRects.length * 2));
+            }
+            boundingRects[offset] = x;
+            boundingRects[offset + 1] = y;
+            boundingRects[offset + 2] = width;
+            boundingRects[offset + 3] = height;
+        }
+        count++;
+    }
+
+    private void addMinArea(double cx, double cy, double width, double height, double angle) {
+        int offset = 5 * count;
+        if (minAreaRects.length < offset + 5) {
+            minAreaRects = Arrays.copyOf(minAreaRects, Math.max(offset + 5, minAreaRects.length * 2));
+        }
+        minAreaRects[offset] = cx;
+        minAreaRects[offset + 1] = cy;
+        minAreaRects[offset + 2] = width;
+        minAreaRects[offset + 3] = height;
+        minAreaRects[offset + 4] = angle;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return число контуров в каждом классе размеров (в порядке добавления классов)
+     */
+    public int[] getClassCounts() {
+        return classCounts.clone();
+    }
+
+    /**
+     * @return число контуров, просмотренных последним {@link #count}
+     */
+    public int getExamined() {
+        return examined;
+    }
+
+    /**
+     * @return число контуров, отброшенных по габаритам без построения оболочки
+     */
+    public int getPruned() {
+        return pruned;
+    }
+
+    /**
+     * @return габаритные прямоугольники найденных контуров: {@code x, y, width, height} подряд
+     */
+    public int[] getBoundingRects() {
+        return Arrays.copyOf(boundingRects, collectRects ? 4 * count : 0);
+    }
+
+    /**
+     * @return прямоугольники минимальной площади ({@link Fit#MIN_AREA_RECT}): центр {@code x, y}, короткая
+     * и длинная стороны, угол длинной стороны к оси x в градусах [0, 180) — по 5 значений подряд
+     */
+    public double[] getMinAreaRects() {
+        return Arrays.copyOf(minAreaRects, collectRects && fit == Fit.MIN_AREA_RECT ? 5 * count : 0);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * Способ подсчёта объектов в {@link ImageAPI#getCountObj}; результаты у всех способов совпадают.
+ */
+public enum CountMethod {
+    /**
+     * Контуры бинарного изображения ({@link SegmentationUtils#countRectangularObjects}).
+     */
+    CONTOURS,
+    /**
+     * Связные компоненты ({@link ComponentCounter}) — без извлечения точек контуров.
+     */
+    COMPONENTS;
+
+    /**
+     * Способ из параметра {@code countMethod} в config.properties (по умолчанию контуры).
+     */
+    static CountMethod fromConfig() {
+        String value = Config.getProp(Constants.COUNT_METHOD);
+        return value == null || value.isBlank() ? CONTOURS : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -2,17 +2,38 @@ package org.example;
 
 import org.opencv.core.Core;
 import org.apache.log4j.Logger;
+import org.example.encode.EncoderParams;
+import org.example.encode.ImageEncoder;
+import org.example.metrics.Metrics;
+import org.example.metrics.MetricsHttpServer;
+import org.example.preview.PreviewSink;
+import org.example.tiles.ImageIOTileSource;
+import org.example.tiles.IncrementalProcessor;
+import org.example.tiles.RoiProcessor;
+import org.example.tiles.TileOperation;
+import org.example.tiles.TileSink;
+import org.example.tiles.TiledProcessor;
+import org.example.video.FrameSink;
+import org.example.video.FrameSource;
+import org.example.video.FrameStreamProcessor;
+import org.example.video.StreamReport;
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
 import org.opencv.core.Point;
+import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 
+import java.awt.image.BufferedImage;
+import java.nio.file.Paths;
 import java.util.Locale;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class ImageAPI {
     private static final Logger log = Logger.getLogger(ImageAPI.class);
     private final ImageProcessor processor;
     private final ImageTransformations transformations;
+    private final CountMethod countMethod = CountMethod.fromConfig();
 
     public ImageAPI() throws Exception {
         processor = new ImageProcessor();
@@ -35,6 +56,7 @@ public class ImageAPI {
         }
 
         log.info("OpenCV version - " + Core.getVersionString());
+        MetricsHttpServer.startFromConfig();
     }
 
     private Constants.OSType getOperatingSystemType() {
@@ -45,14 +67,168 @@ public class ImageAPI {
         else return Constants.OSType.OTHER;
     }
 
+    /**
+     * Создаёт ленивую цепочку операций (см. {@link ImagePipeline}).
+     */
+    public ImagePipeline pipeline() {
+        return new ImagePipeline(processor);
+    }
+
     public Mat loadImage(String path) {
-        log.info("Loading image from " + path);
-        return processor.loadImage(path);
+        if (log.isInfoEnabled()) {
+            log.info("Loading image from " + path);
+        }
+        Metrics.Sample sample = Metrics.start("loadImage", null);
+        return Metrics.stop(sample, processor.loadImage(path));
+    }
+
+    /**
+     * Загружает изображение сразу в заданном размере: JPEG декодируется с уменьшением
+     * ({@code IMREAD_REDUCED_*}), и полное разрешение не распаковывается.
+     *
+     * @param grayscale декодировать сразу в оттенки серого (если дальше applySobel, applyLaplacian, getImageEdges)
+     */
+    public Mat loadImage(String path, int width, int height, boolean grayscale) {
+        if (log.isInfoEnabled()) {
+            log.info("Loading image from " + path + " at " + width + "x" + height + (grayscale ? " in grayscale" : ""));
+        }
+        Metrics.Sample sample = Metrics.start("loadImage", null);
+        return Metrics.stop(sample, processor.loadImage(path, width, height, grayscale));
+    }
+
+    /**
+     * Загружает изображение, уменьшенное в scale раз (0 &lt; scale &lt;= 1), с уменьшением при декодировании.
+     *
+     * @param grayscale декодировать сразу в оттенки серого
+     */
+    public Mat loadImage(String path, double scale, boolean grayscale) {
+        if (log.isInfoEnabled()) {
+            log.info("Loading image from " + path + " with scale " + scale + (grayscale ? " in grayscale" : ""));
+        }
+        Metrics.Sample sample = Metrics.start("loadImage", null);
+        return Metrics.stop(sample, processor.loadImage(path, scale, grayscale));
+    }
+
+    /**
+     * Поплиточная обработка изображения, не загружая его в память целиком.
+     *
+     * @param path       путь к изображению
+     * @param operation  операция над окрестностью (см. {@link TileOperation})
+     * @param sink       приёмник плиток результата
+     * @param tileWidth  ширина плитки
+     * @param tileHeight высота плитки
+     */
+    public void applyTiled(String path, TileOperation operation, TileSink sink,
+                           int tileWidth, int tileHeight) throws Exception {
+        if (log.isInfoEnabled()) {
+            log.info("Tiled processing of " + path + " with tiles " + tileWidth + "x" + tileHeight);
+        }
+        Metrics.Sample sample = Metrics.start("applyTiled", null);
+        try (ImageIOTileSource source = new ImageIOTileSource(Paths.get(path))) {
+            new TiledProcessor(tileWidth, tileHeight).process(source, operation, sink);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    /**
+     * Потоковая обработка кадров (видео, камера, каталог кадров) цепочкой операций.
+     *
+     * @param source   источник кадров
+     * @param sink     приёмник обработанных кадров
+     * @param pipeline цепочка операций над каждым кадром (см. {@link #pipeline()})
+     * @return отчёт с частотой кадров и числом пропущенных
+     */
+    public StreamReport processStream(FrameSource source, FrameSink sink, ImagePipeline pipeline)
+            throws InterruptedException {
+        log.info("Processing frame stream with " + pipeline.describePlan());
+        return new FrameStreamProcessor(pipeline).run(source, sink);
+    }
+
+    /**
+     * Обработчик последовательности кадров, пересчитывающий операцию только в изменившихся блоках.
+     * Подходит для мало меняющихся сцен; результат совпадает с обработкой целого кадра.
+     *
+     * @param operation операция над окрестностью (см. {@link TileOperation})
+     */
+    public IncrementalProcessor incremental(TileOperation operation) {
+        return new IncrementalProcessor(operation);
     }
 
     public Mat zeroChannel(Mat img, int channel) {
-        log.info("Zeroing channel " + channel);
-        return processor.zeroChannel(img, channel);
+        if (log.isInfoEnabled()) {
+            log.info("Zeroing channel " + channel);
+        }
+        Metrics.Sample sample = Metrics.start("zeroChannel", img);
+        return Metrics.stop(sample, processor.zeroChannel(img, channel));
+    }
+
+    public void zeroChannel(Mat img, int channel, Mat dst) {
+        if (log.isInfoEnabled()) {
+            log.info("Zeroing channel " + channel + " into destination");
+        }
+        Metrics.Sample sample = Metrics.start("zeroChannel", img);
+        try {
+            processor.zeroChannel(img, channel, dst);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    public void setChannel(Mat img, int channel, double value) {
+        if (log.isInfoEnabled()) {
+            log.info("Setting channel " + channel + " to " + value);
+        }
+        Metrics.Sample sample = Metrics.start("setChannel", img);
+        try {
+            processor.setChannel(img, channel, value);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    public void swapChannels(Mat img, int channelA, int channelB) {
+        if (log.isInfoEnabled()) {
+            log.info("Swapping channels " + channelA + " and " + channelB);
+        }
+        Metrics.Sample sample = Metrics.start("swapChannels", img);
+        try {
+            processor.swapChannels(img, channelA, channelB);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    public void extractChannel(Mat img, int channel, Mat dst) {
+        if (log.isInfoEnabled()) {
+            log.info("Extracting channel " + channel);
+        }
+        Metrics.Sample sample = Metrics.start("extractChannel", img);
+        try {
+            processor.extractChannel(img, channel, dst);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    public void mergeChannel(Mat plane, Mat dst, int channel) {
+        if (log.isInfoEnabled()) {
+            log.info("Merging plane into channel " + channel);
+        }
+        Metrics.Sample sample = Metrics.start("mergeChannel", plane);
+        try {
+            processor.mergeChannel(plane, dst, channel);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    /**
+     * Освобождает нативные плоскости, закэшированные для операций над каналами
+     * (например, после обработки кадров большого размера).
+     */
+    public void releaseChannelCache() {
+        processor.releaseChannelCache();
     }
 
     public void showImage(Mat img) {
@@ -60,53 +236,212 @@ public class ImageAPI {
         processor.showImage(img);
     }
 
+    public void setPreviewSink(PreviewSink preview) {
+        if (log.isInfoEnabled()) {
+            log.info("Switching preview sink to " + preview.getClass().getSimpleName());
+        }
+        processor.setPreviewSink(preview);
+    }
+
+    public BufferedImage toBufferedImage(Mat img) {
+        log.info("Converting image to BufferedImage");
+        Metrics.Sample sample = Metrics.start("toBufferedImage", img);
+        BufferedImage image = processor.toBufferedImage(img);
+        Metrics.stop(sample);
+        return image;
+    }
+
+    public Mat fromBufferedImage(BufferedImage image) {
+        log.info("Converting BufferedImage to image");
+        Metrics.Sample sample = Metrics.start("fromBufferedImage", null);
+        return Metrics.stop(sample, processor.fromBufferedImage(image));
+    }
+
     public void saveImage(String path, Mat img) {
-        log.info("Saving image to " + path);
-        processor.saveImage(path, img);
+        if (log.isInfoEnabled()) {
+            log.info("Saving image to " + path);
+        }
+        Metrics.Sample sample = Metrics.start("saveImage", img);
+        try {
+            processor.saveImage(path, img);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    /**
+     * Сохраняет изображение с параметрами кодирования, например {@code EncoderParams.jpeg(85).optimize(true)}.
+     * Для фоновой записи с ограниченной очередью см. {@link ImageEncoder}.
+     */
+    public void saveImage(String path, Mat img, EncoderParams params) {
+        if (log.isInfoEnabled()) {
+            log.info("Saving image to " + path + " with " + params);
+        }
+        Metrics.Sample sample = Metrics.start("saveImage", img);
+        try {
+            processor.saveImage(path, img, params);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    /**
+     * Кодирует изображение в память в формате из параметров.
+     */
+    public MatOfByte encodeImage(Mat img, EncoderParams params) {
+        if (log.isInfoEnabled()) {
+            log.info("Encoding image with " + params);
+        }
+        Metrics.Sample sample = Metrics.start("encodeImage", img);
+        return Metrics.stop(sample, processor.encodeImage(img, params));
     }
 
     public Mat applySobel(Mat img, int dx, int dy, int ksize,
                           double scale, double delta, int borderType) {
-        log.info("Applying Sobel operator with dx=" + dx + ", dy=" + dy + ", kernel size: " + ksize + ", scale: " + scale +
-                ", delta: " + delta + ", border type: " + borderType);
-        return processor.applySobel(img, dx, dy, ksize, scale, delta, borderType);
+        if (log.isInfoEnabled()) {
+            log.info("Applying Sobel operator with dx=" + dx + ", dy=" + dy + ", kernel size: " + ksize + ", scale: " + scale +
+                    ", delta: " + delta + ", border type: " + borderType);
+        }
+        Metrics.Sample sample = Metrics.start("applySobel", img);
+        return Metrics.stop(sample, processor.applySobel(img, dx, dy, ksize, scale, delta, borderType));
     }
 
     public Mat applyLaplace(Mat img, int ksize, double scale, double delta, int borderType) {
-        log.info("Applying Laplace operator with" + "ksize=" + ksize + ", " + "scale=" + scale + ", " +
-                "delta=" + delta + ", " +
-                "borderType=" + borderType);
-        return processor.applyLaplacian(img, ksize, scale, delta, borderType);
+        if (log.isInfoEnabled()) {
+            log.info("Applying Laplace operator with" + "ksize=" + ksize + ", " + "scale=" + scale + ", " +
+                    "delta=" + delta + ", " +
+                    "borderType=" + borderType);
+        }
+        Metrics.Sample sample = Metrics.start("applyLaplace", img);
+        return Metrics.stop(sample, processor.applyLaplacian(img, ksize, scale, delta, borderType));
+    }
+
+    /**
+     * Оператор Собеля только в области {@code roi}; края области считаются по соседним пикселям
+     * изображения, результат совпадает с частью {@link #applySobel} для всего изображения.
+     *
+     * @return результат размером с область
+     */
+    public Mat applySobel(Mat img, Rect roi, int dx, int dy, int ksize, double scale, double delta, int borderType) {
+        if (log.isInfoEnabled()) {
+            log.info("Applying Sobel operator in region " + roi);
+        }
+        Metrics.Sample sample = Metrics.start("applySobelRoi", area(roi));
+        return Metrics.stop(sample, RoiProcessor.apply(img, roi,
+                TileOperation.sobel(dx, dy, ksize, scale, delta, borderType)));
+    }
+
+    /**
+     * Оператор Лапласа только в области {@code roi} (см. {@link #applySobel(Mat, Rect, int, int, int, double, double, int)}).
+     */
+    public Mat applyLaplace(Mat img, Rect roi, int ksize, double scale, double delta, int borderType) {
+        if (log.isInfoEnabled()) {
+            log.info("Applying Laplace operator in region " + roi);
+        }
+        Metrics.Sample sample = Metrics.start("applyLaplaceRoi", area(roi));
+        return Metrics.stop(sample, RoiProcessor.apply(img, roi, TileOperation.laplacian(ksize, scale, delta, borderType)));
+    }
+
+    /**
+     * Любая операция над окрестностью ({@link TileOperation}) только в области {@code roi}.
+     *
+     * @return результат размером с область
+     */
+    public Mat applyInRoi(Mat img, Rect roi, TileOperation operation) {
+        if (log.isInfoEnabled()) {
+            log.info("Applying operation in region " + roi);
+        }
+        Metrics.Sample sample = Metrics.start("applyInRoi", area(roi));
+        return Metrics.stop(sample, RoiProcessor.apply(img, roi, operation));
+    }
+
+    /**
+     * @return результаты размером с области, в том же порядке
+     */
+    public List<Mat> applyInRoi(Mat img, List<Rect> rois, TileOperation operation) {
+        if (log.isInfoEnabled()) {
+            log.info("Applying operation in " + rois.size() + " regions");
+        }
+        Metrics.Sample sample = Metrics.start("applyInRoi", area(rois));
+        List<Mat> results = RoiProcessor.apply(img, rois, operation);
+        Metrics.stop(sample);
+        return results;
+    }
+
+    /**
+     * Пишет результаты на места областей в полноразмерный приёмник {@code dst} (им может быть сам {@code img},
+     * если тип результата совпадает, а области с запасом не пересекаются); остальные пиксели не меняются.
+     */
+    public void applyInRoi(Mat img, List<Rect> rois, TileOperation operation, Mat dst) {
+        if (log.isInfoEnabled()) {
+            log.info("Applying operation in " + rois.size() + " regions in place");
+        }
+        Metrics.Sample sample = Metrics.start("applyInRoi", area(rois));
+        try {
+            RoiProcessor.apply(img, rois, operation, dst);
+        } finally {
+            Metrics.stop(sample);
+        }
+    }
+
+    private static long area(Rect roi) {
+        return (long) roi.width * roi.height;
+    }
+
+    private static long area(List<Rect> rois) {
+        long pixels = 0;
+        for (Rect roi : rois) {
+            pixels += area(roi);
+        }
+        return pixels;
     }
 
     public Mat flip(Mat img, boolean horizontal) {
-        log.info("Flipping image horizontal " + horizontal);
-        return processor.flipImage(img, horizontal);
+        if (log.isInfoEnabled()) {
+            log.info("Flipping image horizontal " + horizontal);
+        }
+        Metrics.Sample sample = Metrics.start("flip", img);
+        return Metrics.stop(sample, processor.flipImage(img, horizontal));
     }
 
     public Mat repeat(Mat img, int ny, int nx) {
-        log.info("Repeating image ny=" + ny + ", nx=" + nx);
-        return processor.repeatImage(img, ny, nx);
+        if (log.isInfoEnabled()) {
+            log.info("Repeating image ny=" + ny + ", nx=" + nx);
+        }
+        Metrics.Sample sample = Metrics.start("repeat", img);
+        return Metrics.stop(sample, processor.repeatImage(img, ny, nx));
     }
 
     public Mat concatImages(List<Mat> images, boolean horizontal) {
-        log.info("Concatenating images. Horizontal = " + horizontal);
-        return processor.concatImages(images, horizontal);
+        if (log.isInfoEnabled()) {
+            log.info("Concatenating images. Horizontal = " + horizontal);
+        }
+        Metrics.Sample sample = Metrics.start("concatImages", images.isEmpty() ? null : images.get(0));
+        return Metrics.stop(sample, processor.concatImages(images, horizontal));
     }
 
     public Mat resize(Mat img, int width, int height) {
-        log.info("Resizing image to " + width + "x" + height);
-        return processor.resizeImage(img, width, height);
+        if (log.isInfoEnabled()) {
+            log.info("Resizing image to " + width + "x" + height);
+        }
+        Metrics.Sample sample = Metrics.start("resize", img);
+        return Metrics.stop(sample, processor.resizeImage(img, width, height));
     }
 
     public Mat rotate(Mat img, double angle, boolean keepContent) {
-        log.info("Rotating image by " + angle + " degrees, keepContent = " + keepContent);
-        return processor.rotateImage(img, angle, keepContent);
+        if (log.isInfoEnabled()) {
+            log.info("Rotating image by " + angle + " degrees, keepContent = " + keepContent);
+        }
+        Metrics.Sample sample = Metrics.start("rotate", img);
+        return Metrics.stop(sample, processor.rotateImage(img, angle, keepContent));
     }
 
     public Mat shift(Mat img, int shiftX, int shiftY) {
-        log.info("Shifting image by X=" + shiftX + ", Y=" + shiftY);
-        return processor.shiftImage(img, shiftX, shiftY);
+        if (log.isInfoEnabled()) {
+            log.info("Shifting image by X=" + shiftX + ", Y=" + shiftY);
+        }
+        Metrics.Sample sample = Metrics.start("shift", img);
+        return Metrics.stop(sample, processor.shiftImage(img, shiftX, shiftY));
     }
 
     /**
@@ -119,49 +454,192 @@ public class ImageAPI {
      */
     public Mat perspectiveTransform(Mat img, double angle, String direction, double intensity) {
         log.info("Applying perspective transformation");
-        return processor.transformPerspectiveWithDeviation(img, angle, direction, intensity);
+        Metrics.Sample sample = Metrics.start("perspectiveTransform", img);
+        return Metrics.stop(sample, processor.transformPerspectiveWithDeviation(img, angle, direction, intensity));
     }
 
     // ---
 
     public Mat floodFillWithParams(Mat image, Point seedPoint, Scalar fillColor, Scalar loDiff, Scalar upDiff) {
         log.info("Applying flood fill image");
-        SegmentationUtils.floodFillWithParams(image, seedPoint, fillColor, loDiff, upDiff);
+        Metrics.Sample sample = Metrics.start("floodFill", image);
+        try {
+            SegmentationUtils.floodFillWithParams(image, seedPoint, fillColor, loDiff, upDiff);
+        } finally {
+            Metrics.stop(sample);
+        }
         return image;
     }
 
     public Mat applyPyramidDown(Mat image, int times) {
         log.info("Applying pyramid down image");
-        SegmentationUtils.applyPyramidDown(image, times);
+        Metrics.Sample sample = Metrics.start("applyPyramidDown", image);
+        try {
+            SegmentationUtils.applyPyramidDown(image, times);
+        } finally {
+            Metrics.stop(sample);
+        }
         return image;
     }
 
     public Mat applyPyramidUp(Mat image, int times) {
         log.info("Applying pyramid up image");
-        SegmentationUtils.applyPyramidUp(image, times);
+        Metrics.Sample sample = Metrics.start("applyPyramidUp", image);
+        try {
+            SegmentationUtils.applyPyramidUp(image, times);
+        } finally {
+            Metrics.stop(sample);
+        }
         return image;
     }
 
     public Mat getImageDifference(Mat original, Mat processed) {
         log.info("Get difference image");
+        Metrics.Sample sample = Metrics.start("getImageDifference", original);
         Mat image = SegmentationUtils.getImageDifference(original, processed);
-        return image;
+        return Metrics.stop(sample, image);
     }
 
+    /**
+     * Подсчёт объектов способом из параметра {@code countMethod} в config.properties (по умолчанию контуры).
+     */
     public int getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return getCountObj(image, targetWidth, targetHeight, tolerance, countMethod);
+    }
+
+    public int getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance, CountMethod method) {
         log.info("Get count rectangular objects from image");
-        return SegmentationUtils.countRectangularObjects(image, targetWidth, targetHeight, tolerance);
+        Metrics.Sample sample = Metrics.start("getCountObj", image);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            return Metrics.stop(sample, countObjects(frame, targetWidth, targetHeight, tolerance, method));
+        }
+    }
+
+    /**
+     * Общая предобработка кадра для нескольких детекторов подряд; закрывается вызывающим.
+     */
+    public AnalysisContext analyze(Mat image) {
+        return new AnalysisContext(image);
+    }
+
+    public int getCountObj(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        log.info("Get count rectangular objects from image");
+        Metrics.Sample sample = Metrics.start("getCountObj", frame.source());
+        return Metrics.stop(sample, countObjects(frame, targetWidth, targetHeight, tolerance, countMethod));
+    }
+
+    /**
+     * Подсчёт объектов сразу по многим классам размеров: бинаризация и контуры (или компоненты)
+     * вычисляются один раз, каждый объект раскладывается по подходящим классам.
+     *
+     * @return число объектов в каждом классе, в порядке добавления классов
+     */
+    public int[] getCountObj(Mat image, SizeClasses classes) {
+        if (log.isInfoEnabled()) {
+            log.info("Get count rectangular objects from image for " + classes.size() + " size classes");
+        }
+        Metrics.Sample sample = Metrics.start("getCountObjBatch", image);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            int[] counts;
+            if (countMethod == CountMethod.COMPONENTS) {
+                counts = componentCounter(frame, classes).countByClass(frame.otsuBinary());
+            } else {
+                ContourStats stats = new ContourStats(ContourStats.Fit.BOUNDING_RECT, classes);
+                SegmentationUtils.countRectangularObjects(frame, stats);
+                counts = stats.getClassCounts();
+            }
+            Metrics.stop(sample);
+            return counts;
+        }
+    }
+
+    private static int countObjects(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance,
+                                    CountMethod method) {
+        if (method == CountMethod.COMPONENTS) {
+            ComponentCounter counter = componentCounter(frame, SizeClasses.of(targetWidth, targetHeight, tolerance));
+            return SegmentationUtils.countObjectsByComponents(frame, counter);
+        }
+        return SegmentationUtils.countRectangularObjects(frame, targetWidth, targetHeight, tolerance);
+    }
+
+    private static ComponentCounter componentCounter(AnalysisContext frame, SizeClasses classes) {
+        // Большие кадры размечаются полосами в общем пуле, примерно по 4 полосы на поток
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return new ComponentCounter(classes)
+                .parallel(pool, Math.max(64, frame.source().rows() / (4 * pool.getParallelism())),
+                        Config.getIntProp(Constants.COMPONENTS_PARALLEL_MIN_PIXELS, 4_000_000));
     }
 
     // ---
 
     public Mat getImageEdges(Mat src, int blurKernelSize, double lowThreshold, double highThreshold, boolean useOtsu) {
         log.info("Get image edges");
-        return SearchObj.detectEdges(src, blurKernelSize, lowThreshold, highThreshold, useOtsu);
+        Metrics.Sample sample = Metrics.start("getImageEdges", src);
+        return Metrics.stop(sample, SearchObj.detectEdges(src, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    /**
+     * Границы только в области {@code roi}, результат размером с область (см. {@link SearchObj#detectEdges(Mat, Rect, int, double, double, boolean)}).
+     */
+    public Mat getImageEdges(Mat src, Rect roi, int blurKernelSize, double lowThreshold, double highThreshold,
+                             boolean useOtsu) {
+        if (log.isInfoEnabled()) {
+            log.info("Get image edges in region " + roi);
+        }
+        Metrics.Sample sample = Metrics.start("getImageEdgesRoi", area(roi));
+        return Metrics.stop(sample, SearchObj.detectEdges(src, roi, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public Mat getImageEdges(AnalysisContext frame, int blurKernelSize, double lowThreshold, double highThreshold,
+                             boolean useOtsu) {
+        log.info("Get image edges");
+        Metrics.Sample sample = Metrics.start("getImageEdges", frame.source());
+        return Metrics.stop(sample, SearchObj.detectEdges(frame, blurKernelSize, lowThreshold, highThreshold, useOtsu));
     }
 
     public int getCountObjCanny(Mat image, int targetWidth, int targetHeight, double tolerance) {
         log.info("Get count rectangular objects from image");
-        return SearchObj.detectRectangles(image, targetWidth, targetHeight, tolerance);
+        Metrics.Sample sample = Metrics.start("getCountObjCanny", image);
+        return Metrics.stop(sample, SearchObj.detectRectangles(image, targetWidth, targetHeight, tolerance));
+    }
+
+    public int getCountObjCanny(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        log.info("Get count rectangular objects from image");
+        Metrics.Sample sample = Metrics.start("getCountObjCanny", frame.source());
+        return Metrics.stop(sample, SearchObj.detectRectangles(frame, targetWidth, targetHeight, tolerance));
+    }
+
+    /**
+     * Подсчёт прямоугольников по границам Canny сразу по многим классам размеров за один проход
+     * (ширина класса — короткая сторона, высота — длинная).
+     *
+     * @return число прямоугольников в каждом классе, в порядке добавления классов
+     */
+    public int[] getCountObjCanny(Mat image, SizeClasses classes) {
+        if (log.isInfoEnabled()) {
+            log.info("Get count rectangular objects from image for " + classes.size() + " size classes");
+        }
+        Metrics.Sample sample = Metrics.start("getCountObjCannyBatch", image);
+        ContourStats stats = new ContourStats(ContourStats.Fit.MIN_AREA_RECT, classes);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            SearchObj.detectRectangles(frame, stats);
+        }
+        Metrics.stop(sample);
+        return stats.getClassCounts();
+    }
+
+    /**
+     * Прямоугольники, которые считает {@link #getCountObjCanny}: по 5 значений подряд — центр x, y,
+     * короткая и длинная стороны, угол длинной стороны в градусах.
+     */
+    public double[] getRectangles(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        log.info("Get rectangular objects from image");
+        Metrics.Sample sample = Metrics.start("getRectangles", image);
+        ContourStats stats = new ContourStats(ContourStats.Fit.MIN_AREA_RECT, targetWidth, targetHeight, tolerance)
+                .collectRects(true);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            Metrics.stop(sample, SearchObj.detectRectangles(frame, stats));
+        }
+        return stats.getMinAreaRects();
     }
 }
@@ -0,0 +1,423 @@
+package org.example;
+
+import org.apache.log4j.Logger;
+import org.example.encode.EncoderParams;
+import org.example.tiles.TileOperation;
+import org.example.tiles.TileSink;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Асинхронный фасад над {@link ImageAPI}: каждый метод сразу возвращает {@link CompletableFuture}.
+ *
+ * <p>Вычисления выполняются ограниченным пулом потоков, чтение и запись файлов
+ * ({@code loadImage}, {@code saveImage}, {@code applyTiled}) — отдельным пулом ввода-вывода,
+ * чтобы медленный диск не занимал вычислительные потоки.
+ *
+ * <p>Очередь каждого пула ограничена: если она заполнена, вызов сразу завершается
+ * с {@link RejectedExecutionException} (контроль допуска), а не растит задержку остальных.
+ * Отмена будущего или истечение срока ({@link #withDeadline}) убирает задачу из очереди;
+ * если задача уже выполняется, её результат по готовности освобождается. Прервать
+ * выполняющуюся операцию OpenCV нельзя.
+ *
+ * <pre>
+ * try (ImageApiAsync async = new ImageApiAsync(api)) {
+ *     async.withDeadline(Duration.ofMillis(200))
+ *          .resize(img, 640, 480)
+ *          .thenAccept(...);
+ * }
+ * </pre>
+ */
+public class ImageApiAsync implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(ImageApiAsync.class);
+
+    private final ImageAPI api;
+    private final ThreadPoolExecutor compute;
+    private final ThreadPoolExecutor io;
+    private final LongAdder rejected;
+    private final LongAdder expired;
+    private final Duration deadline;
+
+    /**
+     * Создаёт фасад с параметрами из config.properties
+     * (по умолчанию — поток вычислений на ядро, два потока ввода-вывода, очередь на 64 задачи).
+     */
+    public ImageApiAsync(ImageAPI api) {
+        this(api,
+                Config.getIntProp(Constants.ASYNC_COMPUTE_THREADS, Runtime.getRuntime().availableProcessors()),
+                Config.getIntProp(Constants.ASYNC_IO_THREADS, 2),
+                Config.getIntProp(Constants.ASYNC_MAX_QUEUED, 64));
+    }
+
+    /**
+     * @param api            синхронный API
+     * @param computeThreads число потоков вычислений
+     * @param ioThreads      число потоков чтения и записи файлов
+     * @param maxQueued      максимальная глубина очереди каждого пула, после которой вызовы отклоняются
+     */
+    public ImageApiAsync(ImageAPI api, int computeThreads, int ioThreads, int maxQueued) {
+        if (computeThreads < 1 || ioThreads < 1 || maxQueued < 1) {
+            throw new IllegalArgumentException("Число потоков и глубина очереди должны быть положительными");
+        }
+        this.api = api;
+        this.compute = newPool("image-compute", computeThreads, maxQueued);
+        this.io = newPool("image-io", ioThreads, maxQueued);
+        this.rejected = new LongAdder();
+        this.expired = new LongAdder();
+        this.deadline = null;
+    }
+
+    private ImageApiAsync(ImageApiAsync parent, Duration deadline) {
+        this.api = parent.api;
+        this.compute = parent.compute;
+        this.io = parent.io;
+        this.rejected = parent.rejected;
+        this.expired = parent.expired;
+        this.deadline = deadline;
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads, int maxQueued) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Представление того же фасада (общие пулы), в котором каждый вызов должен
+     * завершиться за {@code timeout}, иначе будущее завершается с {@link TimeoutException}.
+     */
+    public ImageApiAsync withDeadline(Duration timeout) {
+        return new ImageApiAsync(this, timeout);
+    }
+
+    /**
+     * @return число вызовов, отклонённых из-за переполненной очереди
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return число вызовов, не уложившихся в срок
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public int getComputeQueueDepth() {
+        return compute.getQueue().size();
+    }
+
+    public int getIoQueueDepth() {
+        return io.getQueue().size();
+    }
+
+    /**
+     * Ставит задачу в пул.
+     *
+     * @param discard освобождение результата, готового уже после отмены (null — ничего не делать)
+     */
+    private <T> CompletableFuture<T> submit(ThreadPoolExecutor executor, Callable<T> call, Consumer<T> discard) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            // Будущее уже отменено или просрочено, пока задача ждала в очереди
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                T result = call.call();
+                if (!future.complete(result) && discard != null) {
+                    discard.accept(result);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        if (deadline != null) {
+            future.orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            if (error != null && !(error instanceof RejectedExecutionException)) {
+                if (error instanceof TimeoutException) {
+                    expired.increment();
+                }
+                // Освобождаем место в очереди; если задача уже выполняется, remove ничего не сделает
+                executor.remove(task);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<Mat> compute(Callable<Mat> call) {
+        return submit(compute, call, Mat::release);
+    }
+
+    /**
+     * Результат — не новый Mat (число, изображение вызывающего, изменённое на месте, и т.п.),
+     * при отмене освобождать нечего.
+     */
+    private <T> CompletableFuture<T> computeUnowned(Callable<T> call) {
+        return submit(compute, call, null);
+    }
+
+    private CompletableFuture<Void> computeVoid(Runnable call) {
+        return submit(compute, () -> {
+            call.run();
+            return null;
+        }, null);
+    }
+
+    // --- ввод-вывод
+
+    public CompletableFuture<Mat> loadImage(String path) {
+        return submit(io, () -> api.loadImage(path), Mat::release);
+    }
+
+    public CompletableFuture<Mat> loadImage(String path, int width, int height, boolean grayscale) {
+        return submit(io, () -> api.loadImage(path, width, height, grayscale), Mat::release);
+    }
+
+    public CompletableFuture<Mat> loadImage(String path, double scale, boolean grayscale) {
+        return submit(io, () -> api.loadImage(path, scale, grayscale), Mat::release);
+    }
+
+    public CompletableFuture<Void> saveImage(String path, Mat img) {
+        return submit(io, () -> {
+            api.saveImage(path, img);
+            return null;
+        }, null);
+    }
+
+    public CompletableFuture<Void> saveImage(String path, Mat img, EncoderParams params) {
+        return submit(io, () -> {
+            api.saveImage(path, img, params);
+            return null;
+        }, null);
+    }
+
+    public CompletableFuture<MatOfByte> encodeImage(Mat img, EncoderParams params) {
+        return submit(compute, () -> api.encodeImage(img, params), MatOfByte::release);
+    }
+
+    public CompletableFuture<Void> applyTiled(String path, TileOperation operation, TileSink sink,
+                                              int tileWidth, int tileHeight) {
+        return submit(io, () -> {
+            api.applyTiled(path, operation, sink, tileWidth, tileHeight);
+            return null;
+        }, null);
+    }
+
+    // --- каналы
+
+    public CompletableFuture<Mat> zeroChannel(Mat img, int channel) {
+        return compute(() -> api.zeroChannel(img, channel));
+    }
+
+    public CompletableFuture<Void> zeroChannel(Mat img, int channel, Mat dst) {
+        return computeVoid(() -> api.zeroChannel(img, channel, dst));
+    }
+
+    public CompletableFuture<Void> setChannel(Mat img, int channel, double value) {
+        return computeVoid(() -> api.setChannel(img, channel, value));
+    }
+
+    public CompletableFuture<Void> swapChannels(Mat img, int channelA, int channelB) {
+        return computeVoid(() -> api.swapChannels(img, channelA, channelB));
+    }
+
+    public CompletableFuture<Void> extractChannel(Mat img, int channel, Mat dst) {
+        return computeVoid(() -> api.extractChannel(img, channel, dst));
+    }
+
+    public CompletableFuture<Void> mergeChannel(Mat plane, Mat dst, int channel) {
+        return computeVoid(() -> api.mergeChannel(plane, dst, channel));
+    }
+
+    /**
+     * В отличие от {@link ImageAPI#toBufferedImage}, возвращает новый BufferedImage:
+     * кэш конвертера привязан к потоку пула и перезаписывается следующей задачей.
+     */
+    public CompletableFuture<BufferedImage> toBufferedImage(Mat img) {
+        return computeUnowned(() -> {
+            MatImageConverter converter = new MatImageConverter();
+            try {
+                return converter.toBufferedImage(img);
+            } finally {
+                converter.release();
+            }
+        });
+    }
+
+    public CompletableFuture<Mat> fromBufferedImage(BufferedImage image) {
+        return compute(() -> api.fromBufferedImage(image));
+    }
+
+    // --- фильтры и геометрия
+
+    public CompletableFuture<Mat> applySobel(Mat img, int dx, int dy, int ksize,
+                                             double scale, double delta, int borderType) {
+        return compute(() -> api.applySobel(img, dx, dy, ksize, scale, delta, borderType));
+    }
+
+    public CompletableFuture<Mat> applyLaplace(Mat img, int ksize, double scale, double delta, int borderType) {
+        return compute(() -> api.applyLaplace(img, ksize, scale, delta, borderType));
+    }
+
+    public CompletableFuture<Mat> applySobel(Mat img, Rect roi, int dx, int dy, int ksize,
+                                             double scale, double delta, int borderType) {
+        return compute(() -> api.applySobel(img, roi, dx, dy, ksize, scale, delta, borderType));
+    }
+
+    public CompletableFuture<Mat> applyLaplace(Mat img, Rect roi, int ksize, double scale, double delta,
+                                               int borderType) {
+        return compute(() -> api.applyLaplace(img, roi, ksize, scale, delta, borderType));
+    }
+
+    public CompletableFuture<Mat> applyInRoi(Mat img, Rect roi, TileOperation operation) {
+        return compute(() -> api.applyInRoi(img, roi, operation));
+    }
+
+    public CompletableFuture<List<Mat>> applyInRoi(Mat img, List<Rect> rois, TileOperation operation) {
+        return submit(compute, () -> api.applyInRoi(img, rois, operation), results -> results.forEach(Mat::release));
+    }
+
+    public CompletableFuture<Void> applyInRoi(Mat img, List<Rect> rois, TileOperation operation, Mat dst) {
+        return computeVoid(() -> api.applyInRoi(img, rois, operation, dst));
+    }
+
+    public CompletableFuture<Mat> flip(Mat img, boolean horizontal) {
+        return compute(() -> api.flip(img, horizontal));
+    }
+
+    public CompletableFuture<Mat> repeat(Mat img, int ny, int nx) {
+        return compute(() -> api.repeat(img, ny, nx));
+    }
+
+    public CompletableFuture<Mat> concatImages(List<Mat> images, boolean horizontal) {
+        return compute(() -> api.concatImages(images, horizontal));
+    }
+
+    public CompletableFuture<Mat> resize(Mat img, int width, int height) {
+        return compute(() -> api.resize(img, width, height));
+    }
+
+    public CompletableFuture<Mat> rotate(Mat img, double angle, boolean keepContent) {
+        return compute(() -> api.rotate(img, angle, keepContent));
+    }
+
+    public CompletableFuture<Mat> shift(Mat img, int shiftX, int shiftY) {
+        return compute(() -> api.shift(img, shiftX, shiftY));
+    }
+
+    public CompletableFuture<Mat> perspectiveTransform(Mat img, double angle, String direction, double intensity) {
+        return compute(() -> api.perspectiveTransform(img, angle, direction, intensity));
+    }
+
+    // --- сегментация и поиск
+
+    public CompletableFuture<Mat> floodFillWithParams(Mat image, Point seedPoint, Scalar fillColor,
+                                                      Scalar loDiff, Scalar upDiff) {
+        return computeUnowned(() -> api.floodFillWithParams(image, seedPoint, fillColor, loDiff, upDiff));
+    }
+
+    public CompletableFuture<Mat> applyPyramidDown(Mat image, int times) {
+        return computeUnowned(() -> api.applyPyramidDown(image, times));
+    }
+
+    public CompletableFuture<Mat> applyPyramidUp(Mat image, int times) {
+        return computeUnowned(() -> api.applyPyramidUp(image, times));
+    }
+
+    public CompletableFuture<Mat> getImageDifference(Mat original, Mat processed) {
+        return compute(() -> api.getImageDifference(original, processed));
+    }
+
+    public CompletableFuture<Integer> getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return computeUnowned(() -> api.getCountObj(image, targetWidth, targetHeight, tolerance));
+    }
+
+    public CompletableFuture<Integer> getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance,
+                                                  CountMethod method) {
+        return computeUnowned(() -> api.getCountObj(image, targetWidth, targetHeight, tolerance, method));
+    }
+
+    /**
+     * Контекст не потокобезопасен: пока будущее не завершилось, вызывающий не должен им пользоваться.
+     */
+    public CompletableFuture<Integer> getCountObj(AnalysisContext frame, int targetWidth, int targetHeight,
+                                                  double tolerance) {
+        return computeUnowned(() -> api.getCountObj(frame, targetWidth, targetHeight, tolerance));
+    }
+
+    public CompletableFuture<Mat> getImageEdges(Mat src, int blurKernelSize, double lowThreshold,
+                                                double highThreshold, boolean useOtsu) {
+        return compute(() -> api.getImageEdges(src, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public CompletableFuture<Mat> getImageEdges(Mat src, Rect roi, int blurKernelSize, double lowThreshold,
+                                                double highThreshold, boolean useOtsu) {
+        return compute(() -> api.getImageEdges(src, roi, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public CompletableFuture<Mat> getImageEdges(AnalysisContext frame, int blurKernelSize, double lowThreshold,
+                                                double highThreshold, boolean useOtsu) {
+        return compute(() -> api.getImageEdges(frame, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public CompletableFuture<Integer> getCountObjCanny(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return computeUnowned(() -> api.getCountObjCanny(image, targetWidth, targetHeight, tolerance));
+    }
+
+    public CompletableFuture<Integer> getCountObjCanny(AnalysisContext frame, int targetWidth, int targetHeight,
+                                                       double tolerance) {
+        return computeUnowned(() -> api.getCountObjCanny(frame, targetWidth, targetHeight, tolerance));
+    }
+
+    public CompletableFuture<int[]> getCountObj(Mat image, SizeClasses classes) {
+        return computeUnowned(() -> api.getCountObj(image, classes));
+    }
+
+    public CompletableFuture<int[]> getCountObjCanny(Mat image, SizeClasses classes) {
+        return computeUnowned(() -> api.getCountObjCanny(image, classes));
+    }
+
+    public CompletableFuture<double[]> getRectangles(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return computeUnowned(() -> api.getRectangles(image, targetWidth, targetHeight, tolerance));
+    }
+
+    /**
+     * Останавливает пулы; задачи, уже поставленные в очередь, дорабатывают.
+     * Представления {@link #withDeadline} используют те же пулы.
+     */
+    @Override
+    public void close() {
+        compute.shutdown();
+        io.shutdown();
+        log.info("Async API closed, rejected " + rejected.sum() + ", expired " + expired.sum());
+    }
+}
@@ -0,0 +1,498 @@
+package org.example;
+
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Ленивая цепочка операций над изображением.
+ *
+ * <p>Методы-построители только записывают шаги. При вызове {@link #execute} цепочка
+ * планируется: подряд идущие геометрические шаги (resize, rotate, shift, flip, perspective)
+ * сворачиваются в одну матрицу 3x3 и выполняются одним {@code warpAffine}/{@code warpPerspective}.
+ * Промежуточные результаты попеременно пишутся в два переиспользуемых буфера,
+ * а последний шаг — сразу в матрицу-приёмник.
+ *
+ * <p>Экземпляр хранит буферы и не потокобезопасен; для параллельной работы
+ * каждому потоку нужна своя копия ({@link #copy()}).
+ *
+ * <pre>
+ * Mat out = api.pipeline().resize(640, 480).rotate(15, false).sobel(1, 0, 3).execute(src);
+ * </pre>
+ *
+ * <p>{@link #load} сам выбирает самый дешёвый режим декодирования по шагам цепочки
+ * (см. {@link #decodeFlags}).
+ */
+public class ImagePipeline {
+    // Шаги, которые сами переводят вход в оттенки серого: перед ними цвет не нужен
+    private static final Set<String> GRAYSCALE_INPUT = Set.of("sobel", "laplace", "edges");
+
+    /**
+     * Шаг цепочки.
+     */
+    public interface Step {
+        String name();
+    }
+
+    /**
+     * Геометрический шаг, выражаемый матрицей 3x3.
+     */
+    public interface GeometricStep extends Step {
+        /**
+         * @return матрица 3x3 (по строкам), переводящая координаты входа в координаты выхода
+         */
+        double[] matrix(int width, int height);
+
+        /**
+         * @return размер выходного изображения {ширина, высота}
+         */
+        int[] outputSize(int width, int height);
+    }
+
+    /**
+     * Шаг, читающий вход и пишущий результат в выходной буфер.
+     */
+    public interface FilterStep extends Step {
+        void apply(Mat in, Mat out, Mat scratch);
+    }
+
+    private final ImageProcessor processor;
+    private final List<Step> steps;
+
+    // Буферы переиспользуются между шагами и между вызовами execute
+    private final Mat bufferA = new Mat();
+    private final Mat bufferB = new Mat();
+    private final Mat scratch = new Mat();
+    private final Mat warpMatrix = new Mat();
+
+    public ImagePipeline(ImageProcessor processor) {
+        this(processor, new ArrayList<>());
+    }
+
+    private ImagePipeline(ImageProcessor processor, List<Step> steps) {
+        this.processor = processor;
+        this.steps = steps;
+    }
+
+    /**
+     * @return независимая копия цепочки с теми же шагами и собственными буферами
+     */
+    public ImagePipeline copy() {
+        return new ImagePipeline(processor, new ArrayList<>(steps));
+    }
+
+    public List<Step> steps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public ImagePipeline resize(int width, int height) {
+        steps.add(new GeometricStep() {
+            public String name() {
+                return "resize";
+            }
+
+            public double[] matrix(int w, int h) {
+                // Та же привязка к центрам пикселей, что и в Imgproc.resize
+                double sx = (double) width / w;
+                double sy = (double) height / h;
+                return new double[]{sx, 0, 0.5 * (sx - 1), 0, sy, 0.5 * (sy - 1), 0, 0, 1};
+            }
+
+            public int[] outputSize(int w, int h) {
+                return new int[]{width, height};
+            }
+        });
+        return this;
+    }
+
+    public ImagePipeline rotate(double angle, boolean keepContent) {
+        steps.add(new GeometricStep() {
+            public String name() {
+                return "rotate";
+            }
+
+            public double[] matrix(int w, int h) {
+                // Аналог Imgproc.getRotationMatrix2D с масштабом 1.0
+                double rad = Math.toRadians(angle);
+                double a = Math.cos(rad);
+                double b = Math.sin(rad);
+                double cx = w / 2.0;
+                double cy = h / 2.0;
+                double tx = (1 - a) * cx - b * cy;
+                double ty = b * cx + (1 - a) * cy;
+                if (keepContent) {
+                    int[] size = outputSize(w, h);
+                    tx += (size[0] - w) / 2.0;
+                    ty += (size[1] - h) / 2.0;
+                }
+                return new double[]{a, b, tx, -b, a, ty, 0, 0, 1};
+            }
+
+            public int[] outputSize(int w, int h) {
+                if (!keepContent) {
+                    return new int[]{w, h};
+                }
+                Size size = ImageProcessor.getRotatedSize(w, h, angle);
+                return new int[]{(int) size.width, (int) size.height};
+            }
+        });
+        return this;
+    }
+
+    public ImagePipeline shift(int shiftX, int shiftY) {
+        steps.add(new GeometricStep() {
+            public String name() {
+                return "shift";
+            }
+
+            public double[] matrix(int w, int h) {
+                return new double[]{1, 0, shiftX, 0, 1, shiftY, 0, 0, 1};
+            }
+
+            public int[] outputSize(int w, int h) {
+                return new int[]{w, h};
+            }
+        });
+        return this;
+    }
+
+    public ImagePipeline flip(boolean horizontal) {
+        steps.add(new GeometricStep() {
+            public String name() {
+                return "flip";
+            }
+
+            public double[] matrix(int w, int h) {
+                return horizontal
+                        ? new double[]{-1, 0, w - 1, 0, 1, 0, 0, 0, 1}
+                        : new double[]{1, 0, 0, 0, -1, h - 1, 0, 0, 1};
+            }
+
+            public int[] outputSize(int w, int h) {
+                return new int[]{w, h};
+            }
+        });
+        return this;
+    }
+
+    public ImagePipeline perspective(double angle, String direction, double intensity) {
+        steps.add(new GeometricStep() {
+            public String name() {
+                return "perspective";
+            }
+
+            public double[] matrix(int w, int h) {
+                return ImageProcessor.deviationPerspectiveMatrix(w, h, angle, direction, intensity);
+            }
+
+            public int[] outputSize(int w, int h) {
+                return new int[]{w, h};
+            }
+        });
+        return this;
+    }
+
+    public ImagePipeline sobel(int dx, int dy, int ksize) {
+        return sobel(dx, dy, ksize, 1, 0, Core.BORDER_DEFAULT);
+    }
+
+    public ImagePipeline sobel(int dx, int dy, int ksize, double scale, double delta, int borderType) {
+        return filter("sobel", (in, out, tmp) -> {
+            Mat gray = toGray(in, out);
+            Imgproc.Sobel(gray, tmp, CvType.CV_32F, dx, dy, ksize, scale, delta, borderType);
+            Core.convertScaleAbs(tmp, out);
+        });
+    }
+
+    public ImagePipeline laplace(int ksize, double scale, double delta, int borderType) {
+        return filter("laplace", (in, out, tmp) -> {
+            Mat gray = toGray(in, out);
+            Imgproc.Laplacian(gray, tmp, CvType.CV_32F, ksize, scale, delta, borderType);
+            Core.convertScaleAbs(tmp, out);
+        });
+    }
+
+    /**
+     * Границы Canny, как в {@link SearchObj#detectEdges}.
+     */
+    public ImagePipeline edges(int blurKernelSize, double lowThreshold, double highThreshold, boolean useOtsu) {
+        return filter("edges", (in, out, tmp) -> {
+            Mat edges = SearchObj.detectEdges(in, blurKernelSize, lowThreshold, highThreshold, useOtsu);
+            edges.copyTo(out);
+            edges.release();
+        });
+    }
+
+    public ImagePipeline zeroChannel(int channel) {
+        return filter("zeroChannel", (in, out, tmp) -> processor.zeroChannel(in, channel, out));
+    }
+
+    /**
+     * Добавляет произвольный шаг: операция должна прочитать первый аргумент
+     * и записать результат во второй.
+     */
+    public ImagePipeline custom(String name, BiConsumer<Mat, Mat> op) {
+        return filter(name, (in, out, tmp) -> op.accept(in, out));
+    }
+
+    private ImagePipeline filter(String name, FilterOp op) {
+        steps.add(new FilterStep() {
+            public String name() {
+                return name;
+            }
+
+            public void apply(Mat in, Mat out, Mat tmp) {
+                op.apply(in, out, tmp);
+            }
+        });
+        return this;
+    }
+
+    private interface FilterOp {
+        void apply(Mat in, Mat out, Mat scratch);
+    }
+
+    /**
+     * Переводит вход в оттенки серого, используя out как буфер.
+     * Одноканальный вход возвращается как есть, без копирования.
+     */
+    private static Mat toGray(Mat in, Mat out) {
+        if (in.channels() == 1) {
+            return in;
+        }
+        Imgproc.cvtColor(in, out, Imgproc.COLOR_BGR2GRAY);
+        return out;
+    }
+
+    /**
+     * Выбирает самый дешёвый режим декодирования для изображения заданного размера:
+     * <ul>
+     *     <li>если цепочка начинается с resize, JPEG декодируется с уменьшением в 2, 4 или 8 раз,
+     *     но не меньше размера resize;</li>
+     *     <li>если до первого негеометрического шага идут только геометрические, а сам он
+     *     (sobel, laplace, edges) всё равно переводит вход в серое, — сразу в оттенки серого.</li>
+     * </ul>
+     * Результат близок к обработке полного цветного изображения, но может отличаться округлением.
+     *
+     * @return флаги {@link org.opencv.imgcodecs.Imgcodecs#imread(String, int)}
+     */
+    public int decodeFlags(int width, int height) {
+        int reduction = 1;
+        int[] target = resizeTarget(width, height);
+        if (target != null) {
+            reduction = ImageProcessor.reducedDecodeFactor(width, height, target[0], target[1]);
+        }
+        return ImageProcessor.decodeFlags(reduction, grayscaleInput());
+    }
+
+    /**
+     * Загружает изображение в режиме {@link #decodeFlags} и выполняет цепочку.
+     */
+    public Mat load(String path) {
+        int[] size = ImageProcessor.readImageSize(path);
+        int[] target = size == null ? null : resizeTarget(size[0], size[1]);
+        Mat src = target == null
+                ? processor.loadImage(path, ImageProcessor.decodeFlags(1, grayscaleInput()))
+                : processor.decodeReduced(path, size, target[0], target[1], grayscaleInput());
+        try {
+            return execute(src);
+        } finally {
+            src.release();
+        }
+    }
+
+    /**
+     * @return размер первого шага, если цепочка начинается с resize, иначе null
+     */
+    private int[] resizeTarget(int width, int height) {
+        if (!steps.isEmpty() && "resize".equals(steps.get(0).name())) {
+            return ((GeometricStep) steps.get(0)).outputSize(width, height);
+        }
+        return null;
+    }
+
+    /**
+     * @return true, если первый негеометрический шаг сам переводит вход в серое
+     */
+    private boolean grayscaleInput() {
+        for (Step step : steps) {
+            if (!(step instanceof GeometricStep)) {
+                return GRAYSCALE_INPUT.contains(step.name());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Выполняет цепочку и возвращает новый результат.
+     */
+    public Mat execute(Mat src) {
+        Mat dst = new Mat();
+        execute(src, dst);
+        return dst;
+    }
+
+    /**
+     * Выполняет цепочку, записывая результат в dst (переиспользуется, если подходит по размеру и типу).
+     */
+    public void execute(Mat src, Mat dst) {
+        List<Stage> stages = plan();
+        if (stages.isEmpty()) {
+            if (dst != src) {
+                src.copyTo(dst);
+            }
+            return;
+        }
+
+        Mat in = src;
+        for (int i = 0; i < stages.size(); i++) {
+            boolean last = i == stages.size() - 1;
+            // Последний шаг пишет прямо в приёмник, если он не совпадает с входом
+            Mat out = last && dst != in ? dst : (i % 2 == 0 ? bufferA : bufferB);
+            stages.get(i).run(in, out);
+            in = out;
+        }
+        if (in != dst) {
+            in.copyTo(dst);
+        }
+    }
+
+    /**
+     * @return описание плана выполнения: по одной строке на этап
+     */
+    public List<String> describePlan() {
+        List<String> result = new ArrayList<>();
+        for (Stage stage : plan()) {
+            result.add(stage.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Освобождает буферы цепочки.
+     */
+    public void release() {
+        bufferA.release();
+        bufferB.release();
+        scratch.release();
+        warpMatrix.release();
+    }
+
+    private List<Stage> plan() {
+        List<Stage> stages = new ArrayList<>();
+        List<GeometricStep> group = new ArrayList<>();
+        for (Step step : steps) {
+            if (step instanceof GeometricStep) {
+                group.add((GeometricStep) step);
+                continue;
+            }
+            if (!group.isEmpty()) {
+                stages.add(new WarpStage(group));
+                group = new ArrayList<>();
+            }
+            stages.add(new FilterStage((FilterStep) step));
+        }
+        if (!group.isEmpty()) {
+            stages.add(new WarpStage(group));
+        }
+        return stages;
+    }
+
+    private interface Stage {
+        void run(Mat in, Mat out);
+    }
+
+    private class FilterStage implements Stage {
+        private final FilterStep step;
+
+        FilterStage(FilterStep step) {
+            this.step = step;
+        }
+
+        public void run(Mat in, Mat out) {
+            step.apply(in, out, scratch);
+        }
+
+        public String toString() {
+            return step.name();
+        }
+    }
+
+    /**
+     * Группа геометрических шагов, свёрнутая в одно преобразование.
+     */
+    private class WarpStage implements Stage {
+        private final List<GeometricStep> group;
+
+        WarpStage(List<GeometricStep> group) {
+            this.group = group;
+        }
+
+        public void run(Mat in, Mat out) {
+            int w = in.cols();
+            int h = in.rows();
+
+            // Одиночные resize и flip выполняем штатными функциями — они точнее и быстрее warp
+            if (group.size() == 1 && "resize".equals(group.get(0).name())) {
+                int[] size = group.get(0).outputSize(w, h);
+                Imgproc.resize(in, out, new Size(size[0], size[1]));
+                return;
+            }
+            if (group.size() == 1 && "flip".equals(group.get(0).name())) {
+                // Направление отражения видно по матрице: -1 по x — горизонтальное
+                Core.flip(in, out, group.get(0).matrix(w, h)[0] < 0 ? 1 : 0);
+                return;
+            }
+
+            double[] total = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+            for (GeometricStep step : group) {
+                total = multiply(step.matrix(w, h), total);
+                int[] size = step.outputSize(w, h);
+                w = size[0];
+                h = size[1];
+            }
+            Size outSize = new Size(w, h);
+
+            if (total[6] == 0 && total[7] == 0 && total[8] == 1) {
+                warpMatrix.create(2, 3, CvType.CV_64F);
+                warpMatrix.put(0, 0, total[0], total[1], total[2], total[3], total[4], total[5]);
+                Imgproc.warpAffine(in, out, warpMatrix, outSize, Imgproc.INTER_LINEAR,
+                        Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
+            } else {
+                warpMatrix.create(3, 3, CvType.CV_64F);
+                warpMatrix.put(0, 0, total);
+                Imgproc.warpPerspective(in, out, warpMatrix, outSize, Imgproc.INTER_LINEAR,
+                        Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
+            }
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder("warp[");
+            for (int i = 0; i < group.size(); i++) {
+                if (i > 0) {
+                    sb.append('+');
+                }
+                sb.append(group.get(i).name());
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    /**
+     * Произведение матриц 3x3: a * b (сначала применяется b, затем a).
+     */
+    static double[] multiply(double[] a, double[] b) {
+        double[] c = new double[9];
+        for (int r = 0; r < 3; r++) {
+            for (int col = 0; col < 3; col++) {
+                c[r * 3 + col] = a[r * 3] * b[col] + a[r * 3 + 1] * b[3 + col] + a[r * 3 + 2] * b[6 + col];
+            }
+        }
+        return c;
+    }
+}
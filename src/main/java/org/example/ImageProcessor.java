@@ -1,17 +1,40 @@
 package org.example;
 
+import org.example.cache.ImageCache;
+import org.example.cache.MappedImageCache;
+import org.example.encode.EncoderParams;
+import org.example.encode.ImageEncoder;
+import org.example.memory.MatLease;
+import org.example.memory.MatPool;
+import org.example.memory.NativeScope;
+import org.example.preview.PreviewSink;
 import org.opencv.core.*;
 import org.opencv.core.Point;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
-import javax.swing.*;
-import java.awt.*;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 
 public class ImageProcessor {
+    // Обработчики каналов с кэшем плоскостей выдаются на время вызова из ограниченного набора:
+    // нативная память плоскостей не растёт с числом потоков, а очередь на массиве не выделяет память
+    private final ArrayBlockingQueue<ChannelProcessor> channelCache =
+            new ArrayBlockingQueue<>(Math.max(1, Config.getIntProp(Constants.CHANNEL_CACHE_SIZE,
+                    Runtime.getRuntime().availableProcessors())));
+    // Конвертер в BufferedImage с кэшем растра — свой у каждого потока
+    private final ThreadLocal<MatImageConverter> converters = ThreadLocal.withInitial(MatImageConverter::new);
+    // Приёмник предпросмотра по умолчанию общий на процесс, чтобы окно было одно.
+    // Выбирается при первом показе: процессор создаётся до загрузки нативной библиотеки OpenCV
+    private static volatile PreviewSink defaultPreview;
+    private volatile PreviewSink preview;
 
     /**
      * Загружает изображение из указанного пути в объект Mat.
@@ -20,7 +43,28 @@ public class ImageProcessor {
      * @return Объект Mat с изображением
      */
     public Mat loadImage(String path) {
-        Mat image = Imgcodecs.imread(path);
+        return loadImage(path, Imgcodecs.IMREAD_COLOR);
+    }
+
+    /**
+     * Загружает изображение с заданным режимом декодирования.
+     *
+     * @param path  Полный путь до изображения
+     * @param flags Флаги {@link Imgcodecs#imread(String, int)}
+     * @return Объект Mat с изображением
+     */
+    public Mat loadImage(String path, int flags) {
+        // Кэш в памяти (если включён) сам обращается к дисковому кэшу при промахе
+        ImageCache memory = ImageCache.shared();
+        if (memory != null) {
+            return memory.load(path, flags);
+        }
+        // Если задан каталог дискового кэша, повторная загрузка не декодирует файл заново
+        MappedImageCache cache = MappedImageCache.shared();
+        if (cache != null) {
+            return cache.load(path, flags);
+        }
+        Mat image = Imgcodecs.imread(path, flags);
         if (image.empty()) {
             throw new IllegalArgumentException("Не удалось загрузить изображение по пути: " + path);
         }
@@ -28,100 +72,349 @@ public class ImageProcessor {
     }
 
     /**
-     * Обнуляет указанный канал (0 — синий, 1 — зеленый, 2 — красный) в изображении.
+     * Загружает изображение сразу в заданном размере. JPEG декодируется с уменьшением в 2, 4 или 8 раз
+     * ({@code IMREAD_REDUCED_*}), насколько позволяет целевой размер, — декодер пропускает
+     * большую часть работы; остаток уменьшается с интерполяцией INTER_AREA. Результат близок
+     * к загрузке с последующим resize, но не совпадает с ним побитово.
      *
-     * @param srcMat  Матрица исходного изображения (Mat)
-     * @param channel Номер канала (0, 1 или 2)
-     * @return Новая Mat-матрица с обнуленным каналом
+     * @param path      Полный путь до изображения
+     * @param width     Ширина результата
+     * @param height    Высота результата
+     * @param grayscale Декодировать сразу в оттенки серого
+     * @return Объект Mat размера width x height
      */
-    public Mat zeroChannel(Mat srcMat, int channel) {
-        // Проверка на корректность номера канала
-        if (channel < 0 || channel > 2) {
-            throw new IllegalArgumentException("Канал должен быть в диапазоне 0–2");
+    public Mat loadImage(String path, int width, int height, boolean grayscale) {
+        int[] size = readImageSize(path);
+        return resizeTo(decodeReduced(path, size, width, height, grayscale), width, height);
+    }
+
+    /**
+     * Загружает изображение, уменьшенное в заданное число раз (см. {@link #loadImage(String, int, int, boolean)}).
+     *
+     * @param path      Полный путь до изображения
+     * @param scale     Масштаб (0 &lt; scale &lt;= 1)
+     * @param grayscale Декодировать сразу в оттенки серого
+     * @return Объект Mat размера round(ширина * scale) x round(высота * scale)
+     */
+    public Mat loadImage(String path, double scale, boolean grayscale) {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("Масштаб должен быть в диапазоне (0, 1]");
+        }
+        int[] size = readImageSize(path);
+        if (size == null) {
+            // Размер из заголовка не прочитан (формат, неизвестный ImageIO) — декодируем целиком
+            Mat image = loadImage(path, decodeFlags(1, grayscale));
+            return resizeTo(image, (int) Math.round(image.cols() * scale), (int) Math.round(image.rows() * scale));
         }
+        int width = Math.max(1, (int) Math.round(size[0] * scale));
+        int height = Math.max(1, (int) Math.round(size[1] * scale));
+        Mat image = decodeReduced(path, size, width, height, grayscale);
+        // imread поворачивает JPEG по EXIF, а ImageIO отдаёт размер без поворота
+        boolean rotated = size[0] != size[1] && (image.cols() > image.rows()) != (size[0] > size[1]);
+        return rotated ? resizeTo(image, height, width) : resizeTo(image, width, height);
+    }
 
-        // Клонируем исходное изображение, чтобы не изменять оригинал
-        Mat result = srcMat.clone();
+    /**
+     * Декодирует с наибольшим уменьшением, после которого изображение не меньше width x height.
+     *
+     * @param size размер из заголовка или null
+     */
+    Mat decodeReduced(String path, int[] size, int width, int height, boolean grayscale) {
+        int reduction = size == null ? 1 : reducedDecodeFactor(size[0], size[1], width, height);
+        Mat image = loadImage(path, decodeFlags(reduction, grayscale));
+        // imread поворачивает JPEG по EXIF, а ImageIO отдаёт размер без поворота: если после поворота
+        // изображение оказалось меньше нужного, декодируем заново с меньшим уменьшением
+        while (reduction > 1 && (image.cols() < width || image.rows() < height)) {
+            image.release();
+            reduction /= 2;
+            image = loadImage(path, decodeFlags(reduction, grayscale));
+        }
+        return image;
+    }
 
-        // Вычисляем общее количество байт: общее число пикселей * размер каждого элемента
-        int totalBytes = (int) (result.total() * result.elemSize());
-        byte[] buffer = new byte[totalBytes]; // Буфер для хранения всех пикселей
+    private static Mat resizeTo(Mat image, int width, int height) {
+        if (image.cols() == width && image.rows() == height) {
+            return image;
+        }
+        Mat resized = new Mat();
+        Imgproc.resize(image, resized, new Size(width, height), 0, 0, Imgproc.INTER_AREA);
+        image.release();
+        return resized;
+    }
 
-        // Загружаем данные изображения в буфер
-        result.get(0, 0, buffer);
+    /**
+     * Читает размер изображения из заголовка файла, не декодируя пиксели.
+     *
+     * @return {ширина, высота} или null, если формат не поддерживается ImageIO
+     */
+    static int[] readImageSize(String path) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
 
-        // Проходим по всем пикселям и обнуляем выбранный канал
-        // Поскольку каждый пиксель представлен 3 байтами (B, G, R),
-        // индексы каналов будут чередоваться: 0, 1, 2, 0, 1, 2 и т.д.
-        for (int i = 0; i < totalBytes; i++) {
-            if (i % 3 == channel) {
-                buffer[i] = 0; // Обнуляем нужный канал
+    /**
+     * Наибольшее уменьшение при декодировании (1, 2, 4 или 8), после которого изображение
+     * ещё не меньше целевого размера.
+     */
+    static int reducedDecodeFactor(int width, int height, int targetWidth, int targetHeight) {
+        for (int reduction = 8; reduction > 1; reduction /= 2) {
+            if (width / reduction >= targetWidth && height / reduction >= targetHeight) {
+                return reduction;
             }
         }
+        return 1;
+    }
 
-        // Записываем изменённые данные обратно в матрицу изображения
-        result.put(0, 0, buffer);
+    /**
+     * Флаги imread для уменьшения при декодировании и перевода в оттенки серого.
+     */
+    static int decodeFlags(int reduction, boolean grayscale) {
+        switch (reduction) {
+            case 2:
+                return grayscale ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_2 : Imgcodecs.IMREAD_REDUCED_COLOR_2;
+            case 4:
+                return grayscale ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_4 : Imgcodecs.IMREAD_REDUCED_COLOR_4;
+            case 8:
+                return grayscale ? Imgcodecs.IMREAD_REDUCED_GRAYSCALE_8 : Imgcodecs.IMREAD_REDUCED_COLOR_8;
+            default:
+                return grayscale ? Imgcodecs.IMREAD_GRAYSCALE : Imgcodecs.IMREAD_COLOR;
+        }
+    }
 
-        // Возвращаем изменённую копию изображения
+    /**
+     * Обнуляет указанный канал (для BGR: 0 — синий, 1 — зеленый, 2 — красный) в изображении.
+     *
+     * @param srcMat  Матрица исходного изображения (Mat)
+     * @param channel Номер канала
+     * @return Новая Mat-матрица с обнуленным каналом
+     */
+    public Mat zeroChannel(Mat srcMat, int channel) {
+        Mat result = new Mat();
+        zeroChannel(srcMat, channel, result);
         return result;
     }
 
     /**
-     * Показывает изображение в отдельном окне, не закрывая его автоматически.
+     * Обнуляет указанный канал, записывая результат в переданную матрицу.
+     * Если dst совпадает с srcMat, канал обнуляется на месте.
      *
-     * @param mat Изображение в формате Mat
+     * @param srcMat  Матрица исходного изображения (любое число каналов и глубина)
+     * @param channel Номер канала
+     * @param dst     Матрица-приёмник (переиспользуется, если подходит по размеру и типу)
      */
-    public void showImage(Mat mat) {
-        // Определяем тип изображения: цветное (3 канала) или оттенки серого (1 канал)
-        int type = mat.channels() > 1
-                ? BufferedImage.TYPE_3BYTE_BGR   // Цветное изображение (формат BGR для OpenCV)
-                : BufferedImage.TYPE_BYTE_GRAY;  // Градации серого
+    public void zeroChannel(Mat srcMat, int channel, Mat dst) {
+        ChannelProcessor.checkChannel(srcMat, channel);
+        if (dst != srcMat) {
+            srcMat.copyTo(dst);
+        }
+        ChannelProcessor channels = borrowChannels();
+        try {
+            channels.zeroChannel(dst, channel);
+        } finally {
+            returnChannels(channels);
+        }
+    }
 
-        // Расчёт общего количества байт: количество каналов * ширина * высота
-        int bufferSize = mat.channels() * mat.cols() * mat.rows();
+    /**
+     * Заполняет указанный канал постоянным значением на месте.
+     *
+     * @param img     Изображение (изменяется)
+     * @param channel Номер канала
+     * @param value   Значение канала
+     */
+    public void setChannel(Mat img, int channel, double value) {
+        ChannelProcessor channels = borrowChannels();
+        try {
+            channels.setChannel(img, channel, value);
+        } finally {
+            returnChannels(channels);
+        }
+    }
 
-        // Создаём буфер для хранения байт изображения
-        byte[] b = new byte[bufferSize];
+    /**
+     * Меняет местами два канала изображения на месте.
+     *
+     * @param img      Изображение (изменяется)
+     * @param channelA Первый канал
+     * @param channelB Второй канал
+     */
+    public void swapChannels(Mat img, int channelA, int channelB) {
+        ChannelProcessor channels = borrowChannels();
+        try {
+            channels.swapChannels(img, channelA, channelB);
+        } finally {
+            returnChannels(channels);
+        }
+    }
 
-        // Копируем данные из объекта Mat в массив байтов
-        mat.get(0, 0, b);
+    /**
+     * Копирует канал изображения в одноканальную матрицу-приёмник.
+     *
+     * @param srcMat  Исходное изображение
+     * @param channel Номер канала
+     * @param dst     Одноканальный приёмник
+     */
+    public void extractChannel(Mat srcMat, int channel, Mat dst) {
+        ChannelProcessor channels = borrowChannels();
+        try {
+            channels.extractChannel(srcMat, channel, dst);
+        } finally {
+            returnChannels(channels);
+        }
+    }
 
-        // Создаём объект BufferedImage с нужной шириной, высотой и типом
-        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
+    /**
+     * Записывает одноканальную плоскость в указанный канал изображения.
+     *
+     * @param plane   Одноканальная матрица того же размера и глубины
+     * @param dst     Изображение-приёмник (изменяется)
+     * @param channel Номер канала
+     */
+    public void mergeChannel(Mat plane, Mat dst, int channel) {
+        ChannelProcessor channels = borrowChannels();
+        try {
+            channels.mergeChannel(plane, dst, channel);
+        } finally {
+            returnChannels(channels);
+        }
+    }
 
-        // Получаем массив байтов, связанный с пикселями BufferedImage
-        final byte[] targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    /**
+     * Берёт обработчик из набора; если все заняты, создаёт временный.
+     */
+    private ChannelProcessor borrowChannels() {
+        ChannelProcessor channels = channelCache.poll();
+        return channels != null ? channels : new ChannelProcessor();
+    }
 
-        // Копируем содержимое изображения из OpenCV (Mat) в объект BufferedImage
-        System.arraycopy(b, 0, targetPixels, 0, b.length);
+    private void returnChannels(ChannelProcessor channels) {
+        // Лишний временный обработчик сразу освобождает плоскости
+        if (!channelCache.offer(channels)) {
+            channels.release();
+        }
+    }
 
-        // Создаём иконку из изображения для отображения в Swing-интерфейсе
-        ImageIcon icon = new ImageIcon(image);
+    /**
+     * Освобождает плоскости, закэшированные для операций над каналами. Обработчики, занятые
+     * сейчас другими потоками, вернутся в набор и будут освобождены следующим вызовом.
+     */
+    public void releaseChannelCache() {
+        ChannelProcessor channels;
+        while ((channels = channelCache.poll()) != null) {
+            channels.release();
+        }
+    }
 
-        // Создаём окно с компонентами для отображения изображения
-        JFrame frame = new JFrame();
-        frame.setLayout(new FlowLayout()); // Простое выравнивание
-        frame.setSize(image.getWidth() + 50, image.getHeight() + 50); // Задаём размер окна
+    /**
+     * Показывает изображение через текущий приёмник предпросмотра
+     * (одно переиспользуемое окно, миниатюры на диске или ничего — см. {@link PreviewSink}).
+     *
+     * @param mat Изображение в формате Mat
+     */
+    public void showImage(Mat mat) {
+        PreviewSink sink = preview;
+        if (sink == null) {
+            synchronized (this) {
+                if (preview == null) {
+                    preview = defaultPreview();
+                }
+                sink = preview;
+            }
+        }
+        sink.show(mat);
+    }
 
-        // Добавляем изображение в окно через JLabel
-        frame.add(new JLabel(icon));
+    /**
+     * Заменяет приёмник предпросмотра для этого экземпляра.
+     *
+     * @param preview Новый приёмник
+     */
+    public void setPreviewSink(PreviewSink preview) {
+        this.preview = preview;
+    }
 
-        // Делаем окно видимым
-        frame.setVisible(true);
+    private static PreviewSink defaultPreview() {
+        if (defaultPreview == null) {
+            synchronized (ImageProcessor.class) {
+                if (defaultPreview == null) {
+                    defaultPreview = PreviewSink.fromConfig();
+                }
+            }
+        }
+        return defaultPreview;
+    }
 
-        // Устанавливаем поведение при закрытии окна: только закрытие окна, а не всей программы
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+    /**
+     * Копирует изображение в BufferedImage (8/16 бит, 1/3/4 канала).
+     * Возвращаемый объект переиспользуется следующим вызовом в том же потоке.
+     *
+     * @param mat Изображение в формате Mat
+     * @return BufferedImage с пикселями изображения
+     */
+    public BufferedImage toBufferedImage(Mat mat) {
+        return converters.get().toBufferedImage(mat);
     }
 
+    /**
+     * Копирует BufferedImage в Mat.
+     *
+     * @param image Исходное изображение
+     * @return Новая Mat-матрица
+     */
+    public Mat fromBufferedImage(BufferedImage image) {
+        Mat mat = new Mat();
+        converters.get().toMat(image, mat);
+        return mat;
+    }
 
     /**
      * Сохраняет изображение в файл.
      *
      * @param path Путь для сохранения
      * @param mat  Матрица изображения
+     * @throws IllegalStateException если кодек не смог записать файл
      */
     public void saveImage(String path, Mat mat) {
-        Imgcodecs.imwrite(path, mat);
+        saveImage(path, mat, EncoderParams.defaults());
+    }
+
+    /**
+     * Сохраняет изображение в файл с параметрами кодирования (формат — по расширению пути).
+     *
+     * @param path   Путь для сохранения
+     * @param mat    Матрица изображения
+     * @param params Параметры кодирования (качество JPEG/WebP, сжатие PNG и т.п.)
+     * @throws IllegalStateException если кодек не смог записать файл
+     */
+    public void saveImage(String path, Mat mat, EncoderParams params) {
+        ImageEncoder.write(path, mat, params);
+    }
+
+    /**
+     * Кодирует изображение в память (например, для отправки в сокет без временного файла).
+     *
+     * @param mat    Матрица изображения
+     * @param params Параметры кодирования с форматом
+     * @return Закодированные байты
+     */
+    public MatOfByte encodeImage(Mat mat, EncoderParams params) {
+        return ImageEncoder.toBytes(mat, params);
     }
 
     /**
@@ -137,22 +430,24 @@ public class ImageProcessor {
      */
     public Mat applySobel(Mat srcImage, int dx, int dy, int ksize,
                                  double scale, double delta, int borderType) {
-        // Конвертируем в grayscale если нужно
-        Mat grayImage = new Mat();
-        if (srcImage.channels() > 1) {
-            Imgproc.cvtColor(srcImage, grayImage, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            grayImage = srcImage.clone();
-        }
+        // Временные матрицы берём из пула: серое изображение нужно только для многоканального входа
+        try (MatLease gray = srcImage.channels() > 1 ? acquireGray(srcImage) : null;
+             MatLease result = MatPool.shared().acquire(srcImage.rows(), srcImage.cols(), CvType.CV_32F)) {
+            // Конвертируем в grayscale если нужно
+            Mat grayImage = srcImage;
+            if (gray != null) {
+                grayImage = gray.mat();
+                Imgproc.cvtColor(srcImage, grayImage, Imgproc.COLOR_BGR2GRAY);
+            }
 
-        Mat result = new Mat();
-        Imgproc.Sobel(grayImage, result, CvType.CV_32F, dx, dy, ksize, scale, delta, borderType);
+            Imgproc.Sobel(grayImage, result.mat(), CvType.CV_32F, dx, dy, ksize, scale, delta, borderType);
 
-        // Конвертируем в 8-битное изображение для сохранения
-        Mat absResult = new Mat();
-        Core.convertScaleAbs(result, absResult);
+            // Конвертируем в 8-битное изображение для сохранения
+            Mat absResult = new Mat();
+            Core.convertScaleAbs(result.mat(), absResult);
 
-        return absResult;
+            return absResult;
+        }
     }
 
     /**
@@ -166,22 +461,28 @@ public class ImageProcessor {
      */
     public Mat applyLaplacian(Mat srcImage, int ksize,
                                      double scale, double delta, int borderType) {
-        // Конвертируем в grayscale если нужно
-        Mat grayImage = new Mat();
-        if (srcImage.channels() > 1) {
-            Imgproc.cvtColor(srcImage, grayImage, Imgproc.COLOR_BGR2GRAY);
-        } else {
-            grayImage = srcImage.clone();
-        }
+        // Временные матрицы берём из пула: серое изображение нужно только для многоканального входа
+        try (MatLease gray = srcImage.channels() > 1 ? acquireGray(srcImage) : null;
+             MatLease result = MatPool.shared().acquire(srcImage.rows(), srcImage.cols(), CvType.CV_32F)) {
+            // Конвертируем в grayscale если нужно
+            Mat grayImage = srcImage;
+            if (gray != null) {
+                grayImage = gray.mat();
+                Imgproc.cvtColor(srcImage, grayImage, Imgproc.COLOR_BGR2GRAY);
+            }
 
-        Mat result = new Mat();
-        Imgproc.Laplacian(grayImage, result, CvType.CV_32F, ksize, scale, delta, borderType);
+            Imgproc.Laplacian(grayImage, result.mat(), CvType.CV_32F, ksize, scale, delta, borderType);
+
+            // Конвертируем в 8-битное изображение для сохранения
+            Mat absResult = new Mat();
+            Core.convertScaleAbs(result.mat(), absResult);
 
-        // Конвертируем в 8-битное изображение для сохранения
-        Mat absResult = new Mat();
-        Core.convertScaleAbs(result, absResult);
+            return absResult;
+        }
+    }
 
-        return absResult;
+    private static MatLease acquireGray(Mat srcImage) {
+        return MatPool.shared().acquire(srcImage.rows(), srcImage.cols(), CvType.makeType(srcImage.depth(), 1));
     }
 
     /**
@@ -256,8 +557,19 @@ public class ImageProcessor {
      * @return повернутое изображение
      */
     public Mat rotateImage(Mat mat, double angle, boolean keepContent) {
+        Mat rotated = new Mat(); // Результирующее изображение
+
+        // Применяем поворот к изображению с интерполяцией и чёрным фоном;
+        // матрица для того же угла и размера берётся из кэша
+        TransformCache.shared().warp(mat, rotated, "rotate", List.of(angle, keepContent),
+                (width, height) -> rotationTransform(width, height, angle, keepContent));
+
+        return rotated; // Возвращаем повернутое изображение
+    }
+
+    private static TransformCache.Transform rotationTransform(int width, int height, double angle, boolean keepContent) {
         // Центр изображения (вокруг него происходит вращение)
-        Point center = new Point(mat.cols() / 2.0, mat.rows() / 2.0);
+        Point center = new Point(width / 2.0, height / 2.0);
 
         // Получаем матрицу поворота (с масштабом 1.0)
         Mat rotMat = Imgproc.getRotationMatrix2D(center, angle, 1.0);
@@ -265,44 +577,39 @@ public class ImageProcessor {
         Size size;
         if (keepContent) {
             // Вычисляем новый размер, который будет вмещать всё изображение после поворота
-            size = getRotatedSize(mat, angle);
+            size = getRotatedSize(width, height, angle);
 
             // Смещение центра изображения, чтобы оно было выровнено в новой области
-            double dx = (size.width - mat.width()) / 2.0;
-            double dy = (size.height - mat.height()) / 2.0;
+            double dx = (size.width - width) / 2.0;
+            double dy = (size.height - height) / 2.0;
 
             // Корректируем смещение в матрице поворота
             rotMat.put(0, 2, rotMat.get(0, 2)[0] + dx);
             rotMat.put(1, 2, rotMat.get(1, 2)[0] + dy);
         } else {
             // Размер остаётся прежним — возможна обрезка изображения
-            size = new Size(mat.width(), mat.height());
+            size = new Size(width, height);
         }
-
-        Mat rotated = new Mat(); // Результирующее изображение
-
-        // Применяем поворот к изображению с интерполяцией и чёрным фоном
-        Imgproc.warpAffine(mat, rotated, rotMat, size, Imgproc.INTER_LINEAR, Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
-
-        return rotated; // Возвращаем повернутое изображение
+        return new TransformCache.Transform(rotMat, size);
     }
 
     /**
      * Вычисляет размер изображения, необходимый для размещения всего содержимого
      * после поворота без обрезки.
      *
-     * @param mat   исходное изображение
-     * @param angle угол поворота в градусах
+     * @param width  ширина исходного изображения
+     * @param height высота исходного изображения
+     * @param angle  угол поворота в градусах
      * @return новый размер изображения, чтобы оно полностью вмещало повёрнутое содержимое
      */
-    private Size getRotatedSize(Mat mat, double angle) {
+    static Size getRotatedSize(int width, int height, double angle) {
         double radians = Math.toRadians(angle); // Перевод угла в радианы
         double sin = Math.abs(Math.sin(radians)); // Синус угла (по модулю)
         double cos = Math.abs(Math.cos(radians)); // Косинус угла (по модулю)
 
         // Вычисляем ширину и высоту с учётом поворота
-        int newWidth = (int) (mat.height() * sin + mat.width() * cos);
-        int newHeight = (int) (mat.height() * cos + mat.width() * sin);
+        int newWidth = (int) (height * sin + width * cos);
+        int newHeight = (int) (height * cos + width * sin);
 
         return new Size(newWidth, newHeight);
     }
@@ -317,18 +624,18 @@ public class ImageProcessor {
      * @return изображение, сдвинутое на указанные значения
      */
     public Mat shiftImage(Mat mat, int shiftX, int shiftY) {
-
-        // Создаём матрицу трансформации 2x3 для аффинного преобразования
-        Mat translationMat = Mat.eye(2, 3, CvType.CV_32F); // Единичная матрица с дополнительным столбцом
-
-        // Устанавливаем значения сдвига: shiftX — по X, shiftY — по Y
-        translationMat.put(0, 2, shiftX);
-        translationMat.put(1, 2, shiftY);
-
         Mat shifted = new Mat(); // Создаём матрицу для результата
 
         // Применяем аффинное преобразование к изображению
-        Imgproc.warpAffine(mat, shifted, translationMat, mat.size());
+        TransformCache.shared().warp(mat, shifted, "shift", List.of(shiftX, shiftY), (width, height) -> {
+            // Создаём матрицу трансформации 2x3 для аффинного преобразования
+            Mat translationMat = Mat.eye(2, 3, CvType.CV_32F); // Единичная матрица с дополнительным столбцом
+
+            // Устанавливаем значения сдвига: shiftX — по X, shiftY — по Y
+            translationMat.put(0, 2, shiftX);
+            translationMat.put(1, 2, shiftY);
+            return new TransformCache.Transform(translationMat, new Size(width, height));
+        });
 
         return shifted; // Возвращаем сдвинутое изображение
     }
@@ -344,18 +651,20 @@ public class ImageProcessor {
      */
     public Mat transformPerspective(Mat srcImage, Point[] srcPoints,
                                            Point[] dstPoints, int outputWidth, int outputHeight) {
-        // Преобразуем массивы точек в форматы, понятные OpenCV
-        MatOfPoint2f srcMat = new MatOfPoint2f(srcPoints);
-        MatOfPoint2f dstMat = new MatOfPoint2f(dstPoints);
+        try (NativeScope scope = NativeScope.open()) {
+            // Преобразуем массивы точек в форматы, понятные OpenCV
+            MatOfPoint2f srcMat = scope.track(new MatOfPoint2f(srcPoints));
+            MatOfPoint2f dstMat = scope.track(new MatOfPoint2f(dstPoints));
 
-        // Получаем матрицу преобразования
-        Mat perspectiveMatrix = Imgproc.getPerspectiveTransform(srcMat, dstMat);
+            // Получаем матрицу преобразования
+            Mat perspectiveMatrix = scope.track(Imgproc.getPerspectiveTransform(srcMat, dstMat));
 
-        // Применяем преобразование
-        Mat result = new Mat();
-        Imgproc.warpPerspective(srcImage, result, perspectiveMatrix, new Size(outputWidth, outputHeight));
+            // Применяем преобразование
+            Mat result = new Mat();
+            Imgproc.warpPerspective(srcImage, result, perspectiveMatrix, new Size(outputWidth, outputHeight));
 
-        return result;
+            return result;
+        }
     }
 
     /**
@@ -368,21 +677,49 @@ public class ImageProcessor {
      */
     public Mat transformPerspectiveWithDeviation(Mat srcImage, double angle,
                                                         String direction, double intensity) {
-        int width = srcImage.width();
-        int height = srcImage.height();
+        Mat result = new Mat();
+        TransformCache.shared().warp(srcImage, result, "perspective", List.of(angle, direction.toUpperCase(), intensity),
+                (width, height) -> {
+                    try (NativeScope scope = NativeScope.open()) {
+                        // Исходные точки (углы изображения)
+                        MatOfPoint2f srcMat = scope.track(new MatOfPoint2f(cornerPoints(width, height)));
+
+                        // Рассчитываем целевые точки в зависимости от направления
+                        MatOfPoint2f dstMat = scope.track(new MatOfPoint2f(
+                                calculateTargetPoints(width, height, angle, direction, intensity)));
+
+                        return new TransformCache.Transform(Imgproc.getPerspectiveTransform(srcMat, dstMat),
+                                new Size(width, height));
+                    }
+                });
+        return result;
+    }
 
-        // Исходные точки (углы изображения)
-        Point[] srcPoints = new Point[]{
+    /**
+     * Матрица перспективного преобразования по заданному отклонению.
+     *
+     * @return матрица 3x3, записанная по строкам
+     */
+    static double[] deviationPerspectiveMatrix(int width, int height,
+                                               double angle, String direction, double intensity) {
+        try (NativeScope scope = NativeScope.open()) {
+            MatOfPoint2f srcMat = scope.track(new MatOfPoint2f(cornerPoints(width, height)));
+            MatOfPoint2f dstMat = scope.track(new MatOfPoint2f(calculateTargetPoints(width, height, angle, direction, intensity)));
+            Mat perspectiveMatrix = scope.track(Imgproc.getPerspectiveTransform(srcMat, dstMat));
+
+            double[] result = new double[9];
+            perspectiveMatrix.get(0, 0, result);
+            return result;
+        }
+    }
+
+    private static Point[] cornerPoints(int width, int height) {
+        return new Point[]{
                 new Point(0, 0),
                 new Point(width, 0),
                 new Point(width, height),
                 new Point(0, height)
         };
-
-        // Рассчитываем целевые точки в зависимости от направления
-        Point[] dstPoints = calculateTargetPoints(width, height, angle, direction, intensity);
-
-        return transformPerspective(srcImage, srcPoints, dstPoints, width, height);
     }
 
     private static Point[] calculateTargetPoints(int width, int height,
@@ -0,0 +1,206 @@
+package org.example;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfInt;
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Преобразование Mat ↔ BufferedImage за одно копирование.
+ *
+ * <p>Для Mat → BufferedImage пиксели копируются нативно прямо в массив растра
+ * закэшированного BufferedImage, без промежуточного byte[]. Раскладка растра
+ * подобрана под порядок каналов OpenCV (BGR / BGRA), поэтому перестановка
+ * каналов не нужна. Поддерживаются 1, 3 и 4 канала глубиной 8 и 16 бит.
+ *
+ * <p>Растр Java2D всегда хранится в массиве Java-кучи, а данные Mat — в нативной памяти,
+ * поэтому обернуть одно другим без копирования нельзя; одно копирование — минимум.
+ *
+ * <p>Возвращаемый BufferedImage переиспользуется следующим вызовом с тем же размером
+ * и типом. Экземпляр не потокобезопасен.
+ */
+public class MatImageConverter {
+    private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+    private static final int[] BGR_OFFSETS = {2, 1, 0};
+    private static final int[] BGRA_OFFSETS = {2, 1, 0, 3};
+
+    private BufferedImage cached;
+    private int cachedType = -1;
+    private BufferedImage fallback;
+    // Нативные буферы для TYPE_4BYTE_ABGR создаются при первой такой конвертации
+    private Mat abgr;
+    private MatOfInt abgrToBgra;
+
+    /**
+     * Копирует изображение в BufferedImage.
+     *
+     * @param mat изображение CV_8UC1/3/4 или CV_16UC1/3/4
+     * @return закэшированный BufferedImage с пикселями mat
+     */
+    public BufferedImage toBufferedImage(Mat mat) {
+        int type = mat.type();
+        BufferedImage image = cached;
+        if (image == null || cachedType != type
+                || image.getWidth() != mat.cols() || image.getHeight() != mat.rows()) {
+            image = createImage(mat.cols(), mat.rows(), type);
+            cached = image;
+            cachedType = type;
+        }
+
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        if (buffer instanceof DataBufferByte) {
+            mat.get(0, 0, ((DataBufferByte) buffer).getData());
+        } else {
+            mat.get(0, 0, ((DataBufferUShort) buffer).getData());
+        }
+        return image;
+    }
+
+    /**
+     * Создаёт BufferedImage, растр которого совпадает по раскладке с Mat заданного типа.
+     */
+    public static BufferedImage createImage(int width, int height, int matType) {
+        int channels = CvType.channels(matType);
+        int depth = CvType.depth(matType);
+        if (depth == CvType.CV_8U) {
+            switch (channels) {
+                case 1:
+                    return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                case 3:
+                    return new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+                case 4:
+                    return interleaved(width, height, DataBuffer.TYPE_BYTE, BGRA_OFFSETS);
+            }
+        } else if (depth == CvType.CV_16U) {
+            switch (channels) {
+                case 1:
+                    return new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+                case 3:
+                    return interleaved(width, height, DataBuffer.TYPE_USHORT, BGR_OFFSETS);
+                case 4:
+                    return interleaved(width, height, DataBuffer.TYPE_USHORT, BGRA_OFFSETS);
+            }
+        }
+        throw new IllegalArgumentException("Неподдерживаемый тип изображения: " + CvType.typeToString(matType));
+    }
+
+    private static BufferedImage interleaved(int width, int height, int dataType, int[] bandOffsets) {
+        boolean alpha = bandOffsets.length == 4;
+        ColorModel colorModel = new ComponentColorModel(SRGB, alpha, false,
+                alpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE, dataType);
+        int channels = bandOffsets.length;
+        DataBuffer buffer = dataType == DataBuffer.TYPE_BYTE
+                ? new DataBufferByte(width * height * channels)
+                : new DataBufferUShort(width * height * channels);
+        WritableRaster raster = Raster.createInterleavedRaster(buffer, width, height,
+                width * channels, channels, bandOffsets, null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    /**
+     * Копирует BufferedImage в Mat. Изображения с раскладкой OpenCV (в том числе созданные
+     * {@link #createImage}), а также TYPE_BYTE_GRAY, TYPE_USHORT_GRAY, TYPE_3BYTE_BGR и TYPE_4BYTE_ABGR
+     * копируются одним нативным копированием; остальные типы предварительно перерисовываются в BGR.
+     *
+     * @param image исходное изображение
+     * @param dst   приёмник (переиспользуется, если подходит по размеру и типу)
+     */
+    public void toMat(BufferedImage image, Mat dst) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+
+        if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR && isWholeBuffer(raster)) {
+            if (abgr == null) {
+                abgr = new Mat();
+                abgrToBgra = new MatOfInt(1, 0, 2, 1, 3, 2, 0, 3);
+            }
+            abgr.create(height, width, CvType.CV_8UC4);
+            abgr.put(0, 0, ((DataBufferByte) buffer).getData());
+            dst.create(height, width, CvType.CV_8UC4);
+            Core.mixChannels(List.of(abgr), List.of(dst), abgrToBgra);
+            return;
+        }
+
+        int matType = matTypeOf(raster);
+        if (matType >= 0) {
+            dst.create(height, width, matType);
+            if (buffer instanceof DataBufferByte) {
+                dst.put(0, 0, ((DataBufferByte) buffer).getData());
+            } else {
+                dst.put(0, 0, ((DataBufferUShort) buffer).getData());
+            }
+            return;
+        }
+
+        // Прочие форматы (INT_RGB, индексированные и т.д.) перерисовываем в BGR
+        if (fallback == null || fallback.getWidth() != width || fallback.getHeight() != height) {
+            fallback = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        Graphics2D g = fallback.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        dst.create(height, width, CvType.CV_8UC3);
+        dst.put(0, 0, ((DataBufferByte) fallback.getRaster().getDataBuffer()).getData());
+    }
+
+    /**
+     * Освобождает нативные буферы конвертера. Кэшированные BufferedImage остаются в куче;
+     * экземпляром можно пользоваться и дальше — буферы будут созданы заново.
+     */
+    public void release() {
+        if (abgr != null) {
+            abgr.release();
+            abgrToBgra.release();
+            abgr = null;
+            abgrToBgra = null;
+        }
+    }
+
+    /**
+     * @return тип Mat с той же раскладкой, что у растра, или -1, если раскладка не совпадает с OpenCV
+     */
+    private static int matTypeOf(WritableRaster raster) {
+        if (!(raster.getSampleModel() instanceof PixelInterleavedSampleModel) || !isWholeBuffer(raster)) {
+            return -1;
+        }
+        PixelInterleavedSampleModel model = (PixelInterleavedSampleModel) raster.getSampleModel();
+        int channels = model.getNumBands();
+        if (model.getPixelStride() != channels || model.getScanlineStride() != raster.getWidth() * channels) {
+            return -1;
+        }
+        int[] offsets = model.getBandOffsets();
+        boolean layout = channels == 1 && offsets[0] == 0
+                || channels == 3 && Arrays.equals(offsets, BGR_OFFSETS)
+                || channels == 4 && Arrays.equals(offsets, BGRA_OFFSETS);
+        if (!layout) {
+            return -1;
+        }
+        switch (model.getDataType()) {
+            case DataBuffer.TYPE_BYTE:
+                return CvType.makeType(CvType.CV_8U, channels);
+            case DataBuffer.TYPE_USHORT:
+                return CvType.makeType(CvType.CV_16U, channels);
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Растр занимает весь буфер с нулевым смещением (не является частью другого растра).
+     */
+    private static boolean isWholeBuffer(WritableRaster raster) {
+        DataBuffer buffer = raster.getDataBuffer();
+        return raster.getParent() == null && raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0 && buffer.getNumBanks() == 1 && buffer.getOffset() == 0
+                && buffer.getSize() == raster.getWidth() * raster.getHeight() * raster.getNumBands();
+    }
+}
@@ -1,5 +1,7 @@
 package org.example;
 
+import org.example.tiles.RoiProcessor;
+import org.example.tiles.TileOperation;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
@@ -34,7 +36,21 @@ public class MorphologyUtils {
         // Применение морфологической операции
         Imgproc.morphologyEx(src, dst, morphType, kernel);
 
+        // Исходник и ядро больше не нужны — освобождаем нативную память сразу
+        src.release();
+        kernel.release();
+
         // Возвращаем результат
         return dst;
     }
+
+    /**
+     * Применяет морфологическую операцию только в области {@code roi}: края области обрабатываются
+     * по соседним пикселям изображения, как при обработке целиком.
+     *
+     * @return результат размером с область
+     */
+    public static Mat applyMorphology(Mat src, Rect roi, int kernelSize, int morphType, int shapeType) {
+        return RoiProcessor.apply(src, roi, TileOperation.morphology(kernelSize, morphType, shapeType));
+    }
 }
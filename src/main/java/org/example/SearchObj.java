@@ -1,5 +1,10 @@
 package org.example;
 
+import org.example.memory.MatLease;
+import org.example.memory.MatPool;
+import org.example.memory.NativeScope;
+import org.example.tiles.RoiProcessor;
+import org.example.tiles.TileOperation;
 import org.opencv.core.*;
 import org.opencv.imgproc.Imgproc;
 
@@ -9,58 +14,81 @@ import java.util.List;
 public class SearchObj {
 
     public static Mat detectEdges(Mat src, int blurKernelSize, double lowThreshold, double highThreshold, boolean useOtsu) {
-        // Перевод в оттенки серого
-        Mat gray = new Mat();
-        Imgproc.cvtColor(src, gray, Imgproc.COLOR_BGR2GRAY);
-
-        // Сглаживание (уменьшение шума)
-        Mat blurred = new Mat();
-        Size kernelSize = new Size(blurKernelSize, blurKernelSize);
-        Imgproc.blur(gray, blurred, kernelSize);
+        try (AnalysisContext frame = new AnalysisContext(src)) {
+            return detectEdges(frame, blurKernelSize, lowThreshold, highThreshold, useOtsu);
+        }
+    }
 
-        // Вычисление порогов
+    /**
+     * Границы Canny по общей предобработке кадра: серое изображение, размытие и порог Оцу
+     * берутся из контекста и переиспользуются другими детекторами.
+     */
+    public static Mat detectEdges(AnalysisContext frame, int blurKernelSize, double lowThreshold, double highThreshold,
+                                  boolean useOtsu) {
+        // Вычисление порогов: порог Оцу берётся по гистограмме, без порогового изображения
         double threshold1 = lowThreshold;
         double threshold2 = highThreshold;
-
         if (useOtsu) {
-            Mat thresholdImage = new Mat();
-            double otsuThreshold = Imgproc.threshold(gray, thresholdImage, 0, 255, Imgproc.THRESH_OTSU);
+            double otsuThreshold = frame.otsuThreshold();
             threshold1 = otsuThreshold;
             threshold2 = otsuThreshold * 3;
         }
 
-        // Применение Canny
+        // Применение Canny к сглаженному изображению
         Mat edges = new Mat();
-        Imgproc.Canny(blurred, edges, threshold1, threshold2);
-
+        Imgproc.Canny(frame.blur(blurKernelSize), edges, threshold1, threshold2);
         return edges;
     }
 
-    public static int detectRectangles(Mat image, int targetWidth, int targetHeight, double tolerance) {
-        Mat gray = new Mat();
-        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
-        Imgproc.GaussianBlur(gray, gray, new Size(5, 5), 0);
-        Imgproc.Canny(gray, gray, 50, 150);
-
-        List<MatOfPoint> contours = new ArrayList<>();
-        Imgproc.findContours(gray, contours, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-
-        int count = 0;
-        for (MatOfPoint contour : contours) {
-            MatOfPoint2f contour2f = new MatOfPoint2f(contour.toArray());
-            RotatedRect rect = Imgproc.minAreaRect(contour2f);
-            Size size = rect.size;
-
-            double w = Math.min(size.width, size.height);
-            double h = Math.max(size.width, size.height);
-
-            if (Math.abs(w - targetWidth) <= tolerance && Math.abs(h - targetHeight) <= tolerance) {
-                count++;
+    /**
+     * Границы Canny только в области {@code roi}: вход читается представлением области с запасом,
+     * результат — размером с область. Порог Оцу считается по самой области.
+     */
+    public static Mat detectEdges(Mat src, Rect roi, int blurKernelSize, double lowThreshold, double highThreshold,
+                                  boolean useOtsu) {
+        double threshold1 = lowThreshold;
+        double threshold2 = highThreshold;
+        if (useOtsu) {
+            Mat view = src.submat(roi);
+            try (AnalysisContext frame = new AnalysisContext(view)) {
+                threshold1 = frame.otsuThreshold();
+                threshold2 = threshold1 * 3;
+            } finally {
+                view.release();
             }
         }
-        return count;
+        return RoiProcessor.apply(src, roi, TileOperation.canny(blurKernelSize, threshold1, threshold2));
     }
 
+    public static int detectRectangles(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            return detectRectangles(frame, targetWidth, targetHeight, tolerance);
+        }
+    }
 
+    /**
+     * Подсчёт прямоугольников по границам Canny с общей предобработкой кадра (см. {@link AnalysisContext}).
+     */
+    public static int detectRectangles(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        return detectRectangles(frame, new ContourStats(ContourStats.Fit.MIN_AREA_RECT, targetWidth, targetHeight, tolerance));
+    }
 
+    /**
+     * Подсчёт прямоугольников по внешним контурам границ Canny; найденные прямоугольники остаются в {@code stats},
+     * если в нём включён {@link ContourStats#collectRects(boolean)}.
+     */
+    public static int detectRectangles(AnalysisContext frame, ContourStats stats) {
+        Mat image = frame.source();
+        try (NativeScope scope = NativeScope.open()) {
+            List<MatOfPoint> contours = new ArrayList<>();
+            try (MatLease lease = MatPool.shared().acquire(image.rows(), image.cols(), CvType.CV_8UC1)) {
+                Mat edges = lease.mat();
+                Imgproc.Canny(frame.gaussianBlur(5), edges, 50, 150);
+
+                Imgproc.findContours(edges, contours, scope.mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            }
+            scope.trackAll(contours);
+            return stats.count(contours);
+        }
+    }
 }
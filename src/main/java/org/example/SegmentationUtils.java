@@ -1,5 +1,6 @@
 package org.example;
 
+import org.example.memory.NativeScope;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
@@ -21,6 +22,7 @@ public class SegmentationUtils {
         }
         Mat mask = new Mat();
         Imgproc.floodFill(image, mask, seedPoint, fillColor, new Rect(), loDiff, upDiff, Imgproc.FLOODFILL_FIXED_RANGE);
+        mask.release();
     }
 
     public static Mat applyPyramidDown(Mat image, int times) {
@@ -28,6 +30,7 @@ public class SegmentationUtils {
         for (int i = 0; i < times; i++) {
             Mat temp = new Mat();
             Imgproc.pyrDown(result, temp);
+            result.release(); // промежуточный уровень больше не нужен
             result = temp;
         }
         return result;
@@ -38,6 +41,7 @@ public class SegmentationUtils {
         for (int i = 0; i < times; i++) {
             Mat temp = new Mat();
             Imgproc.pyrUp(result, temp);
+            result.release(); // промежуточный уровень больше не нужен
             result = temp;
         }
         return result;
@@ -49,28 +53,89 @@ public class SegmentationUtils {
         return result;
     }
 
-    public static int countRectangularObjects(Mat image, int targetWidth, int targetHeight, double tolerance) {
-        Mat gray = new Mat();
-        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
+    /**
+     * Находит изменившиеся блоки между двумя кадрами одного размера и типа.
+     *
+     * <p>В отличие от {@link #getImageDifference}, который вычитает с насыщением и видит только
+     * посветлевшие пиксели, здесь используется модуль разности. Соседние изменившиеся блоки
+     * одной строки блоков объединяются в один прямоугольник.
+     *
+     * @param previous  предыдущий кадр
+     * @param current   текущий кадр
+     * @param blockSize размер блока в пикселях
+     * @param threshold изменение канала, не превышающее порог, не считается (0 — любое изменение)
+     * @return прямоугольники из изменившихся блоков
+     */
+    public static List<Rect> getChangedRegions(Mat previous, Mat current, int blockSize, double threshold) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+        }
+        try (NativeScope scope = NativeScope.open()) {
+            Mat diff = scope.mat();
+            Core.absdiff(previous, current, diff);
+            // Каналы раскладываем в столбцы, чтобы считать ненулевые значения одним вызовом
+            Mat changed = scope.mat();
+            Imgproc.threshold(scope.track(diff.reshape(1)), changed, threshold, 255, Imgproc.THRESH_BINARY);
 
-        Mat binary = new Mat();
-        Imgproc.threshold(gray, binary, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+            int rows = current.rows();
+            int cols = current.cols();
+            int channels = current.channels();
+            List<Rect> regions = new ArrayList<>();
+            for (int y = 0; y < rows; y += blockSize) {
+                int height = Math.min(blockSize, rows - y);
+                int runStart = -1;
+                for (int x = 0; x < cols; x += blockSize) {
+                    int width = Math.min(blockSize, cols - x);
+                    Mat block = changed.submat(y, y + height, x * channels, (x + width) * channels);
+                    boolean dirty = Core.countNonZero(block) > 0;
+                    block.release();
+                    if (dirty && runStart < 0) {
+                        runStart = x;
+                    } else if (!dirty && runStart >= 0) {
+                        regions.add(new Rect(runStart, y, x - runStart, height));
+                        runStart = -1;
+                    }
+                }
+                if (runStart >= 0) {
+                    regions.add(new Rect(runStart, y, cols - runStart, height));
+                }
+            }
+            return regions;
+        }
+    }
 
-        List<MatOfPoint> contours = new ArrayList<>();
-        Imgproc.findContours(binary, contours, new Mat(), Imgproc.RETR_TREE, Imgproc.CHAIN_APPROX_SIMPLE);
+    public static int countRectangularObjects(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            return countRectangularObjects(frame, targetWidth, targetHeight, tolerance);
+        }
+    }
 
-        int count = 0;
-        for (MatOfPoint contour : contours) {
-            Rect rect = Imgproc.boundingRect(contour);
-            double width = rect.width;
-            double height = rect.height;
+    /**
+     * Подсчёт объектов по бинарному изображению Оцу с общей предобработкой кадра (см. {@link AnalysisContext}).
+     */
+    public static int countRectangularObjects(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        return countRectangularObjects(frame, new ContourStats(ContourStats.Fit.BOUNDING_RECT, targetWidth, targetHeight, tolerance));
+    }
 
-            if (Math.abs(width - targetWidth) < tolerance && Math.abs(height - targetHeight) < tolerance) {
-                count++;
-                // Mat sub = image.submat(rect);
-                // Imgcodecs.imwrite("rect_" + count + ".jpg", sub);
-            }
+    /**
+     * Подсчёт по всем контурам (внешним и дыркам) бинарного изображения Оцу. Иерархия не нужна,
+     * поэтому контуры извлекаются списком ({@code RETR_LIST}) — набор тот же, что и у {@code RETR_TREE}.
+     */
+    public static int countRectangularObjects(AnalysisContext frame, ContourStats stats) {
+        try (NativeScope scope = NativeScope.open()) {
+            List<MatOfPoint> contours = new ArrayList<>();
+            // findContours не меняет вход, поэтому бинарное изображение контекста можно отдать напрямую
+            Imgproc.findContours(frame.otsuBinary(), contours, scope.mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
+            scope.trackAll(contours);
+            return stats.count(contours);
         }
-        return count;
+    }
+
+    /**
+     * Подсчёт тех же объектов, что и {@link #countRectangularObjects}, по связным компонентам
+     * бинарного изображения Оцу (см. {@link ComponentCounter}).
+     */
+    public static int countObjectsByComponents(AnalysisContext frame, ComponentCounter counter) {
+        return counter.count(frame.otsuBinary());
     }
 }
@@ -0,0 +1,221 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Набор классов размеров для подсчёта объектов за один проход.
+ *
+ * <p>Класс задаётся либо целевым размером с допуском ({@link #add}) — как в
+ * {@link ImageAPI#getCountObj(org.opencv.core.Mat, int, int, double)}, — либо ячейкой сетки
+ * ({@link #grid}): ширина и высота в полуинтервалах {@code [от, до)}. Один объект может попасть
+ * в несколько классов с допуском; ячейки сетки не пересекаются.
+ *
+ * <p>Классы индексируются по ширине: для каждого целого значения ширины хранится список классов,
+ * чей диапазон ширины его задевает, поэтому проверка объекта стоит несколько сравнений даже
+ * при сотнях классов. Индекс строится при первом подсчёте; после этого набор изменять нельзя.
+ */
+public class SizeClasses {
+    // Ширины от этого значения попадают в одну общую ячейку индекса
+    private static final int MAX_INDEXED_WIDTH = 4096;
+
+    private double[] lowWidth = new double[8];
+    private double[] highWidth = new double[8];
+    private double[] lowHeight = new double[8];
+    private double[] highHeight = new double[8];
+    // Для классов с допуском — цель и допуск (NaN у ячеек сетки); сравнение как в одиночном подсчёте
+    private double[] targetWidth = new double[8];
+    private double[] targetHeight = new double[8];
+    private double[] tolerance = new double[8];
+    private int size;
+
+    private int[] cellClasses;
+    // Пишется последним: по нему потоки видят готовый индекс
+    private volatile int[] cellStart;
+
+    /**
+     * Набор из одного класса.
+     */
+    public static SizeClasses of(int width, int height, double tolerance) {
+        return new SizeClasses().add(width, height, tolerance);
+    }
+
+    /**
+     * Гистограмма размеров: ячейки {@code [minWidth + i * widthStep, + widthStep) × [minHeight + j * heightStep, + heightStep)},
+     * пока начало ячейки меньше {@code maxWidth}/{@code maxHeight}. Класс ячейки {@code (i, j)} имеет номер
+     * {@code i * heightBins + j}.
+     */
+    public static SizeClasses grid(int minWidth, int maxWidth, int widthStep, int minHeight, int maxHeight, int heightStep) {
+        if (widthStep < 1 || heightStep < 1 || maxWidth <= minWidth || maxHeight <= minHeight) {
+            throw new IllegalArgumentException("Некорректная сетка размеров");
+        }
+        SizeClasses classes = new SizeClasses();
+        for (int w = minWidth; w < maxWidth; w += widthStep) {
+            for (int h = minHeight; h < maxHeight; h += heightStep) {
+                classes.put(w, w + widthStep, h, h + heightStep);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Добавляет класс «размер {@code width × height} с допуском {@code tolerance}». Граница допуска
+     * включается или нет так же, как в одиночном подсчёте соответствующим детектором.
+     */
+    public SizeClasses add(int width, int height, double tolerance) {
+        put(width - tolerance, width + tolerance, height - tolerance, height + tolerance);
+        targetWidth[size - 1] = width;
+        targetHeight[size - 1] = height;
+        this.tolerance[size - 1] = tolerance;
+        return this;
+    }
+
+    private SizeClasses put(double w0, double w1, double h0, double h1) {
+        if (cellStart != null) {
+            throw new IllegalStateException("Набор классов уже используется для подсчёта");
+        }
+        if (size == lowWidth.length) {
+            int capacity = size * 2;
+            lowWidth = Arrays.copyOf(lowWidth, capacity);
+            highWidth = Arrays.copyOf(highWidth, capacity);
+            lowHeight = Arrays.copyOf(lowHeight, capacity);
+            highHeight = Arrays.copyOf(highHeight, capacity);
+            targetWidth = Arrays.copyOf(targetWidth, capacity);
+            targetHeight = Arrays.copyOf(targetHeight, capacity);
+            tolerance = Arrays.copyOf(tolerance, capacity);
+        }
+        lowWidth[size] = w0;
+        highWidth[size] = w1;
+        lowHeight[size] = h0;
+        highHeight[size] = h1;
+        targetWidth[size] = Double.NaN;
+        targetHeight[size] = Double.NaN;
+        tolerance[size] = Double.NaN;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return описание класса для отчётов: {@code 40x60±5} или {@code [40,50)x[60,70)}
+     */
+    public String label(int index) {
+        double tol = tolerance[index];
+        if (!Double.isNaN(tol)) {
+            return String.format(Locale.ROOT, "%.0fx%.0f±%s", targetWidth[index], targetHeight[index],
+                    tol == Math.rint(tol) ? String.valueOf((long) tol) : String.valueOf(tol));
+        }
+        return String.format(Locale.ROOT, "[%.0f,%.0f)x[%.0f,%.0f)",
+                lowWidth[index], highWidth[index], lowHeight[index], highHeight[index]);
+    }
+
+    double minWidth() {
+        return min(lowWidth);
+    }
+
+    double maxWidth() {
+        return max(highWidth);
+    }
+
+    double minHeight() {
+        return min(lowHeight);
+    }
+
+    double maxHeight() {
+        return max(highHeight);
+    }
+
+    /**
+     * Добавляет объект ко всем подходящим классам.
+     *
+     * @param inclusive включать ли границу допуска ({@code |размер - цель| <= допуск}) или нет ({@code <})
+     * @param counts    счётчики по классам, длина не меньше {@link #size()}
+     * @return число классов, в которые попал объект
+     */
+    int match(double width, double height, boolean inclusive, int[] counts) {
+        int[] start = cellStart;
+        if (start == null) {
+            buildIndex();
+            start = cellStart;
+        }
+        int cell = cell(width);
+        int matched = 0;
+        for (int k = start[cell]; k < start[cell + 1]; k++) {
+            int i = cellClasses[k];
+            double tol = tolerance[i];
+            boolean hit;
+            if (Double.isNaN(tol)) {
+                hit = width >= lowWidth[i] && width < highWidth[i] && height >= lowHeight[i] && height < highHeight[i];
+            } else if (inclusive) {
+                hit = Math.abs(width - targetWidth[i]) <= tol && Math.abs(height - targetHeight[i]) <= tol;
+            } else {
+                hit = Math.abs(width - targetWidth[i]) < tol && Math.abs(height - targetHeight[i]) < tol;
+            }
+            if (hit) {
+                counts[i]++;
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private static int cell(double width) {
+        if (!(width > 0)) {
+            return 0;
+        }
+        return width >= MAX_INDEXED_WIDTH ? MAX_INDEXED_WIDTH : (int) width;
+    }
+
+    // Запас в ячейку с каждой стороны: граница допуска сравнивается через |размер - цель|, а не через от/до
+    private int firstCell(int i) {
+        return cell(lowWidth[i] - 1);
+    }
+
+    private int lastCell(int i) {
+        return cell(highWidth[i] + 1);
+    }
+
+    private synchronized void buildIndex() {
+        if (cellStart != null) {
+            return;
+        }
+        int cells = MAX_INDEXED_WIDTH + 1;
+        int[] start = new int[cells + 1];
+        for (int i = 0; i < size; i++) {
+            for (int c = firstCell(i); c <= lastCell(i); c++) {
+                start[c + 1]++;
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] classes = new int[start[cells]];
+        int[] fill = Arrays.copyOf(start, cells);
+        for (int i = 0; i < size; i++) {
+            for (int c = firstCell(i); c <= lastCell(i); c++) {
+                classes[fill[c]++] = i;
+            }
+        }
+        cellClasses = classes;
+        cellStart = start;
+    }
+
+    private double min(double[] values) {
+        double result = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+
+    private double max(double[] values) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+}
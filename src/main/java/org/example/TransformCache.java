@@ -0,0 +1,329 @@
+package org.example;
+
+import org.example.memory.NativeScope;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш матриц геометрических преобразований с ключом (операция, параметры, размер входа).
+ *
+ * <p>Повторный поворот, сдвиг или перспектива с теми же параметрами для кадра того же
+ * размера не пересчитывает матрицу. Если включены таблицы remap, то при втором
+ * использовании преобразования для каждого пикселя результата один раз вычисляются
+ * координаты в исходнике (в формате CV_16SC2 + CV_16UC1, как внутри warpAffine),
+ * и дальше преобразование сводится к одному {@code Imgproc.remap}. Таблицы могут
+ * отличаться от warpAffine/warpPerspective на единицу из-за округления координат.
+ *
+ * <p>Объём кэша ограничен в байтах; при превышении вытесняются давно не использованные
+ * записи. Нативная память записи освобождается, как только её перестают использовать.
+ */
+public class TransformCache {
+    private static volatile TransformCache shared;
+
+    /**
+     * Вычисляет преобразование для входа заданного размера.
+     */
+    public interface TransformFactory {
+        Transform create(int width, int height);
+    }
+
+    /**
+     * Матрица преобразования (2x3 — аффинная, 3x3 — перспективная) и размер результата.
+     */
+    public static final class Transform {
+        final Mat matrix;
+        final Size size;
+
+        public Transform(Mat matrix, Size size) {
+            this.matrix = matrix;
+            this.size = size;
+        }
+    }
+
+    private record Key(String operation, int width, int height, List<Object> params) {
+    }
+
+    private static final class Entry {
+        final Transform transform;
+        Mat map1;
+        Mat map2;
+        int uses;
+        int refs;
+        boolean evicted;
+        boolean noMaps;
+        long bytes;
+
+        Entry(Transform transform) {
+            this.transform = transform;
+            this.bytes = transform.matrix.total() * transform.matrix.elemSize();
+        }
+
+        void release() {
+            transform.matrix.release();
+            if (map1 != null) {
+                map1.release();
+                map2.release();
+            }
+        }
+    }
+
+    private final long maxBytes;
+    private final boolean remapTables;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long skippedMaps;
+
+    /**
+     * @param maxBytes    максимальный объём матриц и таблиц в кэше
+     * @param remapTables строить таблицы remap для повторяющихся преобразований
+     */
+    public TransformCache(long maxBytes, boolean remapTables) {
+        this.maxBytes = maxBytes;
+        this.remapTables = remapTables;
+    }
+
+    /**
+     * Общий кэш. Объём задаётся параметром {@code transformCacheMaxMb} (по умолчанию 64 МБ),
+     * таблицы remap включаются {@code transformCacheRemap=1}.
+     */
+    public static TransformCache shared() {
+        if (shared == null) {
+            synchronized (TransformCache.class) {
+                if (shared == null) {
+                    shared = new TransformCache(Config.getIntProp(Constants.TRANSFORM_CACHE_MAX_MB, 64) * 1024L * 1024L,
+                            Config.getIntProp(Constants.TRANSFORM_CACHE_REMAP, 0) != 0);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Применяет закэшированное (или вычисленное и закэшированное) преобразование
+     * с билинейной интерполяцией и чёрным фоном.
+     *
+     * @param src       исходное изображение
+     * @param dst       приёмник
+     * @param operation имя операции
+     * @param params    параметры операции (участвуют в ключе; должны корректно сравниваться через equals)
+     * @param factory   вычисление преобразования при промахе
+     */
+    public void warp(Mat src, Mat dst, String operation, List<Object> params, TransformFactory factory) {
+        Key key = new Key(operation, src.cols(), src.rows(), params);
+        Entry entry = acquire(key, factory);
+        try {
+            Mat map1;
+            Mat map2;
+            synchronized (entry) {
+                entry.uses++;
+                if (remapTables && entry.map1 == null && !entry.noMaps && entry.uses >= 2) {
+                    buildMaps(entry);
+                }
+                map1 = entry.map1;
+                map2 = entry.map2;
+            }
+
+            Transform transform = entry.transform;
+            if (map1 != null) {
+                Imgproc.remap(src, dst, map1, map2, Imgproc.INTER_LINEAR, Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
+            } else if (transform.matrix.rows() == 2) {
+                Imgproc.warpAffine(src, dst, transform.matrix, transform.size, Imgproc.INTER_LINEAR,
+                        Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
+            } else {
+                Imgproc.warpPerspective(src, dst, transform.matrix, transform.size, Imgproc.INTER_LINEAR,
+                        Core.BORDER_CONSTANT, new Scalar(0, 0, 0));
+            }
+        } finally {
+            releaseEntry(entry);
+        }
+    }
+
+    private Entry acquire(Key key, TransformFactory factory) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                entry.refs++;
+                return entry;
+            }
+            misses++;
+        }
+
+        // Матрицу считаем вне блокировки; при гонке лишняя копия просто освобождается
+        Entry created = new Entry(factory.create(key.width(), key.height()));
+        List<Entry> evicted;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                existing.refs++;
+                created.release();
+                return existing;
+            }
+            created.refs++;
+            entries.put(key, created);
+            bytes += created.bytes;
+            evicted = evict();
+        }
+        releaseEvicted(evicted);
+        return created;
+    }
+
+    private void releaseEntry(Entry entry) {
+        boolean free;
+        synchronized (this) {
+            entry.refs--;
+            free = entry.evicted && entry.refs == 0;
+        }
+        if (free) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Вытесняет давно не использованные записи сверх лимита. Вызывается под блокировкой.
+     *
+     * @return записи, которые можно освободить сразу
+     */
+    private List<Entry> evict() {
+        List<Entry> free = new ArrayList<>();
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            bytes -= eldest.bytes;
+            evictions++;
+            eldest.evicted = true;
+            if (eldest.refs == 0) {
+                free.add(eldest);
+            }
+        }
+        return free;
+    }
+
+    private static void releaseEvicted(List<Entry> evicted) {
+        for (Entry entry : evicted) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Строит таблицы remap: для каждого пикселя результата — координаты в исходнике.
+     * Таблицы, которые сами не помещаются в лимит кэша, не строятся: иначе они
+     * вытеснили бы весь кэш вместе с собственной записью.
+     */
+    private void buildMaps(Entry entry) {
+        Transform transform = entry.transform;
+        int width = (int) transform.size.width;
+        int height = (int) transform.size.height;
+        // CV_16SC2 (4 байта) + CV_16UC1 (2 байта) на пиксель
+        long expectedBytes = (long) width * height * 6;
+        if (entry.bytes + expectedBytes > maxBytes) {
+            entry.noMaps = true;
+            synchronized (this) {
+                skippedMaps++;
+            }
+            return;
+        }
+        Mat map1 = new Mat();
+        Mat map2 = new Mat();
+
+        try (NativeScope scope = NativeScope.open()) {
+            // Обратное преобразование 3x3: из координат результата в координаты исходника
+            Mat forward = scope.track(Mat.eye(3, 3, CvType.CV_64F));
+            transform.matrix.convertTo(forward.rowRange(0, transform.matrix.rows()), CvType.CV_64F);
+            Mat inverse = scope.mat();
+            Core.invert(forward, inverse);
+
+            float[] xs = new float[width];
+            for (int x = 0; x < width; x++) {
+                xs[x] = x;
+            }
+            float[] ys = new float[height];
+            for (int y = 0; y < height; y++) {
+                ys[y] = y;
+            }
+            Mat rowRamp = scope.track(new Mat(1, width, CvType.CV_32F));
+            rowRamp.put(0, 0, xs);
+            Mat colRamp = scope.track(new Mat(height, 1, CvType.CV_32F));
+            colRamp.put(0, 0, ys);
+
+            Mat gridX = scope.mat();
+            Mat gridY = scope.mat();
+            Core.repeat(rowRamp, height, 1, gridX);
+            Core.repeat(colRamp, 1, width, gridY);
+            Mat grid = scope.mat();
+            Core.merge(List.of(gridX, gridY), grid);
+
+            Mat mapped = scope.mat();
+            Core.perspectiveTransform(grid, mapped, inverse);
+            Imgproc.convertMaps(mapped, scope.mat(), map1, map2, CvType.CV_16SC2, false);
+        }
+
+        long mapBytes = map1.total() * map1.elemSize() + map2.total() * map2.elemSize();
+        List<Entry> evicted;
+        synchronized (this) {
+            entry.map1 = map1;
+            entry.map2 = map2;
+            if (!entry.evicted) {
+                entry.bytes += mapBytes;
+                bytes += mapBytes;
+            }
+            evicted = evict();
+        }
+        releaseEvicted(evicted);
+    }
+
+    /**
+     * Освобождает все записи, которые сейчас не используются.
+     */
+    public void clear() {
+        List<Entry> free = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                entry.evicted = true;
+                if (entry.refs == 0) {
+                    free.add(entry);
+                }
+            }
+            entries.clear();
+            bytes = 0;
+        }
+        releaseEvicted(free);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return число преобразований, для которых таблицы remap не строились из-за лимита объёма
+     */
+    public synchronized long getSkippedMaps() {
+        return skippedMaps;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.batch;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.example.ImagePipeline;
+import org.example.encode.EncoderParams;
+import org.example.encode.ImageEncoder;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Пакетная обработка каталога изображений.
+ *
+ * <p>Декодирование, обработка цепочкой {@link ImagePipeline} и кодирование выполняются
+ * отдельными пулами потоков, связанными ограниченными очередями. Когда очередь заполнена,
+ * предыдущая стадия ждёт, поэтому число изображений в памяти не зависит от размера пакета:
+ * не больше {@code 2 * queueCapacity} плюс по одному на каждый поток.
+ */
+public class BatchProcessor {
+    private static final Logger log = Logger.getLogger(BatchProcessor.class);
+
+    // Маркер конца очереди
+    private static final Item POISON = new Item(null, null);
+
+    private final ImagePipeline pipeline;
+    private final int decodeThreads;
+    private final int computeThreads;
+    private final int encodeThreads;
+    private final int queueCapacity;
+    private volatile EncoderParams encoderParams = EncoderParams.defaults();
+
+    /**
+     * Создаёт обработчик с параметрами из config.properties
+     * (по умолчанию — по потоку обработки на ядро).
+     */
+    public BatchProcessor(ImagePipeline pipeline) {
+        this(pipeline,
+                Config.getIntProp(Constants.BATCH_DECODE_THREADS, 2),
+                Config.getIntProp(Constants.BATCH_COMPUTE_THREADS, Runtime.getRuntime().availableProcessors()),
+                Config.getIntProp(Constants.BATCH_ENCODE_THREADS, 2),
+                Config.getIntProp(Constants.BATCH_QUEUE_CAPACITY, 16));
+    }
+
+    /**
+     * @param pipeline       цепочка операций (каждый поток обработки получает свою копию)
+     * @param decodeThreads  число потоков чтения и декодирования
+     * @param computeThreads число потоков обработки
+     * @param encodeThreads  число потоков кодирования и записи
+     * @param queueCapacity  ёмкость каждой очереди между стадиями
+     */
+    public BatchProcessor(ImagePipeline pipeline, int decodeThreads, int computeThreads,
+                          int encodeThreads, int queueCapacity) {
+        if (decodeThreads < 1 || computeThreads < 1 || encodeThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Число потоков и ёмкость очереди должны быть положительными");
+        }
+        this.pipeline = pipeline;
+        this.decodeThreads = decodeThreads;
+        this.computeThreads = computeThreads;
+        this.encodeThreads = encodeThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Задаёт параметры кодирования результатов (качество JPEG, сжатие PNG и т.п.).
+     */
+    public void setEncoderParams(EncoderParams encoderParams) {
+        this.encoderParams = encoderParams;
+    }
+
+    /**
+     * Обрабатывает все файлы каталога, подходящие под шаблон, и сохраняет результаты
+     * под теми же именами в выходной каталог.
+     *
+     * @param inputDir  входной каталог
+     * @param glob      шаблон имён файлов, например {@code "*.{jpg,jpeg,png}"}
+     * @param outputDir выходной каталог (создаётся при необходимости)
+     * @return отчёт с пропускной способностью каждой стадии
+     */
+    public BatchReport run(Path inputDir, String glob, Path outputDir) throws IOException, InterruptedException {
+        Files.createDirectories(outputDir);
+        BatchReport report = new BatchReport();
+        BlockingQueue<Item> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> processed = new ArrayBlockingQueue<>(queueCapacity);
+
+        long start = System.nanoTime();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDir, glob)) {
+            Iterator<Path> paths = files.iterator();
+
+            List<Thread> decoders = startThreads("batch-decode", decodeThreads,
+                    () -> decodeLoop(paths, decoded, report));
+            List<Thread> workers = startThreads("batch-compute", computeThreads,
+                    () -> computeLoop(pipeline.copy(), decoded, processed, report));
+            List<Thread> encoders = startThreads("batch-encode", encodeThreads,
+                    () -> encodeLoop(outputDir, processed, report));
+
+            // Каждая стадия завершается, получив по маркеру на поток
+            joinAll(decoders);
+            for (int i = 0; i < computeThreads; i++) {
+                decoded.put(POISON);
+            }
+            joinAll(workers);
+            for (int i = 0; i < encodeThreads; i++) {
+                processed.put(POISON);
+            }
+            joinAll(encoders);
+        }
+        report.wallNanos = System.nanoTime() - start;
+
+        log.info(report);
+        return report;
+    }
+
+    private void decodeLoop(Iterator<Path> paths, BlockingQueue<Item> decoded, BatchReport report) {
+        while (true) {
+            Path path;
+            synchronized (paths) {
+                if (!paths.hasNext()) {
+                    return;
+                }
+                path = paths.next();
+            }
+            if (!Files.isRegularFile(path)) {
+                continue;
+            }
+            try {
+                long t0 = System.nanoTime();
+                Mat image = Imgcodecs.imread(path.toString());
+                if (image.empty()) {
+                    fail(report, path, "не удалось декодировать", null);
+                    continue;
+                }
+                report.decode.record(Files.size(path), System.nanoTime() - t0);
+                decoded.put(new Item(path, image));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                fail(report, path, "ошибка чтения", e);
+            }
+        }
+    }
+
+    private void computeLoop(ImagePipeline worker, BlockingQueue<Item> decoded,
+                             BlockingQueue<Item> processed, BatchReport report) {
+        try {
+            while (true) {
+                Item item = decoded.take();
+                if (item == POISON) {
+                    return;
+                }
+                Mat result = new Mat();
+                try {
+                    long t0 = System.nanoTime();
+                    worker.execute(item.image, result);
+                    report.compute.record(result.total() * result.elemSize(), System.nanoTime() - t0);
+                    processed.put(new Item(item.path, result));
+                    // Результат передан стадии записи
+                    result = null;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    fail(report, item.path, "ошибка обработки", e);
+                } finally {
+                    item.image.release();
+                    if (result != null) {
+                        result.release();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            worker.release();
+        }
+    }
+
+    private void encodeLoop(Path outputDir, BlockingQueue<Item> processed, BatchReport report) {
+        try {
+            while (true) {
+                Item item = processed.take();
+                if (item == POISON) {
+                    return;
+                }
+                Path target = outputDir.resolve(item.path.getFileName());
+                try {
+                    long t0 = System.nanoTime();
+                    ImageEncoder.write(target.toString(), item.image, encoderParams);
+                    report.encode.record(Files.size(target), System.nanoTime() - t0);
+                } catch (Exception e) {
+                    fail(report, item.path, "ошибка записи", e);
+                } finally {
+                    item.image.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void fail(BatchReport report, Path path, String reason, Exception e) {
+        report.failed.incrementAndGet();
+        log.error("Batch: " + path + " — " + reason, e);
+    }
+
+    private static List<Thread> startThreads(String name, int count, Runnable task) {
+        List<Thread> threads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Thread thread = new Thread(task, name + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static class Item {
+        final Path path;
+        final Mat image;
+
+        Item(Path path, Mat image) {
+            this.path = path;
+            this.image = image;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Итоги пакетной обработки: пропускная способность каждой стадии.
+ */
+public class BatchReport {
+
+    /**
+     * Счётчики одной стадии (декодирование, обработка, кодирование).
+     */
+    public static class StageStats {
+        private final String name;
+        private final AtomicLong images = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        StageStats(String name) {
+            this.name = name;
+        }
+
+        void record(long byteCount, long nanos) {
+            images.incrementAndGet();
+            bytes.addAndGet(byteCount);
+            busyNanos.addAndGet(nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getImages() {
+            return images.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getBusyNanos() {
+            return busyNanos.get();
+        }
+
+        /**
+         * @return изображений в секунду по времени работы всего пакета
+         */
+        public double imagesPerSecond(long wallNanos) {
+            return wallNanos == 0 ? 0 : images.get() * 1e9 / wallNanos;
+        }
+
+        /**
+         * @return мегабайт в секунду по времени работы всего пакета
+         */
+        public double megabytesPerSecond(long wallNanos) {
+            return wallNanos == 0 ? 0 : bytes.get() / 1e6 * 1e9 / wallNanos;
+        }
+    }
+
+    final StageStats decode = new StageStats("decode");
+    final StageStats compute = new StageStats("compute");
+    final StageStats encode = new StageStats("encode");
+    final AtomicLong failed = new AtomicLong();
+    long wallNanos;
+
+    public StageStats getDecode() {
+        return decode;
+    }
+
+    public StageStats getCompute() {
+        return compute;
+    }
+
+    public StageStats getEncode() {
+        return encode;
+    }
+
+    /**
+     * @return число успешно сохранённых изображений
+     */
+    public long getProcessed() {
+        return encode.getImages();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Batch: %d processed, %d failed in %.2f s%n",
+                getProcessed(), getFailed(), wallNanos / 1e9));
+        for (StageStats stage : new StageStats[]{decode, compute, encode}) {
+            sb.append(String.format("  %-8s %8d images %10.1f img/s %10.1f MB/s  busy %.2f s%n",
+                    stage.getName(), stage.getImages(), stage.imagesPerSecond(wallNanos),
+                    stage.megabytesPerSecond(wallNanos), stage.getBusyNanos() / 1e9));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,324 @@
+package org.example.cache;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.example.metrics.Metrics;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш декодированных изображений в памяти процесса с ключом (путь, флаги декодирования).
+ *
+ * <p>Запись действительна, пока у файла не изменились время изменения и размер; проверка —
+ * один вызов stat. Объём ограничен суммарным размером пикселей; при превышении вытесняются
+ * давно не использованные записи. Нативная память вытесненной записи освобождается, как только
+ * закрыт последний {@link Handle}.
+ *
+ * <p>OpenCV не умеет запрещать запись в Mat, поэтому общие матрицы выдаются только через
+ * {@link Handle} (менять их нельзя), а {@link #load} возвращает копию, которой вызывающий
+ * владеет как обычным результатом imread. Копирование на порядки дешевле декодирования.
+ */
+public class ImageCache implements ImageCacheMXBean {
+    private static final Logger log = Logger.getLogger(ImageCache.class);
+    private static volatile ImageCache shared;
+    private static volatile boolean sharedResolved;
+
+    /**
+     * Декодирование файла при промахе.
+     */
+    public interface Decoder {
+        Mat decode(String path, int flags);
+    }
+
+    private record Key(String path, int flags) {
+    }
+
+    private static final class Entry {
+        final Mat mat;
+        final long modified;
+        final long size;
+        final long bytes;
+        int refs;
+        boolean evicted;
+
+        Entry(Mat mat, long modified, long size) {
+            this.mat = mat;
+            this.modified = modified;
+            this.size = size;
+            this.bytes = mat.total() * mat.elemSize();
+        }
+    }
+
+    /**
+     * Общая матрица из кэша. Пока handle не закрыт, матрица не освобождается даже при вытеснении.
+     * Матрицу нельзя изменять и освобождать.
+     */
+    public final class Handle implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * @return общая матрица только для чтения
+         */
+        public Mat mat() {
+            return entry.mat;
+        }
+
+        /**
+         * @return собственная копия для изменения
+         */
+        public Mat copy() {
+            return entry.mat.clone();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                releaseEntry(entry);
+            }
+        }
+    }
+
+    private final long maxBytes;
+    private final Decoder decoder;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes максимальный объём пикселей в кэше
+     * @param decoder  декодирование при промахе
+     */
+    public ImageCache(long maxBytes, Decoder decoder) {
+        this.maxBytes = maxBytes;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Общий кэш, если в config.properties задан {@code imageCacheMaxMb} больше нуля; иначе {@code null}.
+     * Промахи декодируются через {@link MappedImageCache}, если он настроен. Кэш регистрируется
+     * в JMX и в {@link Metrics#scrape()}.
+     */
+    public static ImageCache shared() {
+        if (!sharedResolved) {
+            synchronized (ImageCache.class) {
+                if (!sharedResolved) {
+                    int maxMb = Config.getIntProp(Constants.IMAGE_CACHE_MAX_MB, 0);
+                    if (maxMb > 0) {
+                        shared = new ImageCache(maxMb * 1024L * 1024L, ImageCache::decodeFile);
+                        shared.register();
+                    }
+                    sharedResolved = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    private static Mat decodeFile(String path, int flags) {
+        MappedImageCache mapped = MappedImageCache.shared();
+        if (mapped != null) {
+            return mapped.load(path, flags);
+        }
+        Mat image = Imgcodecs.imread(path, flags);
+        if (image.empty()) {
+            throw new IllegalArgumentException("Не удалось загрузить изображение по пути: " + path);
+        }
+        return image;
+    }
+
+    /**
+     * Загружает изображение через кэш.
+     *
+     * @return собственная копия, принадлежащая вызывающему
+     */
+    public Mat load(String path, int flags) {
+        try (Handle handle = acquire(path, flags)) {
+            return handle.copy();
+        }
+    }
+
+    /**
+     * Выдаёт общую матрицу без копирования. Handle нужно закрыть.
+     */
+    public Handle acquire(String path, int flags) {
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Не удалось загрузить изображение по пути: " + path, e);
+        }
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        Key key = new Key(file.toString(), flags);
+
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.modified == modified && entry.size == size) {
+                hits++;
+                entry.refs++;
+                return new Handle(entry);
+            }
+            if (entry != null) {
+                // Файл изменился — старую запись убираем
+                entries.remove(key);
+                bytes -= entry.bytes;
+                retire(entry, evicted);
+            }
+            misses++;
+        }
+        releaseEvicted(evicted);
+
+        // Декодируем вне блокировки; при гонке лишняя копия просто освобождается
+        Entry created = new Entry(decoder.decode(path, flags), modified, size);
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null && existing.modified == modified && existing.size == size) {
+                existing.refs++;
+                evicted.add(created);
+                created = existing;
+            } else if (created.bytes <= maxBytes) {
+                if (existing != null) {
+                    bytes -= existing.bytes;
+                    retire(existing, evicted);
+                }
+                created.refs++;
+                entries.put(key, created);
+                bytes += created.bytes;
+                evict(evicted);
+            } else {
+                // Больше всего кэша — выдаём без кэширования
+                created.evicted = true;
+                created.refs++;
+            }
+        }
+        releaseEvicted(evicted);
+        return new Handle(created);
+    }
+
+    private void releaseEntry(Entry entry) {
+        boolean free;
+        synchronized (this) {
+            entry.refs--;
+            free = entry.evicted && entry.refs == 0;
+        }
+        if (free) {
+            entry.mat.release();
+        }
+    }
+
+    /**
+     * Вытесняет давно не использованные записи сверх лимита. Вызывается под блокировкой.
+     */
+    private void evict(List<Entry> free) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            bytes -= eldest.bytes;
+            evictions++;
+            retire(eldest, free);
+        }
+    }
+
+    private static void retire(Entry entry, List<Entry> free) {
+        entry.evicted = true;
+        if (entry.refs == 0) {
+            free.add(entry);
+        }
+    }
+
+    private static void releaseEvicted(List<Entry> free) {
+        for (Entry entry : free) {
+            if (entry.refs == 0) {
+                entry.mat.release();
+            }
+        }
+        free.clear();
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("org.example:type=ImageCache"));
+        } catch (Exception e) {
+            log.warn("Could not register JMX bean for image cache", e);
+        }
+        Metrics.export("imageapi_image_cache_hits_total", "counter", "Image cache hits.", this::getHits);
+        Metrics.export("imageapi_image_cache_misses_total", "counter", "Image cache misses.", this::getMisses);
+        Metrics.export("imageapi_image_cache_hit_ratio", "gauge", "Image cache hit ratio since start.", this::getHitRatio);
+        Metrics.export("imageapi_image_cache_evictions_total", "counter", "Image cache evictions.", this::getEvictions);
+        Metrics.export("imageapi_image_cache_bytes", "gauge", "Pixel bytes held by the image cache.", this::getBytes);
+    }
+
+    @Override
+    public void clear() {
+        List<Entry> free = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                retire(entry, free);
+            }
+            entries.clear();
+            bytes = 0;
+        }
+        releaseEvicted(free);
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.cache;
+
+/**
+ * Состояние кэша декодированных изображений в JMX ({@code org.example:type=ImageCache}).
+ */
+public interface ImageCacheMXBean {
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getEvictions();
+
+    long getBytes();
+
+    long getMaxBytes();
+
+    int getEntries();
+
+    void clear();
+}
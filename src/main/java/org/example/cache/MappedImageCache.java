@@ -0,0 +1,366 @@
+package org.example.cache;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Дисковый кэш декодированных изображений: повторная загрузка того же файла сводится
+ * к отображению файла кэша в память и одному копированию вместо декодирования JPEG/PNG.
+ *
+ * <p>Файл записи — заголовок (размер, тип, флаги декодирования, путь, время изменения и размер
+ * исходника) и «сырые» пиксели. Если исходник изменился, запись считается недействительной
+ * и перезаписывается. При превышении лимита удаляются давно не читавшиеся записи: при каждом
+ * попадании время изменения файла записи обновляется, по нему и определяется порядок.
+ *
+ * <p>Каталог можно делить между несколькими JVM на одной машине. Запись готовится во временном
+ * файле и публикуется атомарным переименованием, поэтому читатель видит либо старую, либо новую
+ * запись целиком и обходится без блокировок. Публикация и вытеснение выполняются под
+ * исключительной блокировкой файла {@code .lock} в каталоге кэша. Блокировка файла действует
+ * между процессами, а внутри JVM её нельзя взять дважды, поэтому все экземпляры на один каталог
+ * дополнительно синхронизируются общим монитором этого каталога.
+ */
+public class MappedImageCache {
+    private static final Logger log = Logger.getLogger(MappedImageCache.class);
+    private static volatile MappedImageCache shared;
+    private static volatile boolean sharedResolved;
+    // Мониторы каталогов кэша по настоящему пути — общие для всех экземпляров в JVM
+    private static final ConcurrentMap<Path, Object> directoryLocks = new ConcurrentHashMap<>();
+
+    private static final int MAGIC = 0x494D4331; // "IMC1"
+    private static final int FIXED_HEADER = 40;
+    private static final int DATA_ALIGNMENT = 64;
+    private static final String SUFFIX = ".img";
+
+    private record Candidate(Path file, FileTime lastRead, long size) {
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Path lockFile;
+    private final Object directoryLock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param dir      каталог кэша (создаётся при необходимости)
+     * @param maxBytes максимальный суммарный размер файлов записей
+     */
+    public MappedImageCache(Path dir, long maxBytes) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.lockFile = dir.resolve(".lock");
+        this.directoryLock = directoryLocks.computeIfAbsent(dir.toRealPath(), key -> new Object());
+    }
+
+    /**
+     * Общий кэш, если в config.properties задан каталог {@code mappedCacheDir}; иначе {@code null}.
+     * Лимит — {@code mappedCacheMaxMb} (по умолчанию 2048 МБ).
+     */
+    public static MappedImageCache shared() {
+        if (!sharedResolved) {
+            synchronized (MappedImageCache.class) {
+                if (!sharedResolved) {
+                    String dir = Config.getProp(Constants.MAPPED_CACHE_DIR);
+                    if (dir != null && !dir.isBlank()) {
+                        try {
+                            shared = new MappedImageCache(Paths.get(dir.trim()),
+                                    Config.getIntProp(Constants.MAPPED_CACHE_MAX_MB, 2048) * 1024L * 1024L);
+                        } catch (IOException e) {
+                            log.warn("Mapped image cache is disabled: cannot create " + dir, e);
+                        }
+                    }
+                    sharedResolved = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Загружает изображение из кэша или декодирует его и кладёт в кэш.
+     *
+     * @param path  путь к изображению
+     * @param flags флаги {@link Imgcodecs#imread(String, int)}
+     * @return новая матрица, принадлежащая вызывающему
+     */
+    public Mat load(String path, int flags) {
+        Path source = Paths.get(path).toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Не удалось загрузить изображение по пути: " + path, e);
+        }
+        Header expected = new Header(source.toString(), flags, attributes.lastModifiedTime().toMillis(),
+                attributes.size());
+        Path entry = dir.resolve(entryName(expected.source, flags));
+
+        Mat cached = read(entry, expected);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        Mat image = Imgcodecs.imread(path, flags);
+        if (image.empty()) {
+            throw new IllegalArgumentException("Не удалось загрузить изображение по пути: " + path);
+        }
+        try {
+            publish(entry, expected, image);
+        } catch (IOException e) {
+            // Кэш — только ускорение: ошибка записи не должна ломать загрузку
+            log.warn("Cannot store " + path + " in mapped image cache", e);
+        }
+        return image;
+    }
+
+    private Mat read(Path entry, Header expected) {
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            Header header = Header.read(buffer);
+            if (header == null || !header.sameSource(expected)
+                    || fileSize != header.dataOffset() + header.dataBytes()) {
+                // Не удаляем: запись могла уже обновить другая JVM, а устаревшую заменит публикация
+                invalidations.incrementAndGet();
+                return null;
+            }
+
+            buffer.position(header.dataOffset());
+            // Mat поверх отображённого файла; копия в собственную память — единственное копирование
+            Mat view = new Mat(header.rows, header.cols, header.type, buffer.slice());
+            Mat image = new Mat();
+            view.copyTo(image);
+            view.release();
+            touch(entry);
+            return image;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Cannot read mapped image cache entry " + entry, e);
+            return null;
+        }
+    }
+
+    private void publish(Path entry, Header header, Mat image) throws IOException {
+        header.rows = image.rows();
+        header.cols = image.cols();
+        header.type = image.type();
+        if (header.dataOffset() + header.dataBytes() > Integer.MAX_VALUE) {
+            // Один MappedByteBuffer не отображает больше 2 ГБ
+            return;
+        }
+        Path temp = dir.resolve(entry.getFileName() + "." + ProcessHandle.current().pid() + "."
+                + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        header.dataOffset() + header.dataBytes());
+                header.write(buffer);
+                buffer.position(header.dataOffset());
+                Mat view = new Mat(header.rows, header.cols, header.type, buffer.slice());
+                image.copyTo(view);
+                view.release();
+            }
+            synchronized (directoryLock) {
+                try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                     FileLock ignored = lockChannel.lock()) {
+                    Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    evict();
+                }
+            }
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Удаляет давно не читавшиеся записи сверх лимита. Вызывается под блокировкой каталога.
+     */
+    private void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        List<Candidate> entries = new ArrayList<>();
+        long total = 0;
+        for (Path file : files) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                entries.add(new Candidate(file, attributes.lastModifiedTime(), attributes.size()));
+                total += attributes.size();
+            } catch (NoSuchFileException e) {
+                // Удалена другим процессом
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparing(Candidate::lastRead));
+        for (Candidate eldest : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            deleteQuietly(eldest.file());
+            total -= eldest.size();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Запись могли вытеснить после чтения — порядок вытеснения не важен для корректности
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Cannot delete " + path, e);
+        }
+    }
+
+    private static String entryName(String source, int flags) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((source + "#" + flags).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 20) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Удаляет все записи кэша.
+     */
+    public void clear() throws IOException {
+        synchronized (directoryLock) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path file : stream) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return число записей, отброшенных из-за изменения исходника или повреждения файла
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Заголовок записи: magic, rows, cols, type, flags, длина пути, mtime, размер исходника, путь.
+     */
+    private static final class Header {
+        final String source;
+        final int flags;
+        final long sourceModified;
+        final long sourceSize;
+        int rows;
+        int cols;
+        int type;
+
+        Header(String source, int flags, long sourceModified, long sourceSize) {
+            this.source = source;
+            this.flags = flags;
+            this.sourceModified = sourceModified;
+            this.sourceSize = sourceSize;
+        }
+
+        static Header read(ByteBuffer buffer) {
+            if (buffer.remaining() < FIXED_HEADER || buffer.getInt(0) != MAGIC) {
+                return null;
+            }
+            int rows = buffer.getInt(4);
+            int cols = buffer.getInt(8);
+            int type = buffer.getInt(12);
+            int flags = buffer.getInt(16);
+            int pathLength = buffer.getInt(20);
+            if (rows <= 0 || cols <= 0 || pathLength < 0 || FIXED_HEADER + pathLength > buffer.remaining()) {
+                return null;
+            }
+            byte[] path = new byte[pathLength];
+            buffer.get(FIXED_HEADER, path);
+            Header header = new Header(new String(path, StandardCharsets.UTF_8), flags,
+                    buffer.getLong(24), buffer.getLong(32));
+            header.rows = rows;
+            header.cols = cols;
+            header.type = type;
+            return header;
+        }
+
+        void write(ByteBuffer buffer) {
+            byte[] path = source.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(0, MAGIC)
+                    .putInt(4, rows)
+                    .putInt(8, cols)
+                    .putInt(12, type)
+                    .putInt(16, flags)
+                    .putInt(20, path.length)
+                    .putLong(24, sourceModified)
+                    .putLong(32, sourceSize)
+                    .put(FIXED_HEADER, path);
+        }
+
+        boolean sameSource(Header other) {
+            return source.equals(other.source) && flags == other.flags
+                    && sourceModified == other.sourceModified && sourceSize == other.sourceSize;
+        }
+
+        int dataOffset() {
+            int length = FIXED_HEADER + source.getBytes(StandardCharsets.UTF_8).length;
+            return (length + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+        }
+
+        long dataBytes() {
+            return (long) rows * cols * CvType.ELEM_SIZE(type);
+        }
+    }
+}
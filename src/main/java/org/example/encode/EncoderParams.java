@@ -0,0 +1,123 @@
+package org.example.encode;
+
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Параметры кодирования изображения для {@code Imgcodecs.imwrite}/{@code imencode}.
+ *
+ * <pre>
+ * EncoderParams.jpeg(85).progressive(true).optimize(true)
+ * EncoderParams.png(3).strategy(Imgcodecs.IMWRITE_PNG_STRATEGY_RLE)
+ * EncoderParams.webp(80)
+ * </pre>
+ *
+ * <p>Формат при записи в файл определяется расширением пути; {@link #extension()} нужен
+ * только для кодирования в память.
+ */
+public class EncoderParams {
+    private final String extension;
+    private final List<Integer> values = new ArrayList<>();
+
+    private EncoderParams(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Параметры кодека по умолчанию (как у imwrite без параметров).
+     */
+    public static EncoderParams defaults() {
+        return new EncoderParams(null);
+    }
+
+    /**
+     * @param quality качество JPEG, 0–100 (по умолчанию в OpenCV 95)
+     */
+    public static EncoderParams jpeg(int quality) {
+        checkRange("Качество JPEG", quality, 0, 100);
+        return new EncoderParams(".jpg").set(Imgcodecs.IMWRITE_JPEG_QUALITY, quality);
+    }
+
+    public EncoderParams progressive(boolean value) {
+        return set(Imgcodecs.IMWRITE_JPEG_PROGRESSIVE, value ? 1 : 0);
+    }
+
+    /**
+     * Оптимизация таблиц Хаффмана: файл меньше, кодирование немного дольше.
+     */
+    public EncoderParams optimize(boolean value) {
+        return set(Imgcodecs.IMWRITE_JPEG_OPTIMIZE, value ? 1 : 0);
+    }
+
+    /**
+     * @param compression уровень сжатия PNG, 0–9 (по умолчанию в OpenCV 1); уровни выше 3
+     *                    заметно медленнее при небольшом выигрыше в размере
+     */
+    public static EncoderParams png(int compression) {
+        checkRange("Уровень сжатия PNG", compression, 0, 9);
+        return new EncoderParams(".png").set(Imgcodecs.IMWRITE_PNG_COMPRESSION, compression);
+    }
+
+    /**
+     * @param strategy стратегия zlib ({@code Imgcodecs.IMWRITE_PNG_STRATEGY_*})
+     */
+    public EncoderParams strategy(int strategy) {
+        return set(Imgcodecs.IMWRITE_PNG_STRATEGY, strategy);
+    }
+
+    /**
+     * @param quality качество WebP, 1–100; больше 100 — сжатие без потерь
+     */
+    public static EncoderParams webp(int quality) {
+        checkRange("Качество WebP", quality, 1, 101);
+        return new EncoderParams(".webp").set(Imgcodecs.IMWRITE_WEBP_QUALITY, quality);
+    }
+
+    /**
+     * Произвольный параметр {@code Imgcodecs.IMWRITE_*}.
+     */
+    public EncoderParams set(int flag, int value) {
+        for (int i = 0; i < values.size(); i += 2) {
+            if (values.get(i) == flag) {
+                values.set(i + 1, value);
+                return this;
+            }
+        }
+        values.add(flag);
+        values.add(value);
+        return this;
+    }
+
+    /**
+     * @return расширение формата для кодирования в память ({@code ".jpg"} и т.п.) или null для {@link #defaults()}
+     */
+    public String extension() {
+        return extension;
+    }
+
+    public MatOfInt toMatOfInt() {
+        MatOfInt result = new MatOfInt();
+        if (!values.isEmpty()) {
+            int[] array = new int[values.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = values.get(i);
+            }
+            result.fromArray(array);
+        }
+        return result;
+    }
+
+    private static void checkRange(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " должно быть в диапазоне " + min + "–" + max + ": " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (extension == null ? "default" : extension.substring(1)) + values;
+    }
+}
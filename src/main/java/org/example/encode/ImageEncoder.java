@@ -0,0 +1,176 @@
+package org.example.encode;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.opencv.core.CvException;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фоновое кодирование и запись изображений.
+ *
+ * <p>Кодирование выполняется пулом потоков с ограниченной очередью. Если очередь заполнена,
+ * {@link #save}/{@link #encode} блокируют вызывающего, пока не освободится место, — производитель
+ * не может уйти вперёд и набрать в памяти неограниченное число ожидающих изображений.
+ * Ошибки не теряются: будущее завершается исключением, ошибка пишется в лог и считается
+ * в {@link #getFailures()}.
+ *
+ * <p>Матрицу нельзя изменять и освобождать, пока будущее не завершено.
+ */
+public class ImageEncoder implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(ImageEncoder.class);
+
+    private final ThreadPoolExecutor pool;
+    // Места в пуле: выполняющиеся задачи плюс очередь
+    private final Semaphore slots;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Создаёт кодировщик с параметрами из config.properties
+     * (по умолчанию — поток на ядро и очередь на 16 изображений).
+     */
+    public ImageEncoder() {
+        this(Config.getIntProp(Constants.ENCODE_THREADS, Runtime.getRuntime().availableProcessors()),
+                Config.getIntProp(Constants.ENCODE_QUEUE_CAPACITY, 16));
+    }
+
+    /**
+     * @param threads       число потоков кодирования
+     * @param queueCapacity число изображений, ожидающих кодирования, после которого вызовы блокируются
+     */
+    public ImageEncoder(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Число потоков и ёмкость очереди должны быть положительными");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "image-encode-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        this.slots = new Semaphore(threads + queueCapacity);
+    }
+
+    /**
+     * Записывает изображение в файл (формат — по расширению) синхронно.
+     *
+     * @throws IllegalStateException если кодек не смог записать файл
+     */
+    public static void write(String path, Mat image, EncoderParams params) {
+        MatOfInt values = params.toMatOfInt();
+        try {
+            if (!Imgcodecs.imwrite(path, image, values)) {
+                throw new IllegalStateException("Не удалось сохранить изображение по пути: " + path);
+            }
+        } catch (CvException e) {
+            // Часть ошибок кодеков приходит исключением OpenCV, часть — результатом false; сводим к одному виду
+            throw new IllegalStateException("Не удалось сохранить изображение по пути: " + path, e);
+        } finally {
+            values.release();
+        }
+    }
+
+    /**
+     * Кодирует изображение в память синхронно, например для отправки в сокет.
+     *
+     * @param params параметры с форматом ({@link EncoderParams#jpeg}, {@link EncoderParams#png}, ...)
+     * @return закодированные байты; матрица принадлежит вызывающему
+     */
+    public static MatOfByte toBytes(Mat image, EncoderParams params) {
+        if (params.extension() == null) {
+            throw new IllegalArgumentException("Для кодирования в память нужен формат (jpeg, png, webp)");
+        }
+        MatOfByte buffer = new MatOfByte();
+        MatOfInt values = params.toMatOfInt();
+        try {
+            if (!Imgcodecs.imencode(params.extension(), image, buffer, values)) {
+                buffer.release();
+                throw new IllegalStateException("Не удалось закодировать изображение в формат " + params.extension());
+            }
+            return buffer;
+        } catch (CvException e) {
+            buffer.release();
+            throw new IllegalStateException("Не удалось закодировать изображение в формат " + params.extension(), e);
+        } finally {
+            values.release();
+        }
+    }
+
+    /**
+     * Ставит запись в очередь; при заполненной очереди ждёт свободного места.
+     */
+    public CompletableFuture<Void> save(String path, Mat image, EncoderParams params) throws InterruptedException {
+        return submit(path, () -> {
+            write(path, image, params);
+            return null;
+        });
+    }
+
+    /**
+     * Ставит кодирование в память в очередь; при заполненной очереди ждёт свободного места.
+     */
+    public CompletableFuture<MatOfByte> encode(Mat image, EncoderParams params) throws InterruptedException {
+        return submit("memory" + params.extension(), () -> toBytes(image, params));
+    }
+
+    private <T> CompletableFuture<T> submit(String target, Callable<T> call) throws InterruptedException {
+        slots.acquire();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    T result = call.call();
+                    completed.increment();
+                    future.complete(result);
+                } catch (Throwable e) {
+                    failures.increment();
+                    log.error("Encoding to " + target + " failed", e);
+                    future.completeExceptionally(e);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Кодировщик уже закрыт
+            slots.release();
+            failures.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return число изображений, которые не удалось закодировать или записать
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Дожидается записи всех поставленных изображений и останавливает потоки.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        log.info("Image encoder closed, encoded " + completed.sum() + ", failed " + failures.sum());
+    }
+}
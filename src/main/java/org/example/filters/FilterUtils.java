@@ -1,11 +1,21 @@
 package org.example.filters;
 
+import org.example.Config;
+import org.example.Constants;
+import org.example.tiles.ParallelTiledProcessor;
+import org.example.tiles.RoiProcessor;
+import org.example.tiles.TileOperation;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class FilterUtils {
 
+    private static volatile ForkJoinPool pool;
+
     public static FilterResults applyFilters(String imagePath, int kernelSize) {
         Mat src = Imgcodecs.imread(imagePath);
         if (src.empty()) {
@@ -35,6 +45,74 @@ public class FilterUtils {
         Mat bilateral = new Mat();
         Imgproc.bilateralFilter(src, bilateral, kernelSize, 75, 75);
 
+        src.release();
+        return new FilterResults(blur, gaussian, median, bilateral);
+    }
+
+    /**
+     * Те же четыре фильтра, что и {@link #applyFilters(String, int)}, но только в области {@code roi}
+     * уже загруженного изображения. Края области обрабатываются по соседним пикселям изображения,
+     * поэтому результаты совпадают с соответствующей частью результатов для всего изображения.
+     *
+     * @return результаты размером с область
+     */
+    public static FilterResults applyFilters(Mat src, Rect roi, int kernelSize) {
+        return new FilterResults(
+                RoiProcessor.apply(src, roi, TileOperation.blur(kernelSize)),
+                RoiProcessor.apply(src, roi, TileOperation.gaussianBlur(kernelSize)),
+                RoiProcessor.apply(src, roi, TileOperation.medianBlur(kernelSize)),
+                RoiProcessor.apply(src, roi, TileOperation.bilateralFilter(kernelSize, 75, 75)));
+    }
+
+    /**
+     * То же, что {@link #applyFilters(String, int)}, но четыре фильтра считаются одновременно,
+     * а каждый из них — параллельно по полосам изображения. Результат побитово совпадает
+     * с последовательным вариантом.
+     *
+     * @param imagePath  путь к изображению
+     * @param kernelSize размер ядра
+     * @param pool       пул fork/join (его параллелизм задаёт число потоков)
+     */
+    public static FilterResults applyFiltersParallel(String imagePath, int kernelSize, ForkJoinPool pool) {
+        Mat src = Imgcodecs.imread(imagePath);
+        if (src.empty()) {
+            System.err.println("Cannot read image: " + imagePath);
+            return null;
+        }
+
+        ParallelTiledProcessor bands = ParallelTiledProcessor.forPool(pool, src.rows());
+        Mat blur = new Mat();
+        Mat gaussian = new Mat();
+        Mat median = new Mat();
+        Mat bilateral = new Mat();
+
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(
+                ForkJoinTask.adapt(() -> bands.process(src, TileOperation.blur(kernelSize), blur)),
+                ForkJoinTask.adapt(() -> bands.process(src, TileOperation.gaussianBlur(kernelSize), gaussian)),
+                ForkJoinTask.adapt(() -> bands.process(src, TileOperation.medianBlur(kernelSize), median)),
+                ForkJoinTask.adapt(() -> bands.process(src, TileOperation.bilateralFilter(kernelSize, 75, 75), bilateral)))));
+
+        src.release();
         return new FilterResults(blur, gaussian, median, bilateral);
     }
+
+    /**
+     * Параллельный вариант на общем пуле; число потоков задаётся параметром
+     * {@code filterParallelism} в config.properties (по умолчанию — число ядер).
+     */
+    public static FilterResults applyFiltersParallel(String imagePath, int kernelSize) {
+        return applyFiltersParallel(imagePath, kernelSize, sharedPool());
+    }
+
+    private static ForkJoinPool sharedPool() {
+        if (pool == null) {
+            synchronized (FilterUtils.class) {
+                if (pool == null) {
+                    pool = new ForkJoinPool(Config.getIntProp(Constants.FILTER_PARALLELISM,
+                            Runtime.getRuntime().availableProcessors()));
+                }
+            }
+        }
+        return pool;
+    }
 }
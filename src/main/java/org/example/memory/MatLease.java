@@ -0,0 +1,49 @@
+package org.example.memory;
+
+import org.opencv.core.Mat;
+
+/**
+ * Временная матрица, взятая из {@link MatPool}. Возвращается в пул при закрытии:
+ *
+ * <pre>
+ * try (MatLease gray = MatPool.shared().acquire(rows, cols, CvType.CV_8UC1)) {
+ *     Imgproc.cvtColor(src, gray.mat(), Imgproc.COLOR_BGR2GRAY);
+ *     ...
+ * }
+ * </pre>
+ *
+ * После закрытия матрицей пользоваться нельзя — она может быть выдана другому вызывающему.
+ */
+public final class MatLease implements AutoCloseable {
+    private final MatPool pool;
+    private final Mat mat;
+    private final long bytes;
+    private final MatPool.LeakTracker tracker;
+    private boolean closed;
+
+    MatLease(MatPool pool, Mat mat, long bytes, MatPool.LeakTracker tracker) {
+        this.pool = pool;
+        this.mat = mat;
+        this.bytes = bytes;
+        this.tracker = tracker;
+    }
+
+    public Mat mat() {
+        if (closed) {
+            throw new IllegalStateException("Матрица уже возвращена в пул");
+        }
+        return mat;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (tracker != null) {
+            tracker.returned();
+        }
+        pool.giveBack(mat, bytes);
+    }
+}
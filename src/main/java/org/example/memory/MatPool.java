@@ -0,0 +1,257 @@
+package org.example.memory;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.lang.ref.Cleaner;
+import java.util.*;
+
+/**
+ * Пул переиспользуемых матриц с ключом (строки, столбцы, тип).
+ *
+ * <p>Свободные матрицы хранятся до лимита {@code maxIdleBytes}; при превышении
+ * нативная память самых давно возвращённых освобождается сразу ({@link Mat#release()}),
+ * не дожидаясь сборщика мусора.
+ *
+ * <p>В режиме поиска утечек для каждой выдачи запоминается место вызова;
+ * {@link #reportLeaks()} перечисляет невозвращённые матрицы, а выдачи, собранные
+ * сборщиком мусора без закрытия, сразу пишутся в лог.
+ */
+public class MatPool {
+    private static final Logger log = Logger.getLogger(MatPool.class);
+    private static final Cleaner cleaner = Cleaner.create();
+    private static volatile MatPool shared;
+
+    private record Key(int rows, int cols, int type) {
+        static Key of(Mat mat) {
+            return new Key(mat.rows(), mat.cols(), mat.type());
+        }
+
+        long bytes() {
+            return (long) rows * cols * CvType.ELEM_SIZE(type);
+        }
+    }
+
+    private final long maxIdleBytes;
+    private final boolean leakDetection;
+
+    private final Map<Key, ArrayDeque<Mat>> idle = new HashMap<>();
+    // Свободные матрицы в порядке возврата — для вытеснения самых старых
+    private final LinkedHashMap<Mat, Key> idleOrder = new LinkedHashMap<>();
+    private final Set<LeakTracker> outstanding = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long idleBytes;
+    private long leasedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxIdleBytes  максимальный объём свободных матриц в пуле
+     * @param leakDetection запоминать место выдачи каждой матрицы
+     */
+    public MatPool(long maxIdleBytes, boolean leakDetection) {
+        this.maxIdleBytes = maxIdleBytes;
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Общий пул. Лимит задаётся параметром {@code matPoolMaxMb} (по умолчанию 256 МБ),
+     * поиск утечек — {@code matPoolLeakDetection=1}.
+     */
+    public static MatPool shared() {
+        if (shared == null) {
+            synchronized (MatPool.class) {
+                if (shared == null) {
+                    shared = new MatPool(Config.getIntProp(Constants.MAT_POOL_MAX_MB, 256) * 1024L * 1024L,
+                            Config.getIntProp(Constants.MAT_POOL_LEAK_DETECTION, 0) != 0);
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Выдаёт матрицу заданного размера и типа — свободную из пула или новую.
+     * Содержимое матрицы не определено.
+     */
+    public MatLease acquire(int rows, int cols, int type) {
+        Key key = new Key(rows, cols, type);
+        Mat mat = null;
+        synchronized (this) {
+            ArrayDeque<Mat> free = idle.get(key);
+            if (free != null) {
+                mat = free.pollLast();
+                if (free.isEmpty()) {
+                    idle.remove(key);
+                }
+                idleOrder.remove(mat);
+                idleBytes -= key.bytes();
+                hits++;
+            } else {
+                misses++;
+            }
+            leasedBytes += key.bytes();
+        }
+        if (mat == null) {
+            mat = new Mat(rows, cols, type);
+        }
+
+        if (leakDetection) {
+            LeakTracker tracker = new LeakTracker(this, new Throwable("Mat " + rows + "x" + cols + " " + CvType.typeToString(type)
+                    + " acquired at"));
+            MatLease lease = new MatLease(this, mat, key.bytes(), tracker);
+            synchronized (this) {
+                outstanding.add(tracker);
+            }
+            tracker.cleanable = cleaner.register(lease, tracker);
+            return lease;
+        }
+        return new MatLease(this, mat, key.bytes(), null);
+    }
+
+    /**
+     * Выдаёт матрицу того же размера и типа, что и образец.
+     */
+    public MatLease acquireLike(Mat sample) {
+        return acquire(sample.rows(), sample.cols(), sample.type());
+    }
+
+    void giveBack(Mat mat, long leased) {
+        synchronized (this) {
+            leasedBytes -= leased;
+        }
+        if (mat.empty()) {
+            return;
+        }
+        // Вызывающий мог пересоздать матрицу — ключ берём по фактическому размеру
+        Key key = Key.of(mat);
+        long bytes = key.bytes();
+        if (bytes > maxIdleBytes) {
+            mat.release();
+            return;
+        }
+        List<Mat> evicted = new ArrayList<>();
+        synchronized (this) {
+            idle.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(mat);
+            idleOrder.put(mat, key);
+            idleBytes += bytes;
+            Iterator<Map.Entry<Mat, Key>> it = idleOrder.entrySet().iterator();
+            while (idleBytes > maxIdleBytes && it.hasNext()) {
+                Map.Entry<Mat, Key> eldest = it.next();
+                it.remove();
+                ArrayDeque<Mat> free = idle.get(eldest.getValue());
+                free.remove(eldest.getKey());
+                if (free.isEmpty()) {
+                    idle.remove(eldest.getValue());
+                }
+                idleBytes -= eldest.getValue().bytes();
+                evictions++;
+                evicted.add(eldest.getKey());
+            }
+        }
+        for (Mat m : evicted) {
+            m.release();
+        }
+    }
+
+    /**
+     * Освобождает все свободные матрицы пула.
+     */
+    public void clear() {
+        List<Mat> all;
+        synchronized (this) {
+            all = new ArrayList<>(idleOrder.keySet());
+            idle.clear();
+            idleOrder.clear();
+            idleBytes = 0;
+        }
+        for (Mat m : all) {
+            m.release();
+        }
+    }
+
+    /**
+     * @return описания невозвращённых матриц с местом выдачи (только в режиме поиска утечек)
+     */
+    public List<String> reportLeaks() {
+        List<LeakTracker> leaks;
+        synchronized (this) {
+            leaks = new ArrayList<>(outstanding);
+        }
+        List<String> result = new ArrayList<>();
+        for (LeakTracker leak : leaks) {
+            String report = describe(leak.site);
+            log.warn("Mat was not returned to pool: " + report);
+            result.add(report);
+        }
+        return result;
+    }
+
+    public synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+
+    /**
+     * @return объём матриц, выданных и ещё не возвращённых
+     */
+    public synchronized long getLeasedBytes() {
+        return leasedBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static String describe(Throwable site) {
+        StringBuilder sb = new StringBuilder(site.getMessage());
+        for (StackTraceElement element : site.getStackTrace()) {
+            sb.append("\n\tat ").append(element);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Состояние выдачи для режима поиска утечек. Не ссылается на саму выдачу,
+     * чтобы Cleaner мог обнаружить её сборку.
+     */
+    static final class LeakTracker implements Runnable {
+        private final MatPool pool;
+        private final Throwable site;
+        private Cleaner.Cleanable cleanable;
+        private volatile boolean returned;
+
+        LeakTracker(MatPool pool, Throwable site) {
+            this.pool = pool;
+            this.site = site;
+        }
+
+        void returned() {
+            returned = true;
+            synchronized (pool) {
+                pool.outstanding.remove(this);
+            }
+            cleanable.clean();
+        }
+
+        @Override
+        public void run() {
+            if (!returned) {
+                synchronized (pool) {
+                    pool.outstanding.remove(this);
+                }
+                log.warn("Mat lease was garbage-collected without close(): " + describe(site));
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.memory;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Область видимости временных нативных матриц. Всё, что зарегистрировано через
+ * {@link #track}, освобождается ({@link Mat#release()}) при закрытии области,
+ * а не когда сборщик мусора доберётся до Java-обёрток:
+ *
+ * <pre>
+ * try (NativeScope scope = NativeScope.open()) {
+ *     Mat rotMat = scope.track(Imgproc.getRotationMatrix2D(center, angle, 1.0));
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Статические счётчики показывают, сколько нативной памяти сейчас удерживается
+ * открытыми областями и пулом {@link MatPool}, — по ним удобно строить оповещения.
+ */
+public final class NativeScope implements AutoCloseable {
+    private static final Set<NativeScope> openScopes = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong releasedBytes = new AtomicLong();
+
+    private final List<Mat> mats = new ArrayList<>();
+    private boolean closed;
+
+    private NativeScope() {
+    }
+
+    public static NativeScope open() {
+        NativeScope scope = new NativeScope();
+        openScopes.add(scope);
+        return scope;
+    }
+
+    /**
+     * Регистрирует матрицу для освобождения при закрытии области.
+     *
+     * @return та же матрица
+     */
+    public synchronized <T extends Mat> T track(T mat) {
+        if (closed) {
+            throw new IllegalStateException("Область уже закрыта");
+        }
+        mats.add(mat);
+        return mat;
+    }
+
+    /**
+     * Регистрирует все матрицы списка (например, контуры из findContours).
+     *
+     * @return тот же список
+     */
+    public synchronized <T extends Mat> List<T> trackAll(List<T> list) {
+        for (T mat : list) {
+            track(mat);
+        }
+        return list;
+    }
+
+    /**
+     * @return новая пустая матрица, освобождаемая при закрытии области
+     */
+    public Mat mat() {
+        return track(new Mat());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long bytes = 0;
+        for (Mat mat : mats) {
+            bytes += bytes(mat);
+            mat.release();
+        }
+        mats.clear();
+        openScopes.remove(this);
+        releasedBytes.addAndGet(bytes);
+    }
+
+    private synchronized long trackedBytes() {
+        long bytes = 0;
+        for (Mat mat : mats) {
+            bytes += bytes(mat);
+        }
+        return bytes;
+    }
+
+    /**
+     * Объём данных матрицы; представления (submat, rowRange) данными не владеют и не считаются.
+     */
+    private static long bytes(Mat mat) {
+        if (mat.isSubmatrix()) {
+            return 0;
+        }
+        return mat.total() * mat.elemSize();
+    }
+
+    /**
+     * @return нативная память матриц, зарегистрированных в открытых сейчас областях
+     */
+    public static long scopedBytes() {
+        long bytes = 0;
+        for (NativeScope scope : openScopes) {
+            bytes += scope.trackedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return вся учтённая живая нативная память: открытые области плюс выданные и свободные матрицы пула
+     */
+    public static long liveBytes() {
+        MatPool pool = MatPool.shared();
+        return scopedBytes() + pool.getLeasedBytes() + pool.getIdleBytes();
+    }
+
+    /**
+     * @return сколько байт освобождено закрытыми областями с начала работы
+     */
+    public static long releasedBytes() {
+        return releasedBytes.get();
+    }
+
+    public static int openScopeCount() {
+        return openScopes.size();
+    }
+}
@@ -0,0 +1,274 @@
+package org.example.metrics;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.example.memory.NativeScope;
+import org.opencv.core.Mat;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Реестр метрик операций ImageAPI.
+ *
+ * <p>Включается параметром {@code metricsEnabled=1} или {@link #setEnabled}. В выключенном
+ * состоянии {@link #start} возвращает null после чтения одного volatile-поля, а {@link #stop}
+ * сразу возвращает результат — замеров и аллокаций нет.
+ *
+ * <pre>
+ * Metrics.Sample sample = Metrics.start("resize", img);
+ * return Metrics.stop(sample, processor.resizeImage(img, width, height));
+ * </pre>
+ *
+ * <p>Каждая операция регистрируется в JMX при первом вызове; текстовый формат
+ * Prometheus отдаёт {@link #scrape()} (см. также {@link MetricsHttpServer}).
+ */
+public final class Metrics {
+    private static final Logger log = Logger.getLogger(Metrics.class);
+    private static final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+    private static final com.sun.management.ThreadMXBean threads = threadBean();
+
+    private static volatile boolean enabled = Config.getIntProp(Constants.METRICS_ENABLED, 0) != 0;
+
+    private Metrics() {
+    }
+
+    /**
+     * Начатый замер одной операции.
+     */
+    public static final class Sample {
+        private final OperationMetrics operation;
+        private final long inputPixels;
+        private final long startNanos;
+        private final long startAllocated;
+        private final long startNative;
+
+        private Sample(OperationMetrics operation, long inputPixels) {
+            this.operation = operation;
+            this.inputPixels = inputPixels;
+            this.startAllocated = allocatedBytes();
+            this.startNative = NativeScope.liveBytes();
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Начинает замер.
+     *
+     * @param operation имя операции
+     * @param input     входное изображение (для подсчёта пикселей), может быть null
+     * @return замер или null, если метрики выключены
+     */
+    public static Sample start(String operation, Mat input) {
+        if (!enabled) {
+            return null;
+        }
+        return new Sample(operation(operation), input == null ? 0 : input.total());
+    }
+
+    /**
+     * Начинает замер операции, читающей только часть входа (например, область изображения).
+     *
+     * @param inputPixels число обрабатываемых входных пикселей
+     */
+    public static Sample start(String operation, long inputPixels) {
+        if (!enabled) {
+            return null;
+        }
+        return new Sample(operation(operation), inputPixels);
+    }
+
+    /**
+     * Завершает замер операции, вернувшей изображение. Прирост нативной памяти —
+     * изменение {@link NativeScope#liveBytes()} за вызов плюс размер результата.
+     *
+     * @return output без изменений
+     */
+    public static Mat stop(Sample sample, Mat output) {
+        if (sample != null) {
+            long nanos = System.nanoTime() - sample.startNanos;
+            long outputPixels = output == null ? 0 : output.total();
+            long outputBytes = output == null ? 0 : output.total() * output.elemSize();
+            finish(sample, nanos, outputPixels, outputBytes);
+        }
+        return output;
+    }
+
+    /**
+     * Завершает замер операции без изображения на выходе.
+     */
+    public static void stop(Sample sample) {
+        if (sample != null) {
+            finish(sample, System.nanoTime() - sample.startNanos, 0, 0);
+        }
+    }
+
+    /**
+     * Завершает замер операции, вернувшей число.
+     *
+     * @return result без изменений
+     */
+    public static int stop(Sample sample, int result) {
+        stop(sample);
+        return result;
+    }
+
+    private static void finish(Sample sample, long nanos, long outputPixels, long outputBytes) {
+        long allocated = allocatedBytes() - sample.startAllocated;
+        long nativeDelta = NativeScope.liveBytes() - sample.startNative + outputBytes;
+        sample.operation.record(nanos, sample.inputPixels, outputPixels, allocated, nativeDelta);
+    }
+
+    /**
+     * @return метрики операции (создаются и регистрируются в JMX при первом обращении)
+     */
+    public static OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return operations.computeIfAbsent(name, n -> {
+            OperationMetrics created = new OperationMetrics(n);
+            register(created);
+            return created;
+        });
+    }
+
+    public static List<OperationMetrics> operations() {
+        List<OperationMetrics> result = new ArrayList<>(operations.values());
+        result.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return result;
+    }
+
+    private record Series(String type, String help, DoubleSupplier value) {
+    }
+
+    /**
+     * Регистрирует дополнительную метрику без метки операции (например, состояние кэша),
+     * которую {@link #scrape()} отдаёт вместе с метриками операций. Повторная регистрация
+     * с тем же именем заменяет источник значения.
+     *
+     * @param name  имя в формате Prometheus
+     * @param type  {@code counter} или {@code gauge}
+     * @param help  описание
+     * @param value источник текущего значения
+     */
+    public static void export(String name, String type, String help, DoubleSupplier value) {
+        series.put(name, new Series(type, help, value));
+    }
+
+    public static void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Метрики в текстовом формате Prometheus.
+     */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder();
+        List<OperationMetrics> all = operations();
+
+        sb.append("# HELP imageapi_latency_seconds Latency of ImageAPI operations.\n");
+        sb.append("# TYPE imageapi_latency_seconds summary\n");
+        for (OperationMetrics m : all) {
+            LatencyHistogram latency = m.getLatency();
+            for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+                sample(sb, "imageapi_latency_seconds", m, "quantile=\"" + q + "\"",
+                        latency.getValueAtQuantile(q) / 1e9);
+            }
+            sample(sb, "imageapi_latency_seconds_sum", m, null, latency.getSum() / 1e9);
+            sample(sb, "imageapi_latency_seconds_count", m, null, latency.getCount());
+        }
+
+        family(sb, "imageapi_input_pixels_total", "counter", "Input pixels processed.", all,
+                OperationMetrics::getInputPixels);
+        family(sb, "imageapi_output_pixels_total", "counter", "Output pixels produced.", all,
+                OperationMetrics::getOutputPixels);
+        family(sb, "imageapi_allocated_bytes_total", "counter", "Java heap bytes allocated by the calling thread.", all,
+                OperationMetrics::getAllocatedBytes);
+        // Прирост нативной памяти может быть отрицательным (операция освободила пул), поэтому gauge
+        family(sb, "imageapi_native_bytes", "gauge", "Net native memory retained by operations (results and pools).",
+                all, OperationMetrics::getNativeBytes);
+
+        List<String> names = new ArrayList<>(series.keySet());
+        names.sort(null);
+        for (String name : names) {
+            Series s = series.get(name);
+            sb.append("# HELP ").append(name).append(' ').append(s.help()).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(s.type()).append('\n');
+            sb.append(name).append(' ').append(format(s.value().getAsDouble())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private interface LongMetric {
+        long get(OperationMetrics metrics);
+    }
+
+    private static void family(StringBuilder sb, String name, String type, String help,
+                               List<OperationMetrics> all, LongMetric value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (OperationMetrics m : all) {
+            sample(sb, name, m, null, value.get(m));
+        }
+    }
+
+    private static void sample(StringBuilder sb, String name, OperationMetrics m, String extraLabel, double value) {
+        sb.append(name).append("{operation=\"").append(m.getName()).append('"');
+        if (extraLabel != null) {
+            sb.append(',').append(extraLabel);
+        }
+        sb.append("} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.9f", value);
+    }
+
+    private static void register(OperationMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName("org.example:type=ImageAPI,operation=" + ObjectName.quote(metrics.getName()));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            }
+        } catch (Exception e) {
+            log.warn("Could not register JMX bean for operation " + metrics.getName(), e);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP-эндпоинт {@code /metrics} с метриками в текстовом формате Prometheus.
+ * Слушает только локальный интерфейс.
+ */
+public class MetricsHttpServer implements AutoCloseable {
+    private static final Logger log = Logger.getLogger(MetricsHttpServer.class);
+    private static MetricsHttpServer configured;
+
+    private final HttpServer server;
+
+    /**
+     * @param port порт (0 — любой свободный)
+     */
+    public MetricsHttpServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = Metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        log.info("Metrics endpoint listening on http://localhost:" + getPort() + "/metrics");
+    }
+
+    /**
+     * Запускает эндпоинт на порту {@code metricsPort}, если он задан. Повторные вызовы ничего не делают.
+     */
+    public static synchronized void startFromConfig() {
+        int port = Config.getIntProp(Constants.METRICS_PORT, 0);
+        if (port <= 0 || configured != null) {
+            return;
+        }
+        try {
+            configured = new MetricsHttpServer(port);
+        } catch (IOException e) {
+            log.warn("Could not start metrics endpoint on port " + port, e);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопленные метрики одной операции: число вызовов, гистограмма задержек,
+ * пиксели на входе и выходе, байты кучи, выделенные потоком, и прирост нативной памяти.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inputPixels = new LongAdder();
+    private final LongAdder outputPixels = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder nativeBytes = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long inPixels, long outPixels, long allocated, long nativeDelta) {
+        latency.record(nanos);
+        inputPixels.add(inPixels);
+        outputPixels.add(outPixels);
+        allocatedBytes.add(allocated);
+        nativeBytes.add(nativeDelta);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = latency.getCount();
+        return count == 0 ? 0 : latency.getSum() / 1000.0 / count;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getValueAtQuantile(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.getValueAtQuantile(0.9) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getValueAtQuantile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getValueAtQuantile(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public long getInputPixels() {
+        return inputPixels.sum();
+    }
+
+    @Override
+    public long getOutputPixels() {
+        return outputPixels.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getNativeBytes() {
+        return nativeBytes.sum();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        inputPixels.reset();
+        outputPixels.reset();
+        allocatedBytes.reset();
+        nativeBytes.reset();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.metrics;
+
+/**
+ * Метрики одной операции ImageAPI в JMX ({@code org.example:type=ImageAPI,operation=<имя>}).
+ * Времена — в микросекундах.
+ */
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    long getInputPixels();
+
+    long getOutputPixels();
+
+    long getAllocatedBytes();
+
+    long getNativeBytes();
+
+    void reset();
+}
@@ -0,0 +1,12 @@
+package org.example.preview;
+
+import org.opencv.core.Mat;
+
+/**
+ * Предпросмотр отключён: изображения никуда не выводятся.
+ */
+public class NoOpPreviewSink implements PreviewSink {
+    @Override
+    public void show(Mat img) {
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.preview;
+
+import org.example.Config;
+import org.example.Constants;
+import org.opencv.core.Mat;
+
+import java.awt.GraphicsEnvironment;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Куда отправляются изображения, переданные в {@code ImageAPI.showImage}.
+ *
+ * <p>Реализация выбирается параметром {@code previewMode} в config.properties:
+ * <ul>
+ *     <li>{@code none} — ничего не показывать (для CI и серверов);</li>
+ *     <li>{@code window} — одно переиспользуемое окно, кадры меняются в нём на месте;</li>
+ *     <li>{@code thumbnails} — уменьшенные копии пишутся на диск не чаще заданного интервала;</li>
+ *     <li>{@code auto} (по умолчанию) — {@code window}, если есть дисплей, иначе {@code none}.</li>
+ * </ul>
+ */
+public interface PreviewSink extends AutoCloseable {
+
+    void show(Mat img);
+
+    @Override
+    default void close() {
+    }
+
+    static PreviewSink fromConfig() {
+        String mode = Config.getProp(Constants.PREVIEW_MODE);
+        if (mode == null || mode.isBlank() || mode.equalsIgnoreCase("auto")) {
+            mode = GraphicsEnvironment.isHeadless() ? "none" : "window";
+        }
+        switch (mode.trim().toLowerCase(Locale.ROOT)) {
+            case "none":
+                return new NoOpPreviewSink();
+            case "window":
+                return new WindowPreviewSink();
+            case "thumbnails":
+                String dir = Config.getProp(Constants.PREVIEW_DIR);
+                return new ThumbnailPreviewSink(Paths.get(dir == null ? "preview" : dir),
+                        Config.getIntProp(Constants.PREVIEW_MAX_SIZE, 256),
+                        Config.getIntProp(Constants.PREVIEW_INTERVAL_MS, 1000));
+            default:
+                throw new IllegalArgumentException("Неизвестный режим предпросмотра: " + mode);
+        }
+    }
+}
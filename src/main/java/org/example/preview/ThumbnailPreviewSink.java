@@ -0,0 +1,71 @@
+package org.example.preview;
+
+import org.apache.log4j.Logger;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Предпросмотр без окна: уменьшенные копии изображений пишутся в каталог,
+ * не чаще одного раза за заданный интервал (остальные кадры пропускаются).
+ */
+public class ThumbnailPreviewSink implements PreviewSink {
+    private static final Logger log = Logger.getLogger(ThumbnailPreviewSink.class);
+
+    private final Path dir;
+    private final int maxSize;
+    private final long intervalNanos;
+    private final Mat thumbnail = new Mat();
+    private long lastWrite;
+    private boolean written;
+    private int counter;
+
+    /**
+     * @param dir        каталог для миниатюр (создаётся при необходимости)
+     * @param maxSize    максимальная сторона миниатюры в пикселях
+     * @param intervalMs минимальный интервал между записями
+     */
+    public ThumbnailPreviewSink(Path dir, int maxSize, long intervalMs) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+        this.intervalNanos = intervalMs * 1_000_000L;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void show(Mat img) {
+        long now = System.nanoTime();
+        if (written && now - lastWrite < intervalNanos) {
+            return;
+        }
+        lastWrite = now;
+        written = true;
+
+        double scale = Math.min(1.0, (double) maxSize / Math.max(img.cols(), img.rows()));
+        Mat out = img;
+        if (scale < 1.0) {
+            Imgproc.resize(img, thumbnail, new Size(Math.max(1, img.cols() * scale), Math.max(1, img.rows() * scale)),
+                    0, 0, Imgproc.INTER_AREA);
+            out = thumbnail;
+        }
+        Path target = dir.resolve(String.format("preview_%05d.jpg", counter++));
+        if (!Imgcodecs.imwrite(target.toString(), out)) {
+            log.warn("Could not write preview " + target);
+        }
+    }
+
+    @Override
+    public void close() {
+        thumbnail.release();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.preview;
+
+import org.example.MatImageConverter;
+import org.opencv.core.Mat;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Одно окно просмотра на всё время работы: каждый новый кадр заменяет предыдущий
+ * в том же окне, без создания JFrame на каждый вызов.
+ *
+ * <p>Кадры, пришедшие быстрее, чем окно успевает их показать, схлопываются: показывается
+ * последний. Конвертация в BufferedImage выполняется в потоке Swing, поэтому растр
+ * не перезаписывается, пока окно его рисует.
+ */
+public class WindowPreviewSink implements PreviewSink {
+    private final MatImageConverter converter = new MatImageConverter();
+    // Последний полученный кадр; создаётся при первом показе, когда OpenCV уже загружен
+    private Mat latest;
+    private boolean queued;
+    private JFrame frame;
+    private JLabel label;
+
+    @Override
+    public synchronized void show(Mat img) {
+        if (latest == null) {
+            latest = new Mat();
+        }
+        img.copyTo(latest);
+        if (!queued) {
+            queued = true;
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        BufferedImage image;
+        synchronized (this) {
+            queued = false;
+            if (latest == null) {
+                return;
+            }
+            image = converter.toBufferedImage(latest);
+        }
+        display(image);
+    }
+
+    private void display(BufferedImage image) {
+        if (frame == null) {
+            frame = new JFrame();
+            frame.setLayout(new FlowLayout()); // Простое выравнивание
+            label = new JLabel();
+            frame.add(label);
+            // Закрытие окна не завершает программу; следующий кадр откроет его снова
+            frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        }
+        Icon current = label.getIcon();
+        label.setIcon(new ImageIcon(image));
+        if (current == null || current.getIconWidth() != image.getWidth()
+                || current.getIconHeight() != image.getHeight()) {
+            frame.setSize(image.getWidth() + 50, image.getHeight() + 50);
+        }
+        label.repaint();
+        frame.setVisible(true);
+    }
+
+    @Override
+    public void close() {
+        SwingUtilities.invokeLater(() -> {
+            if (frame != null) {
+                frame.dispose();
+                frame = null;
+            }
+            synchronized (this) {
+                if (latest != null) {
+                    latest.release();
+                    latest = null;
+                }
+                converter.release();
+            }
+        });
+    }
+}
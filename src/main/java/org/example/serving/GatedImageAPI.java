@@ -0,0 +1,231 @@
+package org.example.serving;
+
+import org.example.AnalysisContext;
+import org.example.CountMethod;
+import org.example.ImageAPI;
+import org.example.SizeClasses;
+import org.example.encode.EncoderParams;
+import org.example.tiles.TileOperation;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+
+import java.util.List;
+
+/**
+ * Синхронный {@link ImageAPI}, каждая операция которого проходит через {@link NativeGate}.
+ *
+ * <p>Режим для серверов «виртуальный поток на запрос»: обработчики вызывают методы
+ * напрямую и блокируются, а параллелизм нативных вычислений остаётся ограничен числом ядер.
+ * Декодирование и кодирование файлов тоже нагружают процессор, поэтому
+ * {@code loadImage}/{@code saveImage} ограничиваются так же.
+ */
+public class GatedImageAPI {
+    private final ImageAPI api;
+    private final NativeGate gate;
+
+    public GatedImageAPI(ImageAPI api) {
+        this(api, NativeGate.shared());
+    }
+
+    public GatedImageAPI(ImageAPI api, NativeGate gate) {
+        this.api = api;
+        this.gate = gate;
+    }
+
+    public NativeGate getGate() {
+        return gate;
+    }
+
+    public Mat loadImage(String path) {
+        return gate.run(() -> api.loadImage(path));
+    }
+
+    public Mat loadImage(String path, int width, int height, boolean grayscale) {
+        return gate.run(() -> api.loadImage(path, width, height, grayscale));
+    }
+
+    public Mat loadImage(String path, double scale, boolean grayscale) {
+        return gate.run(() -> api.loadImage(path, scale, grayscale));
+    }
+
+    public void saveImage(String path, Mat img) {
+        gate.run(() -> {
+            api.saveImage(path, img);
+            return null;
+        });
+    }
+
+    public void saveImage(String path, Mat img, EncoderParams params) {
+        gate.run(() -> {
+            api.saveImage(path, img, params);
+            return null;
+        });
+    }
+
+    public MatOfByte encodeImage(Mat img, EncoderParams params) {
+        return gate.run(() -> api.encodeImage(img, params));
+    }
+
+    public Mat zeroChannel(Mat img, int channel) {
+        return gate.run(() -> api.zeroChannel(img, channel));
+    }
+
+    public void zeroChannel(Mat img, int channel, Mat dst) {
+        gate.run(() -> {
+            api.zeroChannel(img, channel, dst);
+            return null;
+        });
+    }
+
+    public void setChannel(Mat img, int channel, double value) {
+        gate.run(() -> {
+            api.setChannel(img, channel, value);
+            return null;
+        });
+    }
+
+    public void swapChannels(Mat img, int channelA, int channelB) {
+        gate.run(() -> {
+            api.swapChannels(img, channelA, channelB);
+            return null;
+        });
+    }
+
+    public void extractChannel(Mat img, int channel, Mat dst) {
+        gate.run(() -> {
+            api.extractChannel(img, channel, dst);
+            return null;
+        });
+    }
+
+    public void mergeChannel(Mat plane, Mat dst, int channel) {
+        gate.run(() -> {
+            api.mergeChannel(plane, dst, channel);
+            return null;
+        });
+    }
+
+    public Mat applySobel(Mat img, int dx, int dy, int ksize, double scale, double delta, int borderType) {
+        return gate.run(() -> api.applySobel(img, dx, dy, ksize, scale, delta, borderType));
+    }
+
+    public Mat applyLaplace(Mat img, int ksize, double scale, double delta, int borderType) {
+        return gate.run(() -> api.applyLaplace(img, ksize, scale, delta, borderType));
+    }
+
+    public Mat applySobel(Mat img, Rect roi, int dx, int dy, int ksize, double scale, double delta, int borderType) {
+        return gate.run(() -> api.applySobel(img, roi, dx, dy, ksize, scale, delta, borderType));
+    }
+
+    public Mat applyLaplace(Mat img, Rect roi, int ksize, double scale, double delta, int borderType) {
+        return gate.run(() -> api.applyLaplace(img, roi, ksize, scale, delta, borderType));
+    }
+
+    public Mat applyInRoi(Mat img, Rect roi, TileOperation operation) {
+        return gate.run(() -> api.applyInRoi(img, roi, operation));
+    }
+
+    public List<Mat> applyInRoi(Mat img, List<Rect> rois, TileOperation operation) {
+        return gate.run(() -> api.applyInRoi(img, rois, operation));
+    }
+
+    public void applyInRoi(Mat img, List<Rect> rois, TileOperation operation, Mat dst) {
+        gate.run(() -> {
+            api.applyInRoi(img, rois, operation, dst);
+            return null;
+        });
+    }
+
+    public Mat flip(Mat img, boolean horizontal) {
+        return gate.run(() -> api.flip(img, horizontal));
+    }
+
+    public Mat repeat(Mat img, int ny, int nx) {
+        return gate.run(() -> api.repeat(img, ny, nx));
+    }
+
+    public Mat concatImages(List<Mat> images, boolean horizontal) {
+        return gate.run(() -> api.concatImages(images, horizontal));
+    }
+
+    public Mat resize(Mat img, int width, int height) {
+        return gate.run(() -> api.resize(img, width, height));
+    }
+
+    public Mat rotate(Mat img, double angle, boolean keepContent) {
+        return gate.run(() -> api.rotate(img, angle, keepContent));
+    }
+
+    public Mat shift(Mat img, int shiftX, int shiftY) {
+        return gate.run(() -> api.shift(img, shiftX, shiftY));
+    }
+
+    public Mat perspectiveTransform(Mat img, double angle, String direction, double intensity) {
+        return gate.run(() -> api.perspectiveTransform(img, angle, direction, intensity));
+    }
+
+    public Mat floodFillWithParams(Mat image, Point seedPoint, Scalar fillColor, Scalar loDiff, Scalar upDiff) {
+        return gate.run(() -> api.floodFillWithParams(image, seedPoint, fillColor, loDiff, upDiff));
+    }
+
+    public Mat applyPyramidDown(Mat image, int times) {
+        return gate.run(() -> api.applyPyramidDown(image, times));
+    }
+
+    public Mat applyPyramidUp(Mat image, int times) {
+        return gate.run(() -> api.applyPyramidUp(image, times));
+    }
+
+    public Mat getImageDifference(Mat original, Mat processed) {
+        return gate.run(() -> api.getImageDifference(original, processed));
+    }
+
+    public int getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return gate.run(() -> api.getCountObj(image, targetWidth, targetHeight, tolerance));
+    }
+
+    public int getCountObj(Mat image, int targetWidth, int targetHeight, double tolerance, CountMethod method) {
+        return gate.run(() -> api.getCountObj(image, targetWidth, targetHeight, tolerance, method));
+    }
+
+    public int getCountObj(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        return gate.run(() -> api.getCountObj(frame, targetWidth, targetHeight, tolerance));
+    }
+
+    public int[] getCountObj(Mat image, SizeClasses classes) {
+        return gate.run(() -> api.getCountObj(image, classes));
+    }
+
+    public Mat getImageEdges(Mat src, int blurKernelSize, double lowThreshold, double highThreshold, boolean useOtsu) {
+        return gate.run(() -> api.getImageEdges(src, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public Mat getImageEdges(Mat src, Rect roi, int blurKernelSize, double lowThreshold, double highThreshold,
+                             boolean useOtsu) {
+        return gate.run(() -> api.getImageEdges(src, roi, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public Mat getImageEdges(AnalysisContext frame, int blurKernelSize, double lowThreshold, double highThreshold,
+                             boolean useOtsu) {
+        return gate.run(() -> api.getImageEdges(frame, blurKernelSize, lowThreshold, highThreshold, useOtsu));
+    }
+
+    public int getCountObjCanny(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return gate.run(() -> api.getCountObjCanny(image, targetWidth, targetHeight, tolerance));
+    }
+
+    public int getCountObjCanny(AnalysisContext frame, int targetWidth, int targetHeight, double tolerance) {
+        return gate.run(() -> api.getCountObjCanny(frame, targetWidth, targetHeight, tolerance));
+    }
+
+    public int[] getCountObjCanny(Mat image, SizeClasses classes) {
+        return gate.run(() -> api.getCountObjCanny(image, classes));
+    }
+
+    public double[] getRectangles(Mat image, int targetWidth, int targetHeight, double tolerance) {
+        return gate.run(() -> api.getRectangles(image, targetWidth, targetHeight, tolerance));
+    }
+}
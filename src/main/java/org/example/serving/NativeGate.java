@@ -0,0 +1,109 @@
+package org.example.serving;
+
+import org.example.Config;
+import org.example.Constants;
+import org.example.metrics.LatencyHistogram;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ограничитель параллельных нативных вычислений.
+ *
+ * <p>Вызывающих потоков может быть сколько угодно (например, по виртуальному потоку на запрос),
+ * но одновременно в OpenCV входят не больше {@code permits} из них — по умолчанию по числу ядер.
+ * Ожидание разрешения происходит на {@link Semaphore}, поэтому виртуальный поток при этом
+ * освобождает поток-носитель; долгий JNI-вызов занимает носитель, но их не больше, чем ядер.
+ *
+ * <p>Время ожидания разрешения и время вычисления учитываются в отдельных гистограммах.
+ */
+public class NativeGate {
+    private static volatile NativeGate shared;
+
+    private final Semaphore permits;
+    private final int permitCount;
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    private final LatencyHistogram computeTime = new LatencyHistogram();
+
+    public NativeGate(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Число разрешений должно быть положительным");
+        }
+        this.permitCount = permits;
+        // Справедливый семафор: под нагрузкой запросы обслуживаются по порядку, хвост задержек меньше
+        this.permits = new Semaphore(permits, true);
+    }
+
+    /**
+     * Общий ограничитель; число разрешений задаётся {@code nativeGatePermits} (по умолчанию — число ядер).
+     */
+    public static NativeGate shared() {
+        if (shared == null) {
+            synchronized (NativeGate.class) {
+                if (shared == null) {
+                    shared = new NativeGate(Config.getIntProp(Constants.NATIVE_GATE_PERMITS,
+                            Runtime.getRuntime().availableProcessors()));
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Выполняет вычисление, дождавшись свободного разрешения.
+     */
+    public <T> T call(Callable<T> computation) throws Exception {
+        long queued = System.nanoTime();
+        permits.acquire();
+        long started = System.nanoTime();
+        try {
+            return computation.call();
+        } finally {
+            permits.release();
+            long finished = System.nanoTime();
+            queueTime.record(started - queued);
+            computeTime.record(finished - started);
+        }
+    }
+
+    /**
+     * То же, что {@link #call}, для вычислений без проверяемых исключений.
+     */
+    public <T> T run(Callable<T> computation) {
+        try {
+            return call(computation);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание разрешения прервано", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getPermits() {
+        return permitCount;
+    }
+
+    /**
+     * @return число вызовов, ожидающих разрешения
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return гистограмма времени ожидания разрешения, нс
+     */
+    public LatencyHistogram getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * @return гистограмма времени вычисления под разрешением, нс
+     */
+    public LatencyHistogram getComputeTime() {
+        return computeTime;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.serving;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Исполнитель «поток на задачу»: виртуальные потоки на JDK 21+, иначе обычные.
+ *
+ * <p>Проект собирается под JDK 17, поэтому виртуальные потоки подключаются через отражение.
+ */
+public final class VirtualThreads {
+    private static final Logger log = Logger.getLogger(VirtualThreads.class);
+    private static final Method NEW_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean isAvailable() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return исполнитель, запускающий каждую задачу в новом (по возможности виртуальном) потоке
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not usable, falling back to platform threads", e);
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.tiles;
+
+import org.example.MatImageConverter;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Источник, декодирующий из файла только запрошенную область через ImageIO
+ * ({@link ImageReadParam#setSourceRegion}), не загружая изображение целиком.
+ *
+ * <p>Области возвращаются в формате BGR (8 бит, 3 канала), как у {@code Imgcodecs.imread}
+ * по умолчанию; альфа-канал отбрасывается. Для последовательных форматов (JPEG, PNG)
+ * декодер проходит поток от начала изображения до нижней границы области,
+ * поэтому для них выгоднее полосы на всю ширину; TIFF с плитками читается напрямую.
+ */
+public class ImageIOTileSource implements TileSource {
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final MatImageConverter converter = new MatImageConverter();
+    private final Mat decoded = new Mat();
+
+    public ImageIOTileSource(Path path) throws IOException {
+        input = ImageIO.createImageInputStream(path.toFile());
+        if (input == null) {
+            throw new IllegalArgumentException("Не удалось открыть изображение по пути: " + path);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IllegalArgumentException("Неподдерживаемый формат изображения: " + path);
+        }
+        reader = readers.next();
+        reader.setInput(input, true, true);
+        width = reader.getWidth(0);
+        height = reader.getHeight(0);
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Mat read(Rect region, Mat buffer) {
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(region.x, region.y, region.width, region.height));
+        BufferedImage image;
+        try {
+            image = reader.read(0, param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Каналы в порядке OpenCV; затем приводим к 8-битному BGR, как imread по умолчанию
+        converter.toMat(image, decoded);
+        Mat bgr = decoded;
+        if (decoded.channels() == 1) {
+            Imgproc.cvtColor(decoded, buffer, Imgproc.COLOR_GRAY2BGR);
+            bgr = buffer;
+        } else if (decoded.channels() == 4) {
+            Imgproc.cvtColor(decoded, buffer, Imgproc.COLOR_BGRA2BGR);
+            bgr = buffer;
+        }
+        if (bgr.depth() != CvType.CV_8U) {
+            bgr.convertTo(bgr, CvType.CV_8U, 1 / 256.0);
+        }
+        return bgr;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        input.close();
+    }
+}
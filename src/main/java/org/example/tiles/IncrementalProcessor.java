@@ -0,0 +1,158 @@
+package org.example.tiles;
+
+import org.example.Config;
+import org.example.Constants;
+import org.example.SegmentationUtils;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.List;
+
+/**
+ * Инкрементальная обработка последовательности кадров, которые меняются мало
+ * (камеры наблюдения, записи экрана).
+ *
+ * <p>Новый кадр сравнивается с предыдущим по блокам ({@link SegmentationUtils#getChangedRegions}).
+ * Операция пересчитывается только для изменившихся блоков: результат меняется в пределах
+ * {@link TileOperation#halo()} от изменившихся пикселей, а для его пересчёта нужен ещё один запас
+ * того же размера. Остальной результат берётся из предыдущего кадра. Затраты на кадр
+ * пропорциональны доле изменившейся сцены.
+ *
+ * <p>Нелокальные операции ({@link TileOperation#isLocal()}, например Canny с гистерезисом) при любом
+ * изменении пересчитываются по всему кадру: изменение может сказаться сколь угодно далеко.
+ * Экономия для них есть только на неизменившихся кадрах.
+ *
+ * <p>При пороге 0 результат побитово совпадает с обработкой целого кадра. При пороге больше 0
+ * мелкие изменения (шум сенсора) не пересчитываются; опорный кадр обновляется только в
+ * пересчитанных блоках, поэтому медленный дрейф накапливается и в итоге тоже будет замечен.
+ *
+ * <p>Экземпляр хранит состояние между кадрами и не потокобезопасен.
+ */
+public class IncrementalProcessor {
+    private final TileOperation operation;
+    private final int blockSize;
+    private final double threshold;
+
+    private final Mat reference = new Mat();
+    private final Mat output = new Mat();
+
+    private long frames;
+    private long fullFrames;
+    private long recomputedPixels;
+    private long totalPixels;
+    private double lastDirtyFraction;
+
+    /**
+     * Создаёт обработчик с точным сравнением и размером блока из config.properties (по умолчанию 32).
+     */
+    public IncrementalProcessor(TileOperation operation) {
+        this(operation, Config.getIntProp(Constants.INCREMENTAL_BLOCK_SIZE, 32), 0);
+    }
+
+    /**
+     * @param operation операция над окрестностью
+     * @param blockSize размер блока сравнения в пикселях
+     * @param threshold изменение канала, не превышающее порог, не считается изменением
+     */
+    public IncrementalProcessor(TileOperation operation, int blockSize, double threshold) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+        }
+        this.operation = operation;
+        this.blockSize = blockSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Обрабатывает очередной кадр.
+     *
+     * @return результат операции для кадра; матрица принадлежит обработчику и
+     * перезаписывается следующим вызовом
+     */
+    public Mat process(Mat frame) {
+        frames++;
+        long pixels = frame.total();
+        totalPixels += pixels;
+
+        if (reference.empty() || !reference.size().equals(frame.size()) || reference.type() != frame.type()) {
+            // Первый кадр или смена формата — считаем целиком
+            operation.apply(frame, output);
+            frame.copyTo(reference);
+            fullFrames++;
+            recomputedPixels += pixels;
+            lastDirtyFraction = 1;
+            return output;
+        }
+
+        List<Rect> regions = SegmentationUtils.getChangedRegions(reference, frame, blockSize, threshold);
+        if (!operation.isLocal() && !regions.isEmpty()) {
+            operation.apply(frame, output);
+            frame.copyTo(reference);
+            fullFrames++;
+            recomputedPixels += pixels;
+            lastDirtyFraction = dirtyFraction(regions, pixels);
+            return output;
+        }
+        long dirty = 0;
+        for (Rect region : regions) {
+            dirty += region.area();
+            recompute(frame, region);
+            Mat from = frame.submat(region);
+            Mat to = reference.submat(region);
+            from.copyTo(to);
+            from.release();
+            to.release();
+        }
+        lastDirtyFraction = (double) dirty / pixels;
+        return output;
+    }
+
+    private static double dirtyFraction(List<Rect> regions, long pixels) {
+        long dirty = 0;
+        for (Rect region : regions) {
+            dirty += region.area();
+        }
+        return (double) dirty / pixels;
+    }
+
+    private void recompute(Mat frame, Rect region) {
+        // Результат меняется в пределах запаса от изменений; RoiProcessor добавит ещё запас на вход
+        Rect affected = RoiProcessor.expand(region, operation.halo(), frame);
+        RoiProcessor.apply(frame, affected, operation, output);
+        recomputedPixels += affected.area();
+    }
+
+    /**
+     * Освобождает опорный кадр и результат: следующий кадр будет обработан целиком.
+     */
+    public void reset() {
+        reference.release();
+        output.release();
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return число кадров, обработанных целиком (первый, после смены формата и изменившиеся кадры
+     * нелокальной операции)
+     */
+    public long getFullFrames() {
+        return fullFrames;
+    }
+
+    /**
+     * @return доля пикселей последнего кадра в изменившихся блоках
+     */
+    public double getLastDirtyFraction() {
+        return lastDirtyFraction;
+    }
+
+    /**
+     * @return отношение пересчитанных пикселей (с запасом) ко всем обработанным, за всё время
+     */
+    public double getRecomputedFraction() {
+        return totalPixels == 0 ? 0 : (double) recomputedPixels / totalPixels;
+    }
+}
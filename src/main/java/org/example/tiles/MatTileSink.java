@@ -0,0 +1,39 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * Приёмник, собирающий плитки в одну полноразмерную матрицу.
+ * Матрица создаётся при записи первой плитки с её типом.
+ */
+public class MatTileSink implements TileSink {
+    private final int width;
+    private final int height;
+    private final Mat result;
+
+    public MatTileSink(int width, int height) {
+        this(width, height, new Mat());
+    }
+
+    /**
+     * @param result матрица-приёмник (переиспользуется, если подходит по размеру и типу)
+     */
+    public MatTileSink(int width, int height, Mat result) {
+        this.width = width;
+        this.height = height;
+        this.result = result;
+    }
+
+    @Override
+    public void write(Mat tile, int x, int y) {
+        result.create(height, width, tile.type());
+        Mat target = result.submat(new Rect(x, y, tile.cols(), tile.rows()));
+        tile.copyTo(target);
+        target.release();
+    }
+
+    public Mat getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * Источник поверх изображения, уже находящегося в памяти. Области отдаются
+ * через submat, без копирования.
+ */
+public class MatTileSource implements TileSource {
+    private final Mat image;
+
+    public MatTileSource(Mat image) {
+        this.image = image;
+    }
+
+    @Override
+    public int width() {
+        return image.cols();
+    }
+
+    @Override
+    public int height() {
+        return image.rows();
+    }
+
+    @Override
+    public Mat read(Rect region, Mat buffer) {
+        return image.submat(region);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Range;
+import org.opencv.core.Rect;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельное выполнение операций над окрестностью по горизонтальным полосам
+ * в пуле fork/join с перехватом работы.
+ *
+ * <p>Диапазон строк рекурсивно делится пополам, пока полоса не станет не выше
+ * {@code bandHeight}. Каждая полоса обрабатывается вместе с запасом {@link TileOperation#halo()}
+ * строк сверху и снизу и пишет только свои строки в общий приёмник. Так как запас
+ * покрывает ядро операции, результат побитово совпадает с последовательной обработкой
+ * целого изображения при любом числе потоков и любом разбиении.
+ *
+ * <p>OpenCV распараллеливает часть функций и сам; при большом числе Java-потоков
+ * может иметь смысл ограничить его пул через {@code Core.setNumThreads}.
+ */
+public class ParallelTiledProcessor {
+    private final ForkJoinPool pool;
+    private final int bandHeight;
+
+    /**
+     * @param pool       пул, в котором выполняются полосы
+     * @param bandHeight максимальная высота полосы в строках
+     */
+    public ParallelTiledProcessor(ForkJoinPool pool, int bandHeight) {
+        if (bandHeight < 1) {
+            throw new IllegalArgumentException("Высота полосы должна быть положительной");
+        }
+        this.pool = pool;
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Делит изображение примерно на {@code 4 * parallelism} полос.
+     */
+    public static ParallelTiledProcessor forPool(ForkJoinPool pool, int rows) {
+        return new ParallelTiledProcessor(pool, Math.max(16, rows / (4 * pool.getParallelism())));
+    }
+
+    /**
+     * Применяет операцию ко всему изображению.
+     *
+     * @param src       исходное изображение
+     * @param operation операция
+     * @param dst       приёмник (создаётся с типом результата операции)
+     */
+    public void process(Mat src, TileOperation operation, Mat dst) {
+        Band task = new Band(src, operation, dst, 0, src.rows());
+        // Внутри задачи того же пула дробимся на месте; из чужого пула (в том числе общего)
+        // работа передаётся в свой, чтобы соблюдался его параллелизм
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private class Band extends RecursiveAction {
+        private final Mat src;
+        private final TileOperation operation;
+        private final Mat dst;
+        private final int from;
+        private final int to;
+
+        Band(Mat src, TileOperation operation, Mat dst, int from, int to) {
+            this.src = src;
+            this.operation = operation;
+            this.dst = dst;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > bandHeight) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Band(src, operation, dst, from, middle),
+                        new Band(src, operation, dst, middle, to));
+                return;
+            }
+
+            int halo = operation.halo();
+            int y0 = Math.max(0, from - halo);
+            int y1 = Math.min(src.rows(), to + halo);
+
+            // Полоса с запасом — представление исходника без копирования
+            Mat region = src.rowRange(new Range(y0, y1));
+            Mat out = new Mat();
+            try {
+                operation.apply(region, out);
+                synchronized (dst) {
+                    dst.create(src.rows(), src.cols(), out.type());
+                }
+                Mat band = out.submat(new Rect(0, from - y0, out.cols(), to - from));
+                Mat target = dst.rowRange(new Range(from, to));
+                band.copyTo(target);
+                band.release();
+                target.release();
+            } finally {
+                region.release();
+                out.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Приёмник, записывающий плитки сразу в файл с «сырыми» пикселями
+ * (строки подряд, каналы чередуются, без заголовка). Память ограничена одной строкой плитки.
+ */
+public class RawFileTileSink implements TileSink {
+    private final FileChannel channel;
+    private final int width;
+    // Строка плитки: Mat поверх прямого буфера, чтобы копирование шло без Java-массивов
+    private ByteBuffer rowBuffer;
+    private Mat rowMat;
+
+    public RawFileTileSink(Path path, int width) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.width = width;
+    }
+
+    @Override
+    public void write(Mat tile, int x, int y) {
+        int elemSize = (int) tile.elemSize();
+        int rowBytes = tile.cols() * elemSize;
+        if (rowMat == null || rowMat.cols() != tile.cols() || rowMat.type() != tile.type()) {
+            rowBuffer = ByteBuffer.allocateDirect(rowBytes);
+            rowMat = new Mat(1, tile.cols(), tile.type(), rowBuffer);
+        }
+        try {
+            for (int r = 0; r < tile.rows(); r++) {
+                tile.row(r).copyTo(rowMat);
+                rowBuffer.clear();
+                long offset = ((long) (y + r) * width + x) * elemSize;
+                while (rowBuffer.hasRemaining()) {
+                    offset += channel.write(rowBuffer, offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
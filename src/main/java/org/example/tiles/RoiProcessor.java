@@ -0,0 +1,111 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Выполнение операции над окрестностью только в прямоугольных областях (ROI) изображения.
+ *
+ * <p>Операция получает представление ({@code submat}) области, расширенной на {@link TileOperation#halo()}
+ * пикселей в пределах изображения, поэтому края области обрабатываются по настоящим соседним пикселям,
+ * а на краях изображения — по его типу границы, как при обработке целиком. Из результата берётся
+ * только сама область: он совпадает с соответствующей частью результата для всего изображения.
+ * Исходник не копируется; затраты пропорциональны площади областей с запасом.
+ *
+ * <p>Результат пишется либо в отдельные матрицы размером с область, либо на место области
+ * в полноразмерный приёмник.
+ */
+public final class RoiProcessor {
+    private RoiProcessor() {
+    }
+
+    /**
+     * @return результат операции размером с область; матрица принадлежит вызывающему
+     */
+    public static Mat apply(Mat src, Rect roi, TileOperation operation) {
+        Mat out = new Mat();
+        run(src, roi, operation, result -> result.copyTo(out));
+        return out;
+    }
+
+    /**
+     * @return результаты по областям в том же порядке
+     */
+    public static List<Mat> apply(Mat src, List<Rect> rois, TileOperation operation) {
+        List<Mat> results = new ArrayList<>(rois.size());
+        for (Rect roi : rois) {
+            results.add(apply(src, roi, operation));
+        }
+        return results;
+    }
+
+    /**
+     * Пишет результат на место области в полноразмерный приёмник; остальные пиксели приёмника не меняются.
+     * Пустой приёмник создаётся размером с исходник, с типом результата, и заполняется нулями.
+     * Приёмником может быть сам исходник, если тип результата совпадает с его типом.
+     */
+    public static void apply(Mat src, Rect roi, TileOperation operation, Mat dst) {
+        run(src, roi, operation, result -> {
+            if (dst.empty()) {
+                dst.create(src.rows(), src.cols(), result.type());
+                dst.setTo(Scalar.all(0));
+            } else if (dst.rows() != src.rows() || dst.cols() != src.cols() || dst.type() != result.type()) {
+                throw new IllegalArgumentException("Приёмник " + dst + " не совпадает по размеру или типу с результатом");
+            }
+            Mat target = dst.submat(roi);
+            result.copyTo(target);
+            target.release();
+        });
+    }
+
+    /**
+     * Обрабатывает области по очереди в один приёмник. Если приёмник — сам исходник, области вместе
+     * с запасом не должны пересекаться: иначе следующая область прочитает уже обработанные пиксели.
+     */
+    public static void apply(Mat src, List<Rect> rois, TileOperation operation, Mat dst) {
+        for (Rect roi : rois) {
+            apply(src, roi, operation, dst);
+        }
+    }
+
+    private static void run(Mat src, Rect roi, TileOperation operation, Consumer<Mat> sink) {
+        if (roi.x < 0 || roi.y < 0 || roi.width <= 0 || roi.height <= 0
+                || roi.x + roi.width > src.cols() || roi.y + roi.height > src.rows()) {
+            throw new IllegalArgumentException("Область " + roi + " выходит за пределы изображения "
+                    + src.cols() + "x" + src.rows());
+        }
+        Rect input = expand(roi, operation.halo(), src);
+
+        // Область с запасом — представление исходника без копирования
+        Mat view = src.submat(input);
+        Mat result = new Mat();
+        Mat inner = null;
+        try {
+            operation.apply(view, result);
+            inner = result.submat(new Rect(roi.x - input.x, roi.y - input.y, roi.width, roi.height));
+            sink.accept(inner);
+        } finally {
+            if (inner != null) {
+                inner.release();
+            }
+            view.release();
+            result.release();
+        }
+    }
+
+    /**
+     * @return прямоугольник, расширенный на {@code margin} пикселей с каждой стороны в пределах {@code bounds}
+     */
+    static Rect expand(Rect rect, int margin, Mat bounds) {
+        int x0 = Math.max(0, rect.x - margin);
+        int y0 = Math.max(0, rect.y - margin);
+        int x1 = Math.min(bounds.cols(), rect.x + rect.width + margin);
+        int y1 = Math.min(bounds.rows(), rect.y + rect.height + margin);
+        return new Rect(x0, y0, x1 - x0, y1 - y0);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.tiles;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Операция над окрестностью пикселя, которую можно выполнять по плиткам.
+ *
+ * <p>{@link #halo()} — сколько пикселей за границей плитки нужно операции, чтобы результат
+ * внутри плитки совпал с результатом обработки целого изображения.
+ */
+public interface TileOperation {
+
+    int halo();
+
+    void apply(Mat in, Mat out);
+
+    /**
+     * @return {@code true}, если результат в пикселе зависит только от входа в пределах {@link #halo()};
+     * для нелокальных операций поплиточный и инкрементальный пересчёт точен только приближённо
+     */
+    default boolean isLocal() {
+        return true;
+    }
+
+    static TileOperation blur(int kernelSize) {
+        return of(kernelSize / 2, (in, out) -> Imgproc.blur(in, out, new Size(kernelSize, kernelSize)));
+    }
+
+    static TileOperation gaussianBlur(int kernelSize) {
+        return of(kernelSize / 2, (in, out) -> Imgproc.GaussianBlur(in, out, new Size(kernelSize, kernelSize), 0));
+    }
+
+    /**
+     * Медианный фильтр; при невалидном размере ядра плитка копируется как есть (как в FilterUtils).
+     */
+    static TileOperation medianBlur(int kernelSize) {
+        if (kernelSize % 2 == 1 && kernelSize > 1) {
+            return of(kernelSize / 2, (in, out) -> Imgproc.medianBlur(in, out, kernelSize));
+        }
+        return of(0, Mat::copyTo);
+    }
+
+    static TileOperation bilateralFilter(int diameter, double sigmaColor, double sigmaSpace) {
+        // При diameter <= 0 OpenCV вычисляет радиус из sigmaSpace: round(sigmaSpace * 1.5)
+        int radius = diameter > 0 ? diameter / 2 : (int) Math.round(sigmaSpace * 1.5);
+        return of(radius, (in, out) -> Imgproc.bilateralFilter(in, out, diameter, sigmaColor, sigmaSpace));
+    }
+
+    /**
+     * Оператор Собеля с переводом в оттенки серого и в 8 бит, как в ImageProcessor.applySobel.
+     */
+    static TileOperation sobel(int dx, int dy, int ksize, double scale, double delta, int borderType) {
+        int halo = ksize <= 1 ? 1 : ksize / 2;
+        return of(halo, (in, out) -> {
+            Mat gray = toGray(in);
+            Mat derivative = new Mat();
+            Imgproc.Sobel(gray, derivative, CvType.CV_32F, dx, dy, ksize, scale, delta, borderType);
+            Core.convertScaleAbs(derivative, out);
+            derivative.release();
+            if (gray != in) {
+                gray.release();
+            }
+        });
+    }
+
+    /**
+     * Оператор Лапласа с переводом в оттенки серого и в 8 бит, как в ImageProcessor.applyLaplacian.
+     */
+    static TileOperation laplacian(int ksize, double scale, double delta, int borderType) {
+        int halo = ksize <= 1 ? 1 : ksize / 2;
+        return of(halo, (in, out) -> {
+            Mat gray = toGray(in);
+            Mat laplace = new Mat();
+            Imgproc.Laplacian(gray, laplace, CvType.CV_32F, ksize, scale, delta, borderType);
+            Core.convertScaleAbs(laplace, out);
+            laplace.release();
+            if (gray != in) {
+                gray.release();
+            }
+        });
+    }
+
+    /**
+     * Границы Canny по размытому серому изображению, как в SearchObj.detectEdges с заданными порогами.
+     * Запас покрывает размытие, производные и подавление немаксимумов; гистерезис же связывает слабые
+     * границы вдоль цепочек любой длины, поэтому у края плитки слабая граница, подтверждённая только
+     * за пределами запаса, может не попасть в результат. Поэтому операция нелокальна ({@link #isLocal()}).
+     */
+    static TileOperation canny(int blurKernelSize, double lowThreshold, double highThreshold) {
+        int halo = blurKernelSize / 2 + 2;
+        return new TileOperation() {
+            @Override
+            public int halo() {
+                return halo;
+            }
+
+            @Override
+            public void apply(Mat in, Mat out) {
+                Mat gray = toGray(in);
+                Mat blurred = new Mat();
+                Imgproc.blur(gray, blurred, new Size(blurKernelSize, blurKernelSize));
+                Imgproc.Canny(blurred, out, lowThreshold, highThreshold);
+                blurred.release();
+                if (gray != in) {
+                    gray.release();
+                }
+            }
+
+            @Override
+            public boolean isLocal() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Морфологическая операция, как в MorphologyUtils.applyMorphology.
+     * Составные операции (открытие, закрытие, top/black hat) проходят ядром дважды,
+     * поэтому им нужен двойной запас.
+     */
+    static TileOperation morphology(int kernelSize, int morphType, int shapeType) {
+        int radius = kernelSize / 2;
+        boolean twoPass = morphType == Imgproc.MORPH_OPEN || morphType == Imgproc.MORPH_CLOSE
+                || morphType == Imgproc.MORPH_TOPHAT || morphType == Imgproc.MORPH_BLACKHAT;
+        Mat kernel = Imgproc.getStructuringElement(shapeType, new Size(kernelSize, kernelSize));
+        return of(twoPass ? 2 * radius : radius, (in, out) -> Imgproc.morphologyEx(in, out, morphType, kernel));
+    }
+
+    static TileOperation of(int halo, BiConsumer<Mat, Mat> op) {
+        return new TileOperation() {
+            @Override
+            public int halo() {
+                return halo;
+            }
+
+            @Override
+            public void apply(Mat in, Mat out) {
+                op.accept(in, out);
+            }
+        };
+    }
+
+    private static Mat toGray(Mat in) {
+        if (in.channels() == 1) {
+            return in;
+        }
+        Mat gray = new Mat();
+        Imgproc.cvtColor(in, gray, Imgproc.COLOR_BGR2GRAY);
+        return gray;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+
+/**
+ * Приёмник результатов поплиточной обработки.
+ */
+public interface TileSink extends AutoCloseable {
+
+    /**
+     * Записывает готовую плитку.
+     *
+     * @param tile плитка результата (может быть представлением буфера и освобождается после вызова — копировать при необходимости)
+     * @param x    левая граница плитки в выходном изображении
+     * @param y    верхняя граница плитки в выходном изображении
+     */
+    void write(Mat tile, int x, int y);
+
+    @Override
+    default void close() throws Exception {
+    }
+}
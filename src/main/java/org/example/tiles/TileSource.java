@@ -0,0 +1,27 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * Источник изображения, из которого можно читать отдельные прямоугольные области.
+ */
+public interface TileSource extends AutoCloseable {
+
+    int width();
+
+    int height();
+
+    /**
+     * Читает область изображения.
+     *
+     * @param region область в координатах изображения
+     * @param buffer буфер, который источник может переиспользовать
+     * @return матрица с пикселями области (буфер либо представление без копирования)
+     */
+    Mat read(Rect region, Mat buffer);
+
+    @Override
+    default void close() throws Exception {
+    }
+}
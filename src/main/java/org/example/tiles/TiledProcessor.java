@@ -0,0 +1,88 @@
+package org.example.tiles;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * Поплиточное выполнение операций над окрестностью.
+ *
+ * <p>Изображение обходится плитками заданного размера (полосами, если ширина плитки
+ * равна ширине изображения). Каждая плитка читается из источника вместе с запасом
+ * {@link TileOperation#halo()} пикселей с каждой стороны, обрабатывается, и центральная
+ * часть без запаса передаётся в приёмник. На границах изображения запас не берётся —
+ * там срабатывает обычная обработка границ операции, поэтому результат совпадает
+ * с обработкой целого изображения. Буферы плитки переиспользуются, и пиковая память
+ * определяется размером плитки, а не изображения.
+ */
+public class TiledProcessor {
+    private final int tileWidth;
+    private final int tileHeight;
+
+    public TiledProcessor(int tileWidth, int tileHeight) {
+        if (tileWidth < 1 || tileHeight < 1) {
+            throw new IllegalArgumentException("Размер плитки должен быть положительным");
+        }
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+    }
+
+    /**
+     * Обработка полосами на всю ширину.
+     *
+     * @param stripHeight высота полосы
+     */
+    public static TiledProcessor strips(int stripHeight) {
+        return new TiledProcessor(Integer.MAX_VALUE, stripHeight);
+    }
+
+    /**
+     * Обрабатывает всё изображение источника.
+     *
+     * @param source    источник
+     * @param operation операция
+     * @param sink      приёмник плиток
+     */
+    public void process(TileSource source, TileOperation operation, TileSink sink) {
+        int width = source.width();
+        int height = source.height();
+        int halo = operation.halo();
+        int stepX = Math.min(tileWidth, width);
+        int stepY = Math.min(tileHeight, height);
+
+        Mat buffer = new Mat();
+        Mat out = new Mat();
+        try {
+            for (int y = 0; y < height; y += stepY) {
+                for (int x = 0; x < width; x += stepX) {
+                    int w = Math.min(stepX, width - x);
+                    int h = Math.min(stepY, height - y);
+
+                    // Область плитки с запасом, обрезанная по границам изображения
+                    int x0 = Math.max(0, x - halo);
+                    int y0 = Math.max(0, y - halo);
+                    int x1 = Math.min(width, x + w + halo);
+                    int y1 = Math.min(height, y + h + halo);
+
+                    Mat region = source.read(new Rect(x0, y0, x1 - x0, y1 - y0), buffer);
+                    Mat view = null;
+                    try {
+                        operation.apply(region, out);
+                        view = out.submat(new Rect(x - x0, y - y0, w, h));
+                        sink.write(view, x, y);
+                    } finally {
+                        // Заголовки представлений освобождаем сразу, не дожидаясь сборщика мусора
+                        if (view != null) {
+                            view.release();
+                        }
+                        if (region != buffer) {
+                            region.release();
+                        }
+                    }
+                }
+            }
+        } finally {
+            buffer.release();
+            out.release();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запись кадров в каталог пронумерованными файлами.
+ */
+public class FrameDirectorySink implements FrameSink {
+    private final Path dir;
+    private final String pattern;
+    private int index;
+
+    /**
+     * @param dir     выходной каталог (создаётся при необходимости)
+     * @param pattern шаблон имени для {@link String#format} с номером кадра, например {@code "frame_%06d.png"}
+     */
+    public FrameDirectorySink(Path dir, String pattern) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.pattern = pattern;
+    }
+
+    @Override
+    public void write(Mat frame) {
+        Path target = dir.resolve(String.format(pattern, index++));
+        if (!Imgcodecs.imwrite(target.toString(), frame)) {
+            throw new IllegalStateException("Не удалось записать кадр " + target);
+        }
+    }
+}
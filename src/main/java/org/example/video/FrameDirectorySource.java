@@ -0,0 +1,67 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кадры из каталога пронумерованных изображений ({@code frame_000001.png}, ...), по порядку имён.
+ *
+ * <p>Java API OpenCV не умеет декодировать файл в существующий буфер, поэтому кадр
+ * декодируется во временную матрицу, копируется в буфер и сразу освобождается.
+ */
+public class FrameDirectorySource implements FrameSource {
+    private final List<Path> frames = new ArrayList<>();
+    private final double fps;
+    private int next;
+
+    /**
+     * @param dir  каталог кадров
+     * @param glob шаблон имён, например {@code "*.png"}
+     * @param fps  частота кадров последовательности (0 — неизвестна)
+     */
+    public FrameDirectorySource(Path dir, String glob, double fps) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    frames.add(file);
+                }
+            }
+        }
+        // Номера кадров дополнены нулями, поэтому порядок имён совпадает с порядком кадров
+        frames.sort(null);
+        this.fps = fps;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        while (next < frames.size()) {
+            Path path = frames.get(next++);
+            Mat decoded = Imgcodecs.imread(path.toString());
+            try {
+                if (!decoded.empty()) {
+                    decoded.copyTo(frame);
+                    return true;
+                }
+            } finally {
+                decoded.release();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public double fps() {
+        return fps;
+    }
+
+    public int size() {
+        return frames.size();
+    }
+}
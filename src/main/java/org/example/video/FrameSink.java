@@ -0,0 +1,18 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+
+/**
+ * Приёмник обработанных кадров.
+ */
+public interface FrameSink extends AutoCloseable {
+
+    /**
+     * Записывает кадр. Буфер после возврата будет переиспользован — сохранять ссылку на него нельзя.
+     */
+    void write(Mat frame);
+
+    @Override
+    default void close() throws Exception {
+    }
+}
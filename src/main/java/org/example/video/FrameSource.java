@@ -0,0 +1,27 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+
+/**
+ * Источник кадров: видеофайл, камера или каталог пронумерованных кадров.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    /**
+     * Читает следующий кадр в переданный буфер (переиспользуется, если подходит по размеру и типу).
+     *
+     * @return false, если кадры закончились
+     */
+    boolean read(Mat frame);
+
+    /**
+     * @return частота кадров источника или 0, если неизвестна
+     */
+    default double fps() {
+        return 0;
+    }
+
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.video;
+
+import org.apache.log4j.Logger;
+import org.example.Config;
+import org.example.Constants;
+import org.example.ImagePipeline;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Потоковая обработка кадров цепочкой {@link ImagePipeline}.
+ *
+ * <p>Декодирование, обработка и кодирование идут в трёх потоках, связанных ограниченными
+ * очередями. Кадры живут в фиксированном наборе ячеек (входной и выходной Mat), которые
+ * после записи возвращаются декодеру, — после первых кадров новых матриц не создаётся.
+ * Порядок кадров сохраняется.
+ *
+ * <p>В режиме пропуска (для камер и прямых трансляций) декодер не ждёт места в очереди на обработку:
+ * если обработка отстаёт и очередь полна, прочитанный кадр отбрасывается, а его ячейка сразу
+ * возвращается декодеру. Для файлов пропуск обычно не нужен — декодер просто ждёт.
+ */
+public class FrameStreamProcessor {
+    private static final Logger log = Logger.getLogger(FrameStreamProcessor.class);
+
+    // Маркер конца потока
+    private static final Frame END = new Frame();
+
+    private final ImagePipeline pipeline;
+    private final int queueCapacity;
+    private final boolean dropWhenBehind;
+
+    /**
+     * Создаёт обработчик без пропуска кадров с ёмкостью очередей из config.properties (по умолчанию 4).
+     */
+    public FrameStreamProcessor(ImagePipeline pipeline) {
+        this(pipeline, Config.getIntProp(Constants.STREAM_QUEUE_CAPACITY, 4), false);
+    }
+
+    /**
+     * @param pipeline       цепочка операций над кадром
+     * @param queueCapacity  ёмкость очередей между стадиями
+     * @param dropWhenBehind пропускать кадры, если очередь на обработку заполнена
+     */
+    public FrameStreamProcessor(ImagePipeline pipeline, int queueCapacity, boolean dropWhenBehind) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Ёмкость очереди должна быть положительной");
+        }
+        this.pipeline = pipeline;
+        this.queueCapacity = queueCapacity;
+        this.dropWhenBehind = dropWhenBehind;
+    }
+
+    /**
+     * @return число ячеек кадров: по заполненной очереди на каждую из двух и по кадру в каждой стадии
+     */
+    public int frameSlots() {
+        return 2 * queueCapacity + 3;
+    }
+
+    /**
+     * Обрабатывает все кадры источника. Источник и приёмник не закрываются.
+     *
+     * @return отчёт с частотой кадров и числом пропущенных
+     */
+    public StreamReport run(FrameSource source, FrameSink sink) throws InterruptedException {
+        StreamReport report = new StreamReport();
+        List<Frame> slots = new ArrayList<>();
+        BlockingQueue<Frame> free = new ArrayBlockingQueue<>(frameSlots());
+        for (int i = 0; i < frameSlots(); i++) {
+            Frame frame = new Frame();
+            slots.add(frame);
+            free.add(frame);
+        }
+        BlockingQueue<Frame> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Frame> processed = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+
+        long start = System.nanoTime();
+        threads.add(stage("stream-decode", failure, threads, () -> {
+            try {
+                decodeLoop(source, free, decoded, report);
+            } finally {
+                // После ошибки следующая стадия уже прервана и маркер не ждёт
+                if (failure.get() == null) {
+                    decoded.put(END);
+                }
+            }
+        }));
+        threads.add(stage("stream-compute", failure, threads, () -> {
+            try {
+                computeLoop(decoded, processed, report);
+            } finally {
+                // После ошибки следующая стадия уже прервана и маркер не ждёт
+                if (failure.get() == null) {
+                    processed.put(END);
+                }
+            }
+        }));
+        threads.add(stage("stream-encode", failure, threads, () -> encodeLoop(sink, processed, free, report)));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            report.wallNanos = System.nanoTime() - start;
+            for (Frame frame : slots) {
+                frame.input.release();
+                frame.output.release();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Обработка потока кадров прервана ошибкой", failure.get());
+        }
+        log.info(report);
+        return report;
+    }
+
+    private void decodeLoop(FrameSource source, BlockingQueue<Frame> free, BlockingQueue<Frame> decoded,
+                            StreamReport report) throws InterruptedException {
+        while (true) {
+            // Остальные стадии занимают не больше frameSlots() - 1 ячеек, так что свободная есть всегда;
+            // отставание обработки видно по заполненной очереди decoded
+            Frame frame = free.take();
+            long t0 = System.nanoTime();
+            if (!source.read(frame.input)) {
+                free.put(frame);
+                return;
+            }
+            long elapsed = System.nanoTime() - t0;
+            if (!dropWhenBehind) {
+                decoded.put(frame);
+            } else if (!decoded.offer(frame)) {
+                // Обработка отстаёт — кадр прочитан, чтобы источник не отставал от реального времени, и отброшен
+                report.framesDropped++;
+                free.put(frame);
+                continue;
+            }
+            report.decodeNanos += elapsed;
+            report.framesRead++;
+        }
+    }
+
+    private void computeLoop(BlockingQueue<Frame> decoded, BlockingQueue<Frame> processed,
+                             StreamReport report) throws InterruptedException {
+        while (true) {
+            Frame frame = decoded.take();
+            if (frame == END) {
+                return;
+            }
+            long t0 = System.nanoTime();
+            pipeline.execute(frame.input, frame.output);
+            report.computeNanos += System.nanoTime() - t0;
+            report.framesProcessed++;
+            processed.put(frame);
+        }
+    }
+
+    private static void encodeLoop(FrameSink sink, BlockingQueue<Frame> processed, BlockingQueue<Frame> free,
+                                   StreamReport report) throws InterruptedException {
+        while (true) {
+            Frame frame = processed.take();
+            if (frame == END) {
+                return;
+            }
+            long t0 = System.nanoTime();
+            sink.write(frame.output);
+            report.encodeNanos += System.nanoTime() - t0;
+            report.framesWritten++;
+            free.put(frame);
+        }
+    }
+
+    private interface StageBody {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Поток стадии. При ошибке запоминает её и прерывает остальные стадии, чтобы они не ждали вечно.
+     */
+    private static Thread stage(String name, AtomicReference<Throwable> failure, List<Thread> all, StageBody body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                if (failure.compareAndSet(null, e)) {
+                    for (Thread other : all) {
+                        if (other != Thread.currentThread()) {
+                            other.interrupt();
+                        }
+                    }
+                }
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class Frame {
+        final Mat input = new Mat();
+        final Mat output = new Mat();
+    }
+}
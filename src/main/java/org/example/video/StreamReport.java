@@ -0,0 +1,72 @@
+package org.example.video;
+
+import java.util.Locale;
+
+/**
+ * Итоги обработки потока кадров.
+ */
+public class StreamReport {
+    long framesRead;
+    long framesProcessed;
+    long framesWritten;
+    long framesDropped;
+    long decodeNanos;
+    long computeNanos;
+    long encodeNanos;
+    long wallNanos;
+
+    /**
+     * @return число кадров, прочитанных из источника и поставленных в обработку
+     */
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    public long getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    /**
+     * @return число кадров, пропущенных из-за отставания обработки (только в режиме пропуска)
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return устойчивая частота кадров на выходе
+     */
+    public double fps() {
+        return wallNanos == 0 ? 0 : framesWritten * 1e9 / wallNanos;
+    }
+
+    /**
+     * @return частота, которую дала бы стадия, работая без остальных
+     */
+    public double decodeFps() {
+        return decodeNanos == 0 ? 0 : framesRead * 1e9 / decodeNanos;
+    }
+
+    public double computeFps() {
+        return computeNanos == 0 ? 0 : framesProcessed * 1e9 / computeNanos;
+    }
+
+    public double encodeFps() {
+        return encodeNanos == 0 ? 0 : framesWritten * 1e9 / encodeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "Stream: %d frames written in %.2f s (%.1f fps), %d dropped; stage fps decode %.1f, compute %.1f, encode %.1f",
+                framesWritten, wallNanos / 1e9, fps(), framesDropped, decodeFps(), computeFps(), encodeFps());
+    }
+}
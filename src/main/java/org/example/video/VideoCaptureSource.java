@@ -0,0 +1,49 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Кадры из видеофайла или камеры через {@link VideoCapture}.
+ * Кадр декодируется прямо в переданный буфер.
+ */
+public class VideoCaptureSource implements FrameSource {
+    private final VideoCapture capture;
+
+    /**
+     * @param path путь к видеофайлу или URL потока
+     */
+    public VideoCaptureSource(String path) {
+        this(new VideoCapture(path), path);
+    }
+
+    /**
+     * @param device номер камеры
+     */
+    public VideoCaptureSource(int device) {
+        this(new VideoCapture(device), "camera " + device);
+    }
+
+    private VideoCaptureSource(VideoCapture capture, String name) {
+        if (!capture.isOpened()) {
+            throw new IllegalArgumentException("Не удалось открыть видео: " + name);
+        }
+        this.capture = capture;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        return capture.read(frame);
+    }
+
+    @Override
+    public double fps() {
+        return capture.get(Videoio.CAP_PROP_FPS);
+    }
+
+    @Override
+    public void close() {
+        capture.release();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.video;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoWriter;
+
+/**
+ * Запись кадров в видеофайл через {@link VideoWriter}. Файл открывается по первому кадру,
+ * размер и цветность берутся из него.
+ */
+public class VideoWriterSink implements FrameSink {
+    private final String path;
+    private final int fourcc;
+    private final double fps;
+    private VideoWriter writer;
+
+    /**
+     * @param path   выходной файл
+     * @param codec  четырёхбуквенный код кодека, например {@code "mp4v"} или {@code "MJPG"}
+     * @param fps    частота кадров
+     */
+    public VideoWriterSink(String path, String codec, double fps) {
+        if (codec.length() != 4) {
+            throw new IllegalArgumentException("Код кодека должен состоять из 4 символов: " + codec);
+        }
+        this.path = path;
+        this.fourcc = VideoWriter.fourcc(codec.charAt(0), codec.charAt(1), codec.charAt(2), codec.charAt(3));
+        this.fps = fps;
+    }
+
+    @Override
+    public void write(Mat frame) {
+        if (writer == null) {
+            writer = new VideoWriter(path, fourcc, fps, new Size(frame.cols(), frame.rows()), frame.channels() > 1);
+            if (!writer.isOpened()) {
+                throw new IllegalStateException("Не удалось открыть видео для записи: " + path);
+            }
+        }
+        writer.write(frame);
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.release();
+        }
+    }
+}
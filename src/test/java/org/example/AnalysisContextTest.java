@@ -0,0 +1,66 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AnalysisContextTest {
+    private static ImageAPI api;
+    private static Mat car;
+    private static Mat adv;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        car = api.loadImage("src/test/test_dir/car.jpeg");
+        adv = api.loadImage("src/test/test_dir/adv.png");
+    }
+
+    private static void assertOtsuMatchesOpenCv(Mat image) {
+        Mat gray = new Mat();
+        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
+        Mat expected = new Mat();
+        double threshold = Imgproc.threshold(gray, expected, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            assertEquals(threshold, frame.otsuThreshold(), 0);
+            assertEquals(0, Core.norm(expected, frame.otsuBinary(), Core.NORM_INF), 0);
+        }
+    }
+
+    @Test
+    public void testOtsuMatchesOpenCv() {
+        assertOtsuMatchesOpenCv(car);
+        assertOtsuMatchesOpenCv(adv);
+    }
+
+    @Test
+    public void testStepsAreComputedOnce() {
+        try (AnalysisContext frame = api.analyze(car)) {
+            assertSame(frame.gray(), frame.gray());
+            assertSame(frame.blur(3), frame.blur(3));
+            assertNotSame(frame.blur(3), frame.blur(5));
+            assertSame(frame.histogram(), frame.histogram());
+            assertEquals(car.total(), Arrays.stream(frame.histogram()).asLongStream().sum());
+        }
+    }
+
+    @Test
+    public void testSharedContextGivesSameResults() {
+        Mat edges = api.getImageEdges(car, 3, 50, 150, true);
+        int canny = api.getCountObjCanny(car, 40, 60, 10);
+        int otsu = api.getCountObj(car, 40, 60, 10);
+
+        try (AnalysisContext frame = api.analyze(car)) {
+            assertEquals(0, Core.norm(edges, api.getImageEdges(frame, 3, 50, 150, true), Core.NORM_INF), 0);
+            assertEquals(canny, api.getCountObjCanny(frame, 40, 60, 10));
+            assertEquals(otsu, api.getCountObj(frame, 40, 60, 10));
+        }
+    }
+}
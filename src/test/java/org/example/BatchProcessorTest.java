@@ -0,0 +1,39 @@
+package org.example;
+
+import org.example.batch.BatchProcessor;
+import org.example.batch.BatchReport;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchProcessorTest {
+
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    @Test
+    public void testResizeSobelBatch() throws Exception {
+        Path inputDir = Paths.get("src/test/test_dir");
+        Path outputDir = Paths.get("src/test/test_dir/batch_results/");
+
+        ImagePipeline pipeline = api.pipeline().resize(320, 240).sobel(1, 0, 3);
+        BatchProcessor batch = new BatchProcessor(pipeline, 1, 2, 1, 1);
+        BatchReport report = batch.run(inputDir, "*.{jpeg,png}", outputDir);
+
+        assertEquals(2, report.getProcessed());
+        assertEquals(0, report.getFailed());
+        assertEquals(2, report.getDecode().getImages());
+        assertTrue(Files.exists(outputDir.resolve("car.jpeg")));
+        assertTrue(Files.exists(outputDir.resolve("adv.png")));
+    }
+}
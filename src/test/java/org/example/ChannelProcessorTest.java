@@ -0,0 +1,130 @@
+package org.example;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.example.metrics.Metrics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class ChannelProcessorTest {
+
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    @Test
+    public void testChannelOps16U4() {
+        ChannelProcessor channels = new ChannelProcessor();
+        Mat img = new Mat(4, 5, CvType.CV_16UC4, new Scalar(1, 2, 3, 4));
+
+        channels.zeroChannel(img, 1);
+        assertArrayEquals(new double[]{1, 0, 3, 4}, img.get(2, 3), 0.0);
+
+        channels.setChannel(img, 3, 1000);
+        assertArrayEquals(new double[]{1, 0, 3, 1000}, img.get(0, 0), 0.0);
+
+        channels.swapChannels(img, 0, 2);
+        assertArrayEquals(new double[]{3, 0, 1, 1000}, img.get(3, 4), 0.0);
+
+        Mat plane = new Mat();
+        channels.extractChannel(img, 3, plane);
+        assertEquals(CvType.CV_16UC1, plane.type());
+        assertEquals(1000, plane.get(1, 1)[0], 0.0);
+
+        channels.mergeChannel(plane, img, 1);
+        assertArrayEquals(new double[]{3, 1000, 1, 1000}, img.get(1, 2), 0.0);
+    }
+
+    @Test
+    public void testZeroChannelIntoDestination() {
+        Mat src = new Mat(3, 3, CvType.CV_8UC3, new Scalar(10, 20, 30));
+        Mat dst = new Mat();
+        api.zeroChannel(src, 2, dst);
+
+        assertArrayEquals(new double[]{10, 20, 30}, src.get(0, 0), 0.0);
+        assertArrayEquals(new double[]{10, 20, 0}, dst.get(0, 0), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChannelOutOfRange() {
+        new ChannelProcessor().zeroChannel(new Mat(2, 2, CvType.CV_8UC1), 1);
+    }
+
+    /**
+     * Выделенная в Java-куче память на вызов (24 Мп, BGR).
+     */
+    @Test
+    public void testZeroChannelAllocationPerCall() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        ChannelProcessor channels = new ChannelProcessor();
+        Mat img = new Mat(4000, 6000, CvType.CV_8UC3, new Scalar(1, 2, 3));
+
+        // Прогрев: первая операция выделяет кэшированную плоскость
+        for (int i = 0; i < 20; i++) {
+            channels.zeroChannel(img, i % 3);
+        }
+
+        int calls = 200;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            channels.zeroChannel(img, i % 3);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("Heap allocation per call: " + allocated / calls, allocated / calls < 64);
+        channels.release();
+    }
+
+    /**
+     * Выделенная в Java-куче память на вызов (24 Мп, BGR) — через ImageAPI, как в рабочем коде.
+     * Логирование выключено: проверяется сама операция.
+     */
+    @Test
+    public void testChannelOpsAllocationPerCall() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        Logger logger = Logger.getLogger(ImageAPI.class);
+        Level level = logger.getLevel();
+        boolean metrics = Metrics.isEnabled();
+        logger.setLevel(Level.WARN);
+        Metrics.setEnabled(false);
+        Mat img = new Mat(4000, 6000, CvType.CV_8UC3, new Scalar(1, 2, 3));
+        try {
+            // Прогрев: первая операция выделяет кэшированные плоскости
+            for (int i = 0; i < 20; i++) {
+                api.zeroChannel(img, i % 3, img);
+                api.setChannel(img, i % 3, 7);
+            }
+
+            int calls = 200;
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < calls; i++) {
+                api.zeroChannel(img, i % 3, img);
+                api.setChannel(img, i % 3, 7);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            assertTrue("Heap allocation per call: " + allocated / calls, allocated / calls < 64);
+        } finally {
+            logger.setLevel(level);
+            Metrics.setEnabled(metrics);
+            img.release();
+            api.releaseChannelCache();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ComponentCounterTest {
+    private static final int[][] TARGETS = {{10, 5, 10}, {20, 40, 10}, {40, 60, 15}, {5, 5, 3}, {3, 3, 2}, {100, 100, 60}};
+
+    private static ImageAPI api;
+    private static Mat car;
+    private static Mat adv;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        car = api.loadImage("src/test/test_dir/car.jpeg");
+        adv = api.loadImage("src/test/test_dir/adv.png");
+    }
+
+    private static int countInBands(Mat image, int[] target, int bandHeight) {
+        ComponentCounter counter = new ComponentCounter(target[0], target[1], target[2])
+                .parallel(ForkJoinPool.commonPool(), bandHeight, 0);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            return SegmentationUtils.countObjectsByComponents(frame, counter);
+        }
+    }
+
+    private static List<int[]> sortedStats(int[] stats) {
+        List<int[]> rows = new ArrayList<>();
+        for (int i = 0; i < stats.length; i += 5) {
+            rows.add(Arrays.copyOfRange(stats, i, i + 5));
+        }
+        rows.sort(Comparator.<int[]>comparingInt(r -> r[1]).thenComparingInt(r -> r[0]).thenComparingInt(r -> r[4]));
+        return rows;
+    }
+
+    @Test
+    public void testMatchesContourCountOnFixtures() {
+        for (Mat image : List.of(car, adv)) {
+            for (int[] t : TARGETS) {
+                int contours = api.getCountObj(image, t[0], t[1], t[2], CountMethod.CONTOURS);
+                assertEquals(contours, api.getCountObj(image, t[0], t[1], t[2], CountMethod.COMPONENTS));
+                assertEquals(contours, countInBands(image, t, 16));
+            }
+        }
+    }
+
+    @Test
+    public void testBandsGiveSameComponents() {
+        try (AnalysisContext frame = new AnalysisContext(adv)) {
+            Mat binary = frame.otsuBinary();
+            ComponentCounter sequential = new ComponentCounter(0, 0, 0);
+            ComponentCounter bands = new ComponentCounter(0, 0, 0).parallel(ForkJoinPool.commonPool(), 7, 0);
+            for (int connectivity : new int[]{4, 8}) {
+                List<int[]> expected = sortedStats(sequential.components(binary, connectivity));
+                List<int[]> actual = sortedStats(bands.components(binary, connectivity));
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertArrayEquals(expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFrameAcrossBandsWithHole() {
+        Mat image = Mat.zeros(100, 80, CvType.CV_8UC3);
+        // Рамка 40x60 с внутренней дыркой 38x58: контурный путь видит два контура
+        Imgproc.rectangle(image, new Point(10, 10), new Point(49, 69), new Scalar(255, 255, 255), 1);
+        int[] target = {40, 60, 1};
+
+        assertEquals(2, api.getCountObj(image, 40, 60, 1, CountMethod.CONTOURS));
+        assertEquals(2, api.getCountObj(image, 40, 60, 1, CountMethod.COMPONENTS));
+        assertEquals(2, countInBands(image, target, 7));
+
+        ComponentCounter outerOnly = new ComponentCounter(40, 60, 1).includeHoles(false);
+        ComponentCounter smallOnly = new ComponentCounter(40, 60, 1).area(0, 500);
+        try (AnalysisContext frame = new AnalysisContext(image)) {
+            assertEquals(1, SegmentationUtils.countObjectsByComponents(frame, outerOnly));
+            // Площадь рамки 196 пикселей, дырки — 38 * 58
+            assertEquals(1, SegmentationUtils.countObjectsByComponents(frame, smallOnly));
+        }
+    }
+}
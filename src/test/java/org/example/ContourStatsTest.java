@@ -0,0 +1,131 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ContourStatsTest {
+    private static ImageAPI api;
+    private static Mat car;
+    private static Mat adv;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        car = api.loadImage("src/test/test_dir/car.jpeg");
+        adv = api.loadImage("src/test/test_dir/adv.png");
+    }
+
+    private static List<MatOfPoint> cannyContours(Mat image) {
+        Mat gray = new Mat();
+        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.GaussianBlur(gray, gray, new Size(5, 5), 0);
+        Imgproc.Canny(gray, gray, 50, 150);
+        List<MatOfPoint> contours = new ArrayList<>();
+        Imgproc.findContours(gray, contours, new Mat(), Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        return contours;
+    }
+
+    private static List<MatOfPoint> otsuContours(Mat image, int mode) {
+        Mat gray = new Mat();
+        Imgproc.cvtColor(image, gray, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.threshold(gray, gray, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+        List<MatOfPoint> contours = new ArrayList<>();
+        Imgproc.findContours(gray, contours, new Mat(), mode, Imgproc.CHAIN_APPROX_SIMPLE);
+        return contours;
+    }
+
+    private static int countMinAreaWithOpenCv(List<MatOfPoint> contours, int width, int height, double tolerance) {
+        int count = 0;
+        for (MatOfPoint contour : contours) {
+            Size size = Imgproc.minAreaRect(new MatOfPoint2f(contour.toArray())).size;
+            double w = Math.min(size.width, size.height);
+            double h = Math.max(size.width, size.height);
+            if (Math.abs(w - width) <= tolerance && Math.abs(h - height) <= tolerance) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countBoundingWithOpenCv(List<MatOfPoint> contours, int width, int height, double tolerance) {
+        int count = 0;
+        for (MatOfPoint contour : contours) {
+            Rect rect = Imgproc.boundingRect(contour);
+            if (Math.abs(rect.width - width) < tolerance && Math.abs(rect.height - height) < tolerance) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testMinAreaRectMatchesOpenCv() {
+        for (Mat image : List.of(car, adv)) {
+            List<MatOfPoint> contours = cannyContours(image);
+            ContourStats stats = new ContourStats(ContourStats.Fit.MIN_AREA_RECT, 0, 0, 1e9).collectRects(true);
+            assertEquals(contours.size(), stats.count(contours));
+
+            double[] rects = stats.getMinAreaRects();
+            for (int i = 0; i < contours.size(); i++) {
+                RotatedRect expected = Imgproc.minAreaRect(new MatOfPoint2f(contours.get(i).toArray()));
+                double w = Math.min(expected.size.width, expected.size.height);
+                double h = Math.max(expected.size.width, expected.size.height);
+                assertEquals(w, rects[5 * i + 2], 1e-2 + 1e-4 * w);
+                assertEquals(h, rects[5 * i + 3], 1e-2 + 1e-4 * h);
+                assertEquals(expected.center.x, rects[5 * i], 1e-2);
+                assertEquals(expected.center.y, rects[5 * i + 1], 1e-2);
+            }
+        }
+    }
+
+    @Test
+    public void testCountsMatchPreviousImplementation() {
+        int[][] targets = {{10, 5, 10}, {20, 40, 10}, {40, 60, 15}, {5, 5, 3}};
+        for (Mat image : List.of(car, adv)) {
+            List<MatOfPoint> canny = cannyContours(image);
+            List<MatOfPoint> tree = otsuContours(image, Imgproc.RETR_TREE);
+            for (int[] t : targets) {
+                assertEquals(countMinAreaWithOpenCv(canny, t[0], t[1], t[2]),
+                        api.getCountObjCanny(image, t[0], t[1], t[2]));
+                assertEquals(countBoundingWithOpenCv(tree, t[0], t[1], t[2]),
+                        api.getCountObj(image, t[0], t[1], t[2]));
+            }
+        }
+    }
+
+    @Test
+    public void testContoursOutsideTargetArePruned() {
+        List<MatOfPoint> contours = cannyContours(car);
+        ContourStats stats = new ContourStats(ContourStats.Fit.MIN_AREA_RECT, 40, 60, 5);
+        stats.count(contours);
+        assertEquals(contours.size(), stats.getExamined());
+        assertTrue(stats.getPruned() > 0);
+    }
+
+    @Test
+    public void testRotatedRectangle() {
+        Point[] corners = new Point[4];
+        new RotatedRect(new Point(100, 100), new Size(30, 80), 30).points(corners);
+        Mat canvas = Mat.zeros(200, 200, CvType.CV_8UC3);
+        MatOfPoint polygon = new MatOfPoint();
+        List<Point> rounded = new ArrayList<>();
+        for (Point corner : corners) {
+            rounded.add(new Point(Math.round(corner.x), Math.round(corner.y)));
+        }
+        polygon.fromList(rounded);
+        Imgproc.fillPoly(canvas, List.of(polygon), new Scalar(255, 255, 255));
+
+        double[] rects = api.getRectangles(canvas, 30, 80, 3);
+        assertEquals(5, rects.length);
+        assertEquals(100, rects[0], 1.5);
+        assertEquals(100, rects[1], 1.5);
+        assertEquals(120, rects[4], 3);
+    }
+}
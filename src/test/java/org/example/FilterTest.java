@@ -3,9 +3,15 @@ package org.example;
 import org.example.filters.FilterResults;
 import org.example.filters.FilterUtils;
 import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 public class FilterTest {
     @Test
@@ -39,4 +45,29 @@ public class FilterTest {
             api.saveImage(String.format("%scar_median_%d.jpeg", outDir, kernelSize), filterResults.median);
         }
     }
+
+    @Test
+    public void testParallelFiltersAreBitIdentical() throws Exception {
+        new ImageAPI();
+        String imgPath = "src/test/test_dir/car.jpeg";
+        ForkJoinPool pool = new ForkJoinPool(3);
+
+        for (int kernelSize : new int[]{1, 3, 9}) {
+            FilterResults serial = FilterUtils.applyFilters(imgPath, kernelSize);
+            FilterResults parallel = FilterUtils.applyFiltersParallel(imgPath, kernelSize, pool);
+            assertNotNull(parallel);
+
+            assertIdentical(serial.blur, parallel.blur);
+            assertIdentical(serial.gaussian, parallel.gaussian);
+            assertIdentical(serial.median, parallel.median);
+            assertIdentical(serial.bilateral, parallel.bilateral);
+        }
+        pool.shutdown();
+    }
+
+    private static void assertIdentical(Mat expected, Mat actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(0, Core.norm(expected, actual, Core.NORM_INF), 0.0);
+    }
 }
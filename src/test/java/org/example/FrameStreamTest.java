@@ -0,0 +1,112 @@
+package org.example;
+
+import org.example.video.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class FrameStreamTest {
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    private static Mat frame(int index) {
+        Mat mat = new Mat(48, 64, CvType.CV_8UC3);
+        Core.setRNGSeed(index);
+        Core.randu(mat, 0, 256);
+        return mat;
+    }
+
+    /**
+     * Источник из сгенерированных кадров, не зависящий от кодеков.
+     */
+    private static FrameSource generated(int count) {
+        return new FrameSource() {
+            private int next;
+
+            @Override
+            public boolean read(Mat target) {
+                if (next >= count) {
+                    return false;
+                }
+                frame(next++).copyTo(target);
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testDirectoryRoundTripKeepsOrder() throws Exception {
+        Path in = Files.createTempDirectory("frames-in");
+        Path out = Files.createTempDirectory("frames-out");
+        for (int i = 0; i < 12; i++) {
+            Imgcodecs.imwrite(in.resolve(String.format("frame_%04d.png", i)).toString(), frame(i));
+        }
+
+        ImagePipeline pipeline = api.pipeline().flip(true);
+        StreamReport report = api.processStream(new FrameDirectorySource(in, "*.png", 25),
+                new FrameDirectorySink(out, "out_%04d.png"), pipeline);
+
+        assertEquals(12, report.getFramesWritten());
+        assertEquals(0, report.getFramesDropped());
+        assertTrue(report.fps() > 0);
+        for (int i = 0; i < 12; i++) {
+            Mat expected = api.flip(frame(i), true);
+            Mat actual = Imgcodecs.imread(out.resolve(String.format("out_%04d.png", i)).toString());
+            assertEquals("кадр " + i, 0, Core.norm(expected, actual, Core.NORM_INF), 0);
+        }
+    }
+
+    @Test
+    public void testFrameBuffersAreReused() throws Exception {
+        FrameStreamProcessor processor = new FrameStreamProcessor(api.pipeline().rotate(10, false), 2, false);
+        Set<Long> addresses = new HashSet<>();
+        StreamReport report = processor.run(generated(100), frame -> addresses.add(frame.dataAddr()));
+
+        assertEquals(100, report.getFramesWritten());
+        // Выходные буферы — только из фиксированного набора ячеек
+        assertTrue(addresses.size() <= processor.frameSlots());
+    }
+
+    @Test
+    public void testSlowSinkDropsFramesInLiveMode() throws Exception {
+        FrameStreamProcessor processor = new FrameStreamProcessor(api.pipeline(), 1, true);
+        StreamReport report = processor.run(generated(200), frame -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(report.getFramesDropped() > 0);
+        assertEquals(200, report.getFramesRead() + report.getFramesDropped());
+        assertEquals(report.getFramesRead(), report.getFramesWritten());
+    }
+
+    @Test
+    public void testSinkFailureStopsAllStages() throws Exception {
+        FrameStreamProcessor processor = new FrameStreamProcessor(api.pipeline(), 1, false);
+        try {
+            processor.run(generated(1000), frame -> {
+                throw new IllegalStateException("диск заполнен");
+            });
+            fail("Ошибка приёмника должна остановить поток");
+        } catch (IllegalStateException e) {
+            assertEquals("диск заполнен", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import org.example.tiles.TileOperation;
+import org.example.tiles.TileSink;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ImageApiAsyncTest {
+    private static final String IMAGE = "src/test/test_dir/car.jpeg";
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    /**
+     * Приёмник плиток, который держит поток ввода-вывода до сигнала.
+     */
+    private static TileSink blockingSink(CountDownLatch started, CountDownLatch release) {
+        return (tile, x, y) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    public void testResultsMatchSynchronousApi() throws Exception {
+        Mat src = new Mat(120, 160, CvType.CV_8UC3);
+        Core.randu(src, 0, 256);
+        try (ImageApiAsync async = new ImageApiAsync(api, 2, 1, 8)) {
+            Mat rotated = async.rotate(src, 20, true).get(10, TimeUnit.SECONDS);
+            assertEquals(0, Core.norm(api.rotate(src, 20, true), rotated, Core.NORM_INF), 0);
+
+            Mat loaded = async.loadImage(IMAGE).get(10, TimeUnit.SECONDS);
+            assertFalse(loaded.empty());
+
+            int count = async.getCountObj(src, 10, 10, 2).get(10, TimeUnit.SECONDS);
+            assertEquals(api.getCountObj(src, 10, 10, 2), count);
+
+            Mat reduced = async.loadImage(IMAGE, 0.5, false).get(10, TimeUnit.SECONDS);
+            assertEquals(0, Core.norm(api.loadImage(IMAGE, 0.5, false), reduced, Core.NORM_INF), 0);
+
+            Rect roi = new Rect(20, 30, 60, 40);
+            Mat sobel = async.applySobel(src, roi, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT).get(10, TimeUnit.SECONDS);
+            assertEquals(0, Core.norm(api.applySobel(src, roi, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT), sobel,
+                    Core.NORM_INF), 0);
+
+            int components = async.getCountObj(src, 10, 10, 2, CountMethod.COMPONENTS).get(10, TimeUnit.SECONDS);
+            assertEquals(api.getCountObj(src, 10, 10, 2, CountMethod.COMPONENTS), components);
+        }
+    }
+
+    @Test
+    public void testFullQueueRejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ImageApiAsync async = new ImageApiAsync(api, 1, 1, 1)) {
+            CompletableFuture<Void> running = async.applyTiled(IMAGE, TileOperation.blur(3),
+                    blockingSink(started, release), 4096, 4096);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            CompletableFuture<Mat> queued = async.loadImage(IMAGE);
+            CompletableFuture<Mat> rejected = async.loadImage(IMAGE);
+
+            try {
+                rejected.getNow(null);
+                fail("Вызов сверх глубины очереди должен быть отклонён");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(1, async.getRejectedCount());
+
+            // Вычислительный пул не затронут занятым пулом ввода-вывода
+            assertNotNull(async.flip(new Mat(4, 4, CvType.CV_8UC1), true).get(10, TimeUnit.SECONDS));
+
+            release.countDown();
+            running.get(10, TimeUnit.SECONDS);
+            assertFalse(queued.get(10, TimeUnit.SECONDS).empty());
+        }
+    }
+
+    @Test
+    public void testDeadlineAndCancellationDropQueuedTasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ImageApiAsync async = new ImageApiAsync(api, 1, 1, 4)) {
+            CompletableFuture<Void> running = async.applyTiled(IMAGE, TileOperation.blur(3),
+                    blockingSink(started, release), 4096, 4096);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            CompletableFuture<Mat> late = async.withDeadline(Duration.ofMillis(50)).loadImage(IMAGE);
+            CompletableFuture<Mat> cancelled = async.loadImage(IMAGE);
+            assertEquals(2, async.getIoQueueDepth());
+
+            try {
+                late.get(10, TimeUnit.SECONDS);
+                fail("Вызов должен завершиться по сроку");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertTrue(cancelled.cancel(false));
+            // Задачи убираются из очереди обработчиком завершения, который может отработать чуть позже get()
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((async.getIoQueueDepth() > 0 || async.getExpiredCount() == 0) && System.nanoTime() < until) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, async.getIoQueueDepth());
+            assertEquals(1, async.getExpiredCount());
+
+            release.countDown();
+            running.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
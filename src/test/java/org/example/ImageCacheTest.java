@@ -0,0 +1,96 @@
+package org.example;
+
+import org.example.cache.ImageCache;
+import org.example.metrics.Metrics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class ImageCacheTest {
+    private static final String CAR = "src/test/test_dir/car.jpeg";
+    private static final String ADV = "src/test/test_dir/adv.png";
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        new ImageAPI();
+    }
+
+    private static ImageCache.Decoder counting(int[] decodes) {
+        return (path, flags) -> {
+            decodes[0]++;
+            return Imgcodecs.imread(path, flags);
+        };
+    }
+
+    @Test
+    public void testRepeatedLoadsDecodeOnce() {
+        int[] decodes = {0};
+        ImageCache cache = new ImageCache(1L << 30, counting(decodes));
+        Mat expected = Imgcodecs.imread(CAR);
+        for (int i = 0; i < 5; i++) {
+            Mat image = cache.load(CAR, Imgcodecs.IMREAD_COLOR);
+            assertEquals(0, Core.norm(expected, image, Core.NORM_INF), 0);
+        }
+        assertEquals(1, decodes[0]);
+        assertEquals(4, cache.getHits());
+        assertEquals(0.8, cache.getHitRatio(), 1e-9);
+        assertEquals(expected.total() * expected.elemSize(), cache.getBytes());
+    }
+
+    @Test
+    public void testLoadedCopiesDoNotAffectCache() {
+        ImageCache cache = new ImageCache(1L << 30, counting(new int[1]));
+        Mat first = cache.load(CAR, Imgcodecs.IMREAD_COLOR);
+        first.setTo(new Scalar(0, 0, 0));
+        Mat second = cache.load(CAR, Imgcodecs.IMREAD_COLOR);
+        assertEquals(0, Core.norm(Imgcodecs.imread(CAR), second, Core.NORM_INF), 0);
+    }
+
+    @Test
+    public void testEvictedEntryStaysValidWhileHandleIsOpen() {
+        Mat car = Imgcodecs.imread(CAR);
+        ImageCache cache = new ImageCache(car.total() * car.elemSize(), counting(new int[1]));
+        try (ImageCache.Handle handle = cache.acquire(CAR, Imgcodecs.IMREAD_COLOR)) {
+            // Вторая запись вытесняет первую, но открытый handle держит матрицу
+            cache.acquire(ADV, Imgcodecs.IMREAD_GRAYSCALE).close();
+            assertTrue(cache.getEvictions() >= 1);
+            assertEquals(0, Core.norm(car, handle.mat(), Core.NORM_INF), 0);
+        }
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws Exception {
+        int[] decodes = {0};
+        ImageCache cache = new ImageCache(1L << 30, counting(decodes));
+        Path source = Files.createTempFile("cached", ".png");
+        Files.copy(Paths.get(ADV), source, StandardCopyOption.REPLACE_EXISTING);
+
+        cache.load(source.toString(), Imgcodecs.IMREAD_COLOR);
+        Mat replacement = Imgcodecs.imread(CAR);
+        Imgcodecs.imwrite(source.toString(), replacement);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        Mat reloaded = cache.load(source.toString(), Imgcodecs.IMREAD_COLOR);
+        assertEquals(2, decodes[0]);
+        assertEquals(1, cache.getEntries());
+        assertEquals(0, Core.norm(replacement, reloaded, Core.NORM_INF), 0);
+    }
+
+    @Test
+    public void testExportedSeriesAppearInScrape() {
+        Metrics.export("imageapi_test_cache_bytes", "gauge", "Test series.", () -> 42);
+        assertTrue(Metrics.scrape().contains("imageapi_test_cache_bytes 42\n"));
+    }
+}
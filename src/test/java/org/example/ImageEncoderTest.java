@@ -0,0 +1,88 @@
+package org.example;
+
+import org.example.encode.EncoderParams;
+import org.example.encode.ImageEncoder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class ImageEncoderTest {
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    @Test
+    public void testJpegQualityChangesSize() {
+        MatOfByte low = api.encodeImage(original, EncoderParams.jpeg(30));
+        MatOfByte high = api.encodeImage(original, EncoderParams.jpeg(95).optimize(true));
+        assertTrue(low.total() < high.total());
+
+        Mat decoded = Imgcodecs.imdecode(high, Imgcodecs.IMREAD_COLOR);
+        assertEquals(original.size(), decoded.size());
+    }
+
+    @Test
+    public void testPngIsLossless() throws Exception {
+        Path file = Files.createTempFile("encoded", ".png");
+        api.saveImage(file.toString(), original, EncoderParams.png(1).strategy(Imgcodecs.IMWRITE_PNG_STRATEGY_RLE));
+        Mat decoded = Imgcodecs.imread(file.toString());
+        assertEquals(0, Core.norm(original, decoded, Core.NORM_INF), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQualityIsRejected() {
+        EncoderParams.jpeg(101);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSaveFailureIsReported() {
+        api.saveImage("/nonexistent-dir/out.jpeg", original);
+    }
+
+    @Test
+    public void testBackgroundEncodingReportsFailures() throws Exception {
+        Path dir = Files.createTempDirectory("encoded");
+        List<CompletableFuture<Void>> saved = new ArrayList<>();
+        try (ImageEncoder encoder = new ImageEncoder(2, 1)) {
+            for (int i = 0; i < 10; i++) {
+                saved.add(encoder.save(dir.resolve("out_" + i + ".jpg").toString(), original, EncoderParams.jpeg(80)));
+            }
+            CompletableFuture<Void> broken = encoder.save(dir.resolve("missing/out.jpg").toString(),
+                    original, EncoderParams.jpeg(80));
+            CompletableFuture<MatOfByte> bytes = encoder.encode(original, EncoderParams.png(3));
+
+            try {
+                broken.get();
+                fail("Ошибка записи должна дойти до вызывающего");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertTrue(bytes.get().total() > 0);
+            for (CompletableFuture<Void> future : saved) {
+                future.get();
+            }
+            assertEquals(1, encoder.getFailures());
+            assertEquals(11, encoder.getCompleted());
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(Files.size(dir.resolve("out_" + i + ".jpg")) > 0);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ImagePipelineTest {
+
+    private static ImageAPI api;
+    private static String outputDir;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        outputDir = "src/test/test_dir/image_pipeline_results/";
+
+        Files.createDirectories(Paths.get(outputDir));
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    @Test
+    public void testGeometricStepsAreFused() {
+        ImagePipeline pipeline = api.pipeline()
+                .resize(original.width() / 2, original.height() / 2)
+                .rotate(30, true)
+                .shift(20, 10)
+                .flip(true)
+                .perspective(15, "TOP", 0.5)
+                .sobel(1, 0, 3);
+
+        assertEquals(Arrays.asList("warp[resize+rotate+shift+flip+perspective]", "sobel"), pipeline.describePlan());
+
+        Mat result = pipeline.execute(original);
+        assertFalse(result.empty());
+        assertEquals(1, result.channels());
+        api.saveImage(outputDir + "fused_chain.jpeg", result);
+    }
+
+    @Test
+    public void testSingleResizeMatchesApi() {
+        int w = original.width() / 3;
+        int h = original.height() / 3;
+        Mat expected = api.resize(original, w, h);
+        Mat actual = api.pipeline().resize(w, h).execute(original);
+
+        assertEquals(0, Core.norm(expected, actual, Core.NORM_INF), 0.0);
+    }
+
+    @Test
+    public void testSingleRotateMatchesApi() {
+        Mat expected = api.rotate(original, 45, true);
+        Mat actual = api.pipeline().rotate(45, true).execute(original);
+
+        assertEquals(expected.size(), actual.size());
+        assertTrue(Core.norm(expected, actual, Core.NORM_INF) <= 1);
+    }
+
+    @Test
+    public void testSobelMatchesApi() {
+        Mat expected = api.applySobel(original, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT);
+        Mat actual = api.pipeline().sobel(1, 0, 3).execute(original);
+
+        assertEquals(0, Core.norm(expected, actual, Core.NORM_INF), 0.0);
+    }
+
+    @Test
+    public void testBuffersReusedBetweenRuns() {
+        ImagePipeline pipeline = api.pipeline().flip(true).zeroChannel(0).sobel(0, 1, 3).zeroChannel(0);
+        Mat dst = new Mat();
+        pipeline.execute(original, dst);
+        long address = dst.dataAddr();
+        pipeline.execute(original, dst);
+
+        assertEquals(address, dst.dataAddr());
+        pipeline.release();
+    }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import org.example.tiles.IncrementalProcessor;
+import org.example.tiles.TileOperation;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IncrementalProcessorTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        new ImageAPI();
+    }
+
+    private static Mat background() {
+        Mat mat = new Mat(240, 320, CvType.CV_8UC3);
+        Core.setRNGSeed(7);
+        Core.randu(mat, 0, 256);
+        return mat;
+    }
+
+    /**
+     * Кадр с движущимся квадратом на неподвижном фоне.
+     */
+    private static Mat frame(Mat background, int index) {
+        Mat frame = background.clone();
+        Point corner = new Point(20 + 9 * index, 30 + 4 * index);
+        Imgproc.rectangle(frame, corner, new Point(corner.x + 25, corner.y + 25), new Scalar(0, 0, 0), -1);
+        return frame;
+    }
+
+    private static void assertMatchesFullFrame(TileOperation operation) {
+        Mat background = background();
+        IncrementalProcessor processor = new IncrementalProcessor(operation, 32, 0);
+        for (int i = 0; i < 10; i++) {
+            Mat frame = frame(background, i);
+            Mat expected = new Mat();
+            operation.apply(frame, expected);
+            Mat actual = processor.process(frame);
+            assertEquals("кадр " + i, 0, Core.norm(expected, actual, Core.NORM_INF), 0);
+        }
+        assertEquals(1, processor.getFullFrames());
+        assertTrue(processor.getRecomputedFraction() < 0.5);
+        processor.reset();
+    }
+
+    @Test
+    public void testSobelMatchesFullFrame() {
+        assertMatchesFullFrame(TileOperation.sobel(1, 0, 3, 1, 0, Core.BORDER_DEFAULT));
+    }
+
+    @Test
+    public void testGaussianBlurMatchesFullFrame() {
+        assertMatchesFullFrame(TileOperation.gaussianBlur(7));
+    }
+
+    @Test
+    public void testMedianBlurMatchesFullFrame() {
+        assertMatchesFullFrame(TileOperation.medianBlur(5));
+    }
+
+    @Test
+    public void testOpeningMatchesFullFrame() {
+        assertMatchesFullFrame(TileOperation.morphology(5, Imgproc.MORPH_OPEN, Imgproc.MORPH_RECT));
+    }
+
+    @Test
+    public void testCannyRecomputesWholeChangedFrame() {
+        TileOperation canny = TileOperation.canny(3, 50, 150);
+        Mat background = background();
+        IncrementalProcessor processor = new IncrementalProcessor(canny, 32, 0);
+        for (int i = 0; i < 5; i++) {
+            Mat frame = frame(background, i);
+            Mat expected = new Mat();
+            canny.apply(frame, expected);
+            assertEquals("кадр " + i, 0, Core.norm(expected, processor.process(frame), Core.NORM_INF), 0);
+        }
+        // Гистерезис нелокален: каждый изменившийся кадр пересчитан целиком
+        assertEquals(5, processor.getFullFrames());
+
+        // Неизменившийся кадр не пересчитывается
+        processor.process(frame(background, 4));
+        assertEquals(5, processor.getFullFrames());
+        assertEquals(0, processor.getLastDirtyFraction(), 0);
+    }
+
+    @Test
+    public void testStaticFrameRecomputesNothing() {
+        Mat background = background();
+        IncrementalProcessor processor = new IncrementalProcessor(TileOperation.blur(5), 32, 0);
+        processor.process(background);
+        processor.process(background.clone());
+        assertEquals(0, processor.getLastDirtyFraction(), 0);
+
+        // Квадрат 25x25 задевает не больше четырёх блоков 32x32
+        processor.process(frame(background, 0));
+        assertTrue(processor.getLastDirtyFraction() <= 4 * 32 * 32 / (240.0 * 320));
+    }
+
+    @Test
+    public void testChangedRegionsSeeDarkening() {
+        Mat before = new Mat(64, 64, CvType.CV_8UC1, new Scalar(200));
+        Mat after = before.clone();
+        // Потемнение: вычитание с насыщением его бы не заметило
+        Imgproc.rectangle(after, new Point(40, 5), new Point(45, 10), new Scalar(10), -1);
+
+        List<Rect> regions = SegmentationUtils.getChangedRegions(before, after, 16, 0);
+        assertEquals(1, regions.size());
+        assertEquals(new Rect(32, 0, 16, 16), regions.get(0));
+
+        assertTrue(SegmentationUtils.getChangedRegions(before, after, 16, 200).isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import org.example.cache.MappedImageCache;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MappedImageCacheTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        new ImageAPI();
+    }
+
+    private static long entries(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".img")).count();
+        }
+    }
+
+    @Test
+    public void testSecondLoadIsServedFromCache() throws Exception {
+        Path dir = Files.createTempDirectory("mapped-cache");
+        MappedImageCache cache = new MappedImageCache(dir, 1L << 30);
+        String path = "src/test/test_dir/car.jpeg";
+        Mat expected = Imgcodecs.imread(path);
+
+        Mat first = cache.load(path, Imgcodecs.IMREAD_COLOR);
+        Mat second = cache.load(path, Imgcodecs.IMREAD_COLOR);
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, Core.norm(expected, first, Core.NORM_INF), 0);
+        assertEquals(0, Core.norm(expected, second, Core.NORM_INF), 0);
+        // Разные флаги декодирования — разные записи
+        Mat gray = cache.load(path, Imgcodecs.IMREAD_GRAYSCALE);
+        assertEquals(1, gray.channels());
+        assertEquals(2, entries(dir));
+    }
+
+    @Test
+    public void testInstancesOnSameDirectoryPublishConcurrently() throws Exception {
+        Path dir = Files.createTempDirectory("mapped-cache");
+        MappedImageCache first = new MappedImageCache(dir, 1L << 30);
+        MappedImageCache second = new MappedImageCache(dir.resolve("..").resolve(dir.getFileName()), 1L << 30);
+        String path = "src/test/test_dir/adv.png";
+        Mat expected = Imgcodecs.imread(path);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Mat>> loads = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                MappedImageCache cache = i % 2 == 0 ? first : second;
+                int flags = i % 4 < 2 ? Imgcodecs.IMREAD_COLOR : Imgcodecs.IMREAD_UNCHANGED;
+                loads.add(executor.submit(() -> cache.load(path, flags)));
+            }
+            for (Future<Mat> load : loads) {
+                Mat image = load.get(30, TimeUnit.SECONDS);
+                assertEquals(expected.size(), image.size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, entries(dir));
+    }
+
+    @Test
+    public void testChangedSourceInvalidatesEntry() throws Exception {
+        Path dir = Files.createTempDirectory("mapped-cache");
+        Path source = Files.createTempFile("source", ".png");
+        Files.copy(Paths.get("src/test/test_dir/adv.png"), source, StandardCopyOption.REPLACE_EXISTING);
+        MappedImageCache cache = new MappedImageCache(dir, 1L << 30);
+
+        cache.load(source.toString(), Imgcodecs.IMREAD_COLOR);
+        Mat replacement = Imgcodecs.imread("src/test/test_dir/car.jpeg");
+        Imgcodecs.imwrite(source.toString(), replacement);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        Mat reloaded = cache.load(source.toString(), Imgcodecs.IMREAD_COLOR);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(0, Core.norm(replacement, reloaded, Core.NORM_INF), 0);
+        assertEquals(1, entries(dir));
+    }
+
+    @Test
+    public void testSizeLimitEvictsLeastRecentlyRead() throws Exception {
+        Path dir = Files.createTempDirectory("mapped-cache");
+        Mat car = Imgcodecs.imread("src/test/test_dir/car.jpeg");
+        // Места хватает ровно на одну запись
+        MappedImageCache cache = new MappedImageCache(dir, car.total() * car.elemSize() + 4096);
+
+        cache.load("src/test/test_dir/car.jpeg", Imgcodecs.IMREAD_COLOR);
+        cache.load("src/test/test_dir/adv.png", Imgcodecs.IMREAD_COLOR);
+
+        assertTrue(cache.getEvictions() >= 1);
+        assertTrue(entries(dir) <= 1);
+    }
+
+    @Test
+    public void testCorruptEntryIsReplaced() throws Exception {
+        Path dir = Files.createTempDirectory("mapped-cache");
+        MappedImageCache cache = new MappedImageCache(dir, 1L << 30);
+        String path = "src/test/test_dir/adv.png";
+        cache.load(path, Imgcodecs.IMREAD_COLOR);
+        try (Stream<Path> files = Files.list(dir)) {
+            Path entry = files.filter(file -> file.toString().endsWith(".img")).findFirst().orElseThrow();
+            Files.write(entry, new byte[]{1, 2, 3});
+        }
+
+        Mat reloaded = cache.load(path, Imgcodecs.IMREAD_COLOR);
+        assertEquals(0, Core.norm(Imgcodecs.imread(path), reloaded, Core.NORM_INF), 0);
+        assertEquals(1, cache.getInvalidations());
+        assertEquals(2, cache.getMisses());
+    }
+}
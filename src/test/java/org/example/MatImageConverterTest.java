@@ -0,0 +1,121 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class MatImageConverterTest {
+
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    @Test
+    public void testRoundTripAllSupportedTypes() {
+        MatImageConverter converter = new MatImageConverter();
+        int[] types = {CvType.CV_8UC1, CvType.CV_8UC3, CvType.CV_8UC4,
+                CvType.CV_16UC1, CvType.CV_16UC3, CvType.CV_16UC4};
+        for (int type : types) {
+            Mat src = new Mat(37, 53, type);
+            Core.randu(src, 0, CvType.depth(type) == CvType.CV_8U ? 256 : 65536);
+
+            BufferedImage image = converter.toBufferedImage(src);
+            assertEquals(src.cols(), image.getWidth());
+            assertEquals(src.rows(), image.getHeight());
+
+            Mat back = new Mat();
+            converter.toMat(image, back);
+            assertEquals(CvType.typeToString(type), type, back.type());
+            assertEquals(0, Core.norm(src, back, Core.NORM_INF), 0.0);
+        }
+    }
+
+    @Test
+    public void testColorOrderMatchesJava2D() {
+        Mat bgr = new Mat(1, 1, CvType.CV_8UC3);
+        bgr.put(0, 0, 10, 20, 30);
+        BufferedImage image = new MatImageConverter().toBufferedImage(bgr);
+        assertEquals(0x1E140A, image.getRGB(0, 0) & 0xFFFFFF);
+
+        Mat bgra = new Mat(1, 1, CvType.CV_8UC4);
+        bgra.put(0, 0, 10, 20, 30, 128);
+        image = new MatImageConverter().toBufferedImage(bgra);
+        assertEquals(0x801E140A, image.getRGB(0, 0));
+    }
+
+    @Test
+    public void testAbgrImageToMat() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_4BYTE_ABGR);
+        image.setRGB(0, 0, 0x801E140A);
+        Mat mat = api.fromBufferedImage(image);
+        assertEquals(CvType.CV_8UC4, mat.type());
+        assertArrayEquals(new double[]{10, 20, 30, 128}, mat.get(0, 0), 0.0);
+    }
+
+    @Test
+    public void testSubmatConversion() {
+        Mat roi = original.submat(10, 60, 20, 90);
+        BufferedImage image = new MatImageConverter().toBufferedImage(roi);
+        Mat back = new Mat();
+        new MatImageConverter().toMat(image, back);
+        assertEquals(0, Core.norm(roi, back, Core.NORM_INF), 0.0);
+    }
+
+    /**
+     * Сравнение выделений в куче с прежним путём showImage: byte[] + System.arraycopy в новый BufferedImage.
+     */
+    @Test
+    public void testAllocatesLessThanDoubleCopy() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Mat frame = new Mat();
+        Imgproc.resize(original, frame, new Size(1920, 1080));
+        MatImageConverter converter = new MatImageConverter();
+        int calls = 100;
+
+        for (int i = 0; i < 20; i++) {
+            legacyConvert(frame);
+            converter.toBufferedImage(frame);
+        }
+
+        long allocBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            legacyConvert(frame);
+        }
+        long legacyBytes = threads.getThreadAllocatedBytes(threadId) - allocBefore;
+
+        allocBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            converter.toBufferedImage(frame);
+        }
+        long newBytes = threads.getThreadAllocatedBytes(threadId) - allocBefore;
+
+        assertTrue(newBytes < legacyBytes / 100);
+    }
+
+    private static BufferedImage legacyConvert(Mat mat) {
+        int type = mat.channels() > 1 ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_BYTE_GRAY;
+        byte[] b = new byte[mat.channels() * mat.cols() * mat.rows()];
+        mat.get(0, 0, b);
+        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
+        byte[] targetPixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(b, 0, targetPixels, 0, b.length);
+        return image;
+    }
+}
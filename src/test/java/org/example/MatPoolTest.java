@@ -0,0 +1,68 @@
+package org.example;
+
+import org.example.memory.MatLease;
+import org.example.memory.MatPool;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatPoolTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        new ImageAPI();
+    }
+
+    @Test
+    public void testReuseBySizeAndType() {
+        MatPool pool = new MatPool(1 << 20, false);
+        long address;
+        try (MatLease lease = pool.acquire(10, 20, CvType.CV_8UC3)) {
+            address = lease.mat().dataAddr();
+        }
+        try (MatLease lease = pool.acquire(10, 20, CvType.CV_8UC3)) {
+            assertEquals(address, lease.mat().dataAddr());
+        }
+        try (MatLease lease = pool.acquire(10, 20, CvType.CV_8UC1)) {
+            assertNotEquals(address, lease.mat().dataAddr());
+        }
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyReturnedIsEvicted() {
+        // Помещаются ровно две свободные матрицы 100x100 CV_8UC1
+        MatPool pool = new MatPool(20_000, false);
+        MatLease a = pool.acquire(100, 100, CvType.CV_8UC1);
+        MatLease b = pool.acquire(100, 100, CvType.CV_8UC1);
+        MatLease c = pool.acquire(100, 100, CvType.CV_8UC1);
+        Mat first = a.mat();
+        a.close();
+        b.close();
+        c.close();
+
+        assertEquals(1, pool.getEvictions());
+        assertEquals(20_000, pool.getIdleBytes());
+        assertTrue(first.empty());
+    }
+
+    @Test
+    public void testLeakReportContainsAllocationSite() {
+        MatPool pool = new MatPool(1 << 20, true);
+        MatLease leaked = pool.acquire(4, 4, CvType.CV_32F);
+        pool.acquire(4, 4, CvType.CV_32F).close();
+
+        List<String> leaks = pool.reportLeaks();
+        assertEquals(1, leaks.size());
+        assertTrue(leaks.get(0).contains("testLeakReportContainsAllocationSite"));
+
+        leaked.close();
+        assertTrue(pool.reportLeaks().isEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.Metrics;
+import org.example.metrics.MetricsHttpServer;
+import org.example.metrics.OperationMetrics;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import javax.management.ObjectName;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testHistogramQuantilesWithinFourPercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_000, histogram.getValueAtQuantile(0.5), 50_000_000 * 0.04);
+        assertEquals(99_000_000, histogram.getValueAtQuantile(0.99), 99_000_000 * 0.04);
+        assertEquals(1000, histogram.getValueAtQuantile(0), 1000 * 0.04);
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() {
+        Metrics.setEnabled(false);
+        long before = Metrics.operation("flip").getCount();
+        api.flip(new Mat(10, 10, CvType.CV_8UC3), true);
+        assertNull(Metrics.start("flip", null));
+        assertEquals(before, Metrics.operation("flip").getCount());
+    }
+
+    @Test
+    public void testEnabledRecordsCountsPixelsAndNativeBytes() throws Exception {
+        Metrics.setEnabled(true);
+        Mat img = new Mat(100, 200, CvType.CV_8UC3);
+        api.resize(img, 50, 40);
+        api.resize(img, 50, 40);
+
+        OperationMetrics resize = Metrics.operation("resize");
+        assertEquals(2, resize.getCount());
+        assertEquals(2 * 100 * 200, resize.getInputPixels());
+        assertEquals(2 * 50 * 40, resize.getOutputPixels());
+        assertTrue(resize.getNativeBytes() >= 2 * 50 * 40 * 3);
+        assertTrue(resize.getMaxMicros() > 0);
+
+        ObjectName name = new ObjectName("org.example:type=ImageAPI,operation=\"resize\"");
+        assertEquals(2L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+    }
+
+    @Test
+    public void testRegionOperationsRecordRegionPixels() {
+        Metrics.setEnabled(true);
+        Mat img = new Mat(100, 200, CvType.CV_8UC3);
+        api.applySobel(img, new Rect(10, 20, 30, 40), 1, 0, 3, 1, 0, Core.BORDER_DEFAULT);
+
+        OperationMetrics sobel = Metrics.operation("applySobelRoi");
+        assertEquals(1, sobel.getCount());
+        assertEquals(30 * 40, sobel.getInputPixels());
+        assertEquals(30 * 40, sobel.getOutputPixels());
+    }
+
+    @Test
+    public void testScrapeEndpointServesPrometheusText() throws Exception {
+        Metrics.setEnabled(true);
+        api.getCountObj(new Mat(64, 64, CvType.CV_8UC3), 10, 10, 2);
+
+        try (MetricsHttpServer server = new MetricsHttpServer(0)) {
+            String body;
+            try (InputStream in = new URL("http://localhost:" + server.getPort() + "/metrics").openStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertTrue(body.contains("# TYPE imageapi_latency_seconds summary"));
+            assertTrue(body.contains("imageapi_latency_seconds_count{operation=\"getCountObj\"} 1"));
+            assertTrue(body.contains("imageapi_input_pixels_total{operation=\"getCountObj\"} 4096"));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import org.example.serving.GatedImageAPI;
+import org.example.serving.NativeGate;
+import org.example.serving.VirtualThreads;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NativeGateTest {
+    private static ImageAPI api;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+    }
+
+    @Test
+    public void testConcurrencyNeverExceedsPermits() throws Exception {
+        NativeGate gate = new NativeGate(2);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> gate.call(() -> {
+                int now = inside.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                Thread.sleep(5);
+                inside.decrementAndGet();
+                return now;
+            })));
+        }
+        for (Future<Integer> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(2, peak.get());
+        assertEquals(32, gate.getComputeTime().getCount());
+        assertEquals(32, gate.getQueueTime().getCount());
+        // 32 задачи по 5 мс на двух разрешениях: кто-то обязательно ждал дольше одной задачи
+        assertTrue(gate.getQueueTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(gate.getComputeTime().getValueAtQuantile(0.5) >= TimeUnit.MILLISECONDS.toNanos(4));
+    }
+
+    @Test
+    public void testGatedApiMatchesDirectCalls() {
+        GatedImageAPI gated = new GatedImageAPI(api, new NativeGate(1));
+        Mat src = new Mat(90, 120, CvType.CV_8UC3);
+        Core.randu(src, 0, 256);
+
+        assertEquals(0, Core.norm(api.resize(src, 60, 45), gated.resize(src, 60, 45), Core.NORM_INF), 0);
+        assertEquals(api.getCountObjCanny(src, 10, 10, 3), gated.getCountObjCanny(src, 10, 10, 3));
+        assertEquals(2, gated.getGate().getComputeTime().getCount());
+        assertEquals(0, gated.getGate().getQueueLength());
+    }
+}
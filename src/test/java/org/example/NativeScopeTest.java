@@ -0,0 +1,74 @@
+package org.example;
+
+import org.example.memory.MatPool;
+import org.example.memory.NativeScope;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import static org.junit.Assert.*;
+
+public class NativeScopeTest {
+
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    @Test
+    public void testScopeReleasesTrackedMats() {
+        long released = NativeScope.releasedBytes();
+        Mat tracked;
+        try (NativeScope scope = NativeScope.open()) {
+            tracked = scope.track(new Mat(100, 100, CvType.CV_8UC3));
+            assertTrue(NativeScope.scopedBytes() >= 30_000);
+        }
+        assertTrue(tracked.empty());
+        assertTrue(NativeScope.releasedBytes() - released >= 30_000);
+    }
+
+    @Test
+    public void testViewsAreNotCountedTwice() {
+        long released = NativeScope.releasedBytes();
+        try (NativeScope scope = NativeScope.open()) {
+            Mat parent = scope.track(new Mat(100, 100, CvType.CV_8UC1));
+            scope.track(parent.rowRange(0, 50));
+            scope.track(parent.submat(10, 20, 10, 20));
+        }
+        assertEquals(10_000, NativeScope.releasedBytes() - released);
+    }
+
+    private static void runOperations() {
+        api.rotate(original, 15, true).release();
+        api.shift(original, 10, 5).release();
+        api.perspectiveTransform(original, 30, "LEFT", 0.5).release();
+        api.applySobel(original, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT).release();
+        api.getCountObj(original, 10, 5, 10);
+        api.getCountObjCanny(original, 10, 5, 10);
+    }
+
+    private static long heldBytes() {
+        // Свободные матрицы пула не считаем: их объём зависит от того, что уже выполнялось в этом JVM
+        return NativeScope.scopedBytes() + MatPool.shared().getLeasedBytes();
+    }
+
+    @Test
+    public void testOperationsLeaveNoLiveTemporaries() {
+        // Прогрев пула временных матриц всеми операциями
+        runOperations();
+        long baseline = heldBytes();
+
+        for (int i = 0; i < 20; i++) {
+            runOperations();
+        }
+
+        assertEquals(0, NativeScope.openScopeCount());
+        assertEquals(baseline, heldBytes());
+    }
+}
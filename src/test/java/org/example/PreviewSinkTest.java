@@ -0,0 +1,51 @@
+package org.example;
+
+import org.example.preview.ThumbnailPreviewSink;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PreviewSinkTest {
+
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    @Test
+    public void testThumbnailsAreThrottledAndScaled() throws Exception {
+        Path dir = Paths.get("src/test/test_dir/preview_results/");
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        ThumbnailPreviewSink sink = new ThumbnailPreviewSink(dir, 64, 60_000);
+        api.setPreviewSink(sink);
+        for (int i = 0; i < 5; i++) {
+            api.showImage(original);
+        }
+        sink.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        Mat thumbnail = Imgcodecs.imread(dir.resolve("preview_00000.jpg").toString());
+        assertEquals(64, Math.max(thumbnail.cols(), thumbnail.rows()));
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.Assert.*;
+
+public class ReducedDecodeTest {
+    private static final String CAR = "src/test/test_dir/car.jpeg";
+
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage(CAR);
+    }
+
+    private static double meanAbsDiff(Mat a, Mat b) {
+        Mat diff = new Mat();
+        Core.absdiff(a, b, diff);
+        double[] mean = Core.mean(diff).val;
+        return Math.max(mean[0], Math.max(mean[1], mean[2]));
+    }
+
+    @Test
+    public void testReductionFactorKeepsTargetSize() {
+        assertEquals(8, ImageProcessor.reducedDecodeFactor(4000, 3000, 500, 375));
+        assertEquals(4, ImageProcessor.reducedDecodeFactor(4000, 3000, 501, 375));
+        assertEquals(2, ImageProcessor.reducedDecodeFactor(4000, 3000, 1920, 1080));
+        assertEquals(1, ImageProcessor.reducedDecodeFactor(4000, 3000, 2500, 1000));
+    }
+
+    @Test
+    public void testLoadAtTargetSizeIsCloseToResize() {
+        int width = original.cols() / 4;
+        int height = original.rows() / 4;
+        Mat reduced = api.loadImage(CAR, width, height, false);
+
+        assertEquals(new Size(width, height), reduced.size());
+        Mat expected = new Mat();
+        Imgproc.resize(original, expected, new Size(width, height), 0, 0, Imgproc.INTER_AREA);
+        assertTrue(meanAbsDiff(expected, reduced) < 8);
+    }
+
+    @Test
+    public void testLoadWithScaleInGrayscale() {
+        Mat gray = api.loadImage(CAR, 0.5, true);
+        assertEquals(1, gray.channels());
+        assertEquals(Math.round(original.cols() * 0.5), gray.cols());
+        assertEquals(Math.round(original.rows() * 0.5), gray.rows());
+    }
+
+    @Test
+    public void testPipelinePicksDecodeMode() {
+        int w = original.cols();
+        int h = original.rows();
+        assertEquals(Imgcodecs.IMREAD_REDUCED_GRAYSCALE_2,
+                api.pipeline().resize(w / 2, h / 2).rotate(10, false).sobel(1, 0, 3).decodeFlags(w, h));
+        assertEquals(Imgcodecs.IMREAD_REDUCED_COLOR_4,
+                api.pipeline().resize(w / 4, h / 4).zeroChannel(0).decodeFlags(w, h));
+        assertEquals(Imgcodecs.IMREAD_GRAYSCALE,
+                api.pipeline().rotate(10, false).edges(3, 50, 150, false).decodeFlags(w, h));
+        // Цвет нужен первому негеометрическому шагу — серое не выбирается
+        assertEquals(Imgcodecs.IMREAD_COLOR,
+                api.pipeline().zeroChannel(0).sobel(1, 0, 3).decodeFlags(w, h));
+    }
+
+    @Test
+    public void testPipelineLoadMatchesFullDecodeClosely() {
+        int w = original.cols() / 2;
+        int h = original.rows() / 2;
+        ImagePipeline pipeline = api.pipeline().resize(w, h).laplace(3, 1, 0, Core.BORDER_DEFAULT);
+
+        Mat loaded = pipeline.load(CAR);
+        Mat expected = pipeline.copy().execute(original);
+        assertEquals(new Size(w, h), loaded.size());
+        assertEquals(1, loaded.channels());
+        Mat diff = new Mat();
+        Core.absdiff(expected, loaded, diff);
+        assertTrue(Core.mean(diff).val[0] < 12);
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import org.example.filters.FilterResults;
+import org.example.filters.FilterUtils;
+import org.example.tiles.TileOperation;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoiProcessorTest {
+    private static final String CAR = "src/test/test_dir/car.jpeg";
+    // Внутренняя область и область у правого нижнего края изображения
+    private static final Rect INNER = new Rect(60, 90, 100, 40);
+
+    private static ImageAPI api;
+    private static Mat original;
+    private static Rect corner;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage(CAR);
+        corner = new Rect(original.cols() - 50, original.rows() - 30, 50, 30);
+    }
+
+    private static void assertSameAsFull(Mat full, Rect roi, Mat actual) {
+        assertEquals(roi.size(), actual.size());
+        assertEquals(full.type(), actual.type());
+        assertEquals(0, Core.norm(full.submat(roi), actual, Core.NORM_INF), 0);
+    }
+
+    @Test
+    public void testDerivativesMatchFullImage() {
+        Mat sobel = api.applySobel(original, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT);
+        Mat laplace = api.applyLaplace(original, 5, 1, 0, Core.BORDER_REFLECT);
+        for (Rect roi : List.of(INNER, corner)) {
+            assertSameAsFull(sobel, roi, api.applySobel(original, roi, 1, 0, 3, 1, 0, Core.BORDER_DEFAULT));
+            assertSameAsFull(laplace, roi, api.applyLaplace(original, roi, 5, 1, 0, Core.BORDER_REFLECT));
+        }
+    }
+
+    @Test
+    public void testFiltersAndMorphologyMatchFullImage() {
+        FilterResults full = FilterUtils.applyFilters(CAR, 5);
+        Mat opened = MorphologyUtils.applyMorphology(CAR, 5, Imgproc.MORPH_OPEN, Imgproc.MORPH_ELLIPSE);
+        for (Rect roi : List.of(INNER, corner)) {
+            FilterResults region = FilterUtils.applyFilters(original, roi, 5);
+            assertSameAsFull(full.blur, roi, region.blur);
+            assertSameAsFull(full.gaussian, roi, region.gaussian);
+            assertSameAsFull(full.median, roi, region.median);
+            assertSameAsFull(full.bilateral, roi, region.bilateral);
+            assertSameAsFull(opened, roi,
+                    MorphologyUtils.applyMorphology(original, roi, 5, Imgproc.MORPH_OPEN, Imgproc.MORPH_ELLIPSE));
+        }
+    }
+
+    @Test
+    public void testInPlaceIntoFullSizeDestination() {
+        TileOperation blur = TileOperation.gaussianBlur(7);
+        Mat full = new Mat();
+        blur.apply(original, full);
+
+        Mat dst = original.clone();
+        api.applyInRoi(original, List.of(INNER, corner), blur, dst);
+        assertEquals(0, Core.norm(full.submat(INNER), dst.submat(INNER), Core.NORM_INF), 0);
+        assertEquals(0, Core.norm(full.submat(corner), dst.submat(corner), Core.NORM_INF), 0);
+        // Вне областей приёмник не меняется
+        Rect outside = new Rect(0, 0, 50, 50);
+        assertEquals(0, Core.norm(original.submat(outside), dst.submat(outside), Core.NORM_INF), 0);
+
+        // Приёмником может быть сам исходник
+        Mat image = original.clone();
+        api.applyInRoi(image, List.of(INNER), blur, image);
+        assertEquals(0, Core.norm(full.submat(INNER), image.submat(INNER), Core.NORM_INF), 0);
+    }
+
+    @Test
+    public void testEdgesInRegionAreCloseToFullImage() {
+        Mat full = api.getImageEdges(original, 3, 50, 150, false);
+        Mat region = api.getImageEdges(original, INNER, 3, 50, 150, false);
+        assertEquals(INNER.size(), region.size());
+
+        Mat diff = new Mat();
+        Core.absdiff(full.submat(INNER), region, diff);
+        // Гистерезис Canny нелокален: допускаем расхождения только у немногих пикселей
+        assertTrue(Core.countNonZero(diff) < INNER.area() * 0.02);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegionOutsideImageIsRejected() {
+        api.applyInRoi(original, new Rect(original.cols() - 10, 0, 20, 20), TileOperation.blur(3));
+    }
+}
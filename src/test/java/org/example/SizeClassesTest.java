@@ -0,0 +1,105 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SizeClassesTest {
+    private static ImageAPI api;
+    private static Mat car;
+    private static Mat adv;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        car = api.loadImage("src/test/test_dir/car.jpeg");
+        adv = api.loadImage("src/test/test_dir/adv.png");
+    }
+
+    private static SizeClasses inventoryClasses(int[][] targets) {
+        SizeClasses classes = new SizeClasses();
+        for (int[] t : targets) {
+            classes.add(t[0], t[1], t[2]);
+        }
+        return classes;
+    }
+
+    private static int[][] randomTargets(int n, long seed) {
+        Random random = new Random(seed);
+        int[][] targets = new int[n][];
+        for (int i = 0; i < n; i++) {
+            targets[i] = new int[]{1 + random.nextInt(80), 1 + random.nextInt(120), 1 + random.nextInt(8)};
+        }
+        return targets;
+    }
+
+    @Test
+    public void testIndexMatchesLinearScan() {
+        int[][] targets = randomTargets(300, 1);
+        SizeClasses classes = inventoryClasses(targets);
+        Random random = new Random(2);
+        for (int k = 0; k < 10_000; k++) {
+            double w = random.nextInt(100) + (random.nextBoolean() ? 0 : random.nextDouble());
+            double h = random.nextInt(140) + (random.nextBoolean() ? 0 : random.nextDouble());
+            boolean inclusive = random.nextBoolean();
+            int[] counts = new int[classes.size()];
+            int matched = classes.match(w, h, inclusive, counts);
+
+            int expected = 0;
+            for (int i = 0; i < targets.length; i++) {
+                double dw = Math.abs(w - targets[i][0]);
+                double dh = Math.abs(h - targets[i][1]);
+                boolean hit = inclusive ? dw <= targets[i][2] && dh <= targets[i][2] : dw < targets[i][2] && dh < targets[i][2];
+                assertEquals(hit ? 1 : 0, counts[i]);
+                expected += hit ? 1 : 0;
+            }
+            assertEquals(expected, matched);
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSingleCalls() {
+        int[][] targets = randomTargets(30, 3);
+        for (Mat image : List.of(car, adv)) {
+            int[] objects = api.getCountObj(image, inventoryClasses(targets));
+            int[] rectangles = api.getCountObjCanny(image, inventoryClasses(targets));
+            for (int i = 0; i < targets.length; i++) {
+                int[] t = targets[i];
+                assertEquals(api.getCountObj(image, t[0], t[1], t[2]), objects[i]);
+                assertEquals(api.getCountObjCanny(image, t[0], t[1], t[2]), rectangles[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testGridBinsEveryContourOnce() {
+        Mat gray = new Mat();
+        Imgproc.cvtColor(adv, gray, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.threshold(gray, gray, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+        List<MatOfPoint> contours = new ArrayList<>();
+        Imgproc.findContours(gray, contours, new Mat(), Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        SizeClasses grid = SizeClasses.grid(0, adv.cols() + 1, 16, 0, adv.rows() + 1, 16);
+        int total = 0;
+        for (int count : api.getCountObj(adv, grid)) {
+            total += count;
+        }
+        assertEquals(contours.size(), total);
+    }
+
+    @Test
+    public void testLabels() {
+        SizeClasses classes = SizeClasses.of(40, 60, 5).add(10, 20, 2.5);
+        assertEquals("40x60±5", classes.label(0));
+        assertEquals("10x20±2.5", classes.label(1));
+        assertEquals("[0,16)x[16,32)", SizeClasses.grid(0, 32, 16, 0, 32, 16).label(1));
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import org.example.tiles.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TiledProcessorTest {
+
+    private static ImageAPI api;
+    private static Mat original;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        api = new ImageAPI();
+        original = api.loadImage("src/test/test_dir/car.jpeg");
+    }
+
+    private static Mat tiled(Mat src, TileOperation operation) {
+        return tiled(new MatTileSource(src), operation);
+    }
+
+    private static Mat tiled(TileSource source, TileOperation operation) {
+        MatTileSink sink = new MatTileSink(source.width(), source.height());
+        new TiledProcessor(64, 48).process(source, operation, sink);
+        return sink.getResult();
+    }
+
+    /**
+     * Источник, копирующий каждую плитку: фильтр не видит пикселей за её пределами,
+     * поэтому ошибка в {@link TileOperation#halo()} даёт расхождение с целым изображением.
+     */
+    private static TileSource copying(Mat src) {
+        return new MatTileSource(src) {
+            @Override
+            public Mat read(Rect region, Mat buffer) {
+                Mat view = src.submat(region);
+                view.copyTo(buffer);
+                view.release();
+                return buffer;
+            }
+        };
+    }
+
+    /**
+     * Сравнивает с результатом для целого изображения и плитки-представления, и плитки-копии.
+     */
+    private static void assertTiled(Mat expected, Mat src, TileOperation operation) {
+        assertSame(expected, tiled(src, operation));
+        assertSame(expected, tiled(copying(src), operation));
+    }
+
+    private static void assertSame(Mat expected, Mat actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.type(), actual.type());
+        assertEquals(0, Core.norm(expected, actual, Core.NORM_INF), 0.0);
+    }
+
+    @Test
+    public void testFiltersMatchWholeImage() {
+        for (int k : new int[]{3, 7}) {
+            Mat blur = new Mat();
+            Imgproc.blur(original, blur, new Size(k, k));
+            assertTiled(blur, original, TileOperation.blur(k));
+
+            Mat gaussian = new Mat();
+            Imgproc.GaussianBlur(original, gaussian, new Size(k, k), 0);
+            assertTiled(gaussian, original, TileOperation.gaussianBlur(k));
+
+            Mat median = new Mat();
+            Imgproc.medianBlur(original, median, k);
+            assertTiled(median, original, TileOperation.medianBlur(k));
+
+            Mat bilateral = new Mat();
+            Imgproc.bilateralFilter(original, bilateral, k, 75, 75);
+            assertTiled(bilateral, original, TileOperation.bilateralFilter(k, 75, 75));
+        }
+    }
+
+    @Test
+    public void testDerivativesMatchWholeImage() {
+        assertTiled(api.applySobel(original, 1, 0, 5, 1, 0, Core.BORDER_DEFAULT),
+                original, TileOperation.sobel(1, 0, 5, 1, 0, Core.BORDER_DEFAULT));
+        assertTiled(api.applyLaplace(original, 3, 1, 0, Core.BORDER_DEFAULT),
+                original, TileOperation.laplacian(3, 1, 0, Core.BORDER_DEFAULT));
+    }
+
+    @Test
+    public void testMorphologyMatchesWholeImage() {
+        String path = "src/test/test_dir/adv.png";
+        Mat src = Imgcodecs.imread(path);
+        for (int morphType : new int[]{Imgproc.MORPH_GRADIENT, Imgproc.MORPH_BLACKHAT}) {
+            Mat expected = MorphologyUtils.applyMorphology(path, 9, morphType, Imgproc.MORPH_ELLIPSE);
+            assertTiled(expected, src, TileOperation.morphology(9, morphType, Imgproc.MORPH_ELLIPSE));
+        }
+    }
+
+    @Test
+    public void testCopyingSourceCatchesShortHalo() {
+        Mat expected = new Mat();
+        Imgproc.blur(original, expected, new Size(7, 7));
+        TileOperation shortHalo = TileOperation.of(1, (in, out) -> Imgproc.blur(in, out, new Size(7, 7)));
+
+        // Представление читает соседей за краем плитки и скрывает ошибку; копия — нет
+        assertSame(expected, tiled(original, shortHalo));
+        assertNotEquals(0, Core.norm(expected, tiled(copying(original), shortHalo), Core.NORM_INF), 0.0);
+    }
+
+    @Test
+    public void testStripsFromFileIntoRawSink() throws Exception {
+        String path = "src/test/test_dir/adv.png";
+        Path outDir = Paths.get("src/test/test_dir/tiled_results/");
+        Files.createDirectories(outDir);
+        Path raw = outDir.resolve("adv_blur5.raw");
+
+        Mat expected = new Mat();
+        Imgproc.blur(Imgcodecs.imread(path), expected, new Size(5, 5));
+
+        try (RawFileTileSink sink = new RawFileTileSink(raw, expected.cols())) {
+            api.applyTiled(path, TileOperation.blur(5), sink, Integer.MAX_VALUE, 32);
+        }
+
+        byte[] data = Files.readAllBytes(raw);
+        Mat actual = new Mat(expected.rows(), expected.cols(), CvType.CV_8UC3);
+        actual.put(0, 0, data);
+        assertSame(expected, actual);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.*;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransformCacheTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        new ImageAPI();
+    }
+
+    private static Mat testImage() {
+        Mat mat = new Mat(120, 160, CvType.CV_8UC3);
+        Core.randu(mat, 0, 256);
+        return mat;
+    }
+
+    private static TransformCache.Transform rotation(int width, int height) {
+        Mat matrix = Imgproc.getRotationMatrix2D(new Point(width / 2.0, height / 2.0), 30, 1.0);
+        return new TransformCache.Transform(matrix, new Size(width, height));
+    }
+
+    @Test
+    public void testMatrixIsComputedOncePerKey() {
+        TransformCache cache = new TransformCache(1 << 20, false);
+        Mat src = testImage();
+        int[] created = {0};
+        TransformCache.TransformFactory factory = (w, h) -> {
+            created[0]++;
+            return rotation(w, h);
+        };
+
+        Mat expected = new Mat();
+        Imgproc.warpAffine(src, expected, Imgproc.getRotationMatrix2D(new Point(80, 60), 30, 1.0), src.size());
+        for (int i = 0; i < 3; i++) {
+            Mat dst = new Mat();
+            cache.warp(src, dst, "rotate", List.of(30.0), factory);
+            assertEquals(0, Core.norm(expected, dst, Core.NORM_INF), 0);
+        }
+
+        // Другой размер входа — другой ключ
+        cache.warp(src.submat(0, 60, 0, 80), new Mat(), "rotate", List.of(30.0), factory);
+
+        assertEquals(2, created[0]);
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testRemapTablesMatchWarp() {
+        TransformCache cache = new TransformCache(64L << 20, true);
+        Mat src = testImage();
+        ImageProcessor processor = new ImageProcessor();
+        Mat expected = processor.transformPerspective(src,
+                new Point[]{new Point(0, 0), new Point(160, 0), new Point(160, 120), new Point(0, 120)},
+                new Point[]{new Point(10, 5), new Point(150, 0), new Point(160, 120), new Point(0, 110)}, 160, 120);
+        TransformCache.TransformFactory factory = (w, h) -> new TransformCache.Transform(
+                Imgproc.getPerspectiveTransform(
+                        new MatOfPoint2f(new Point(0, 0), new Point(160, 0), new Point(160, 120), new Point(0, 120)),
+                        new MatOfPoint2f(new Point(10, 5), new Point(150, 0), new Point(160, 120), new Point(0, 110))),
+                new Size(w, h));
+
+        long matrixOnly = 0;
+        for (int i = 0; i < 3; i++) {
+            Mat dst = new Mat();
+            cache.warp(src, dst, "perspective", List.of(1), factory);
+            // Таблицы remap и warpPerspective округляют координаты по-разному
+            assertTrue(Core.norm(expected, dst, Core.NORM_INF) <= 2);
+            if (i == 0) {
+                matrixOnly = cache.getBytes();
+            }
+        }
+        // Со второго использования в кэше лежат таблицы remap
+        assertTrue(cache.getBytes() > matrixOnly + 160 * 120 * 4);
+    }
+
+    @Test
+    public void testOversizedRemapTablesAreSkipped() {
+        // Матрица помещается, таблицы 160x120 (~115 КБ) — нет
+        TransformCache cache = new TransformCache(1024, true);
+        Mat src = testImage();
+        for (int i = 0; i < 3; i++) {
+            cache.warp(src, new Mat(), "shift", List.of(1), (w, h) -> {
+                Mat matrix = Mat.eye(2, 3, CvType.CV_64F);
+                matrix.put(0, 2, 5);
+                return new TransformCache.Transform(matrix, new Size(w, h));
+            });
+        }
+
+        assertEquals(1, cache.getSkippedMaps());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(1, cache.size());
+        assertEquals(48, cache.getBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvictedAndReleased() {
+        // Помещаются ровно две матрицы 2x3 CV_64F
+        TransformCache cache = new TransformCache(96, false);
+        Mat src = testImage();
+        Mat[] matrices = new Mat[3];
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            cache.warp(src, new Mat(), "shift", List.of(i), (w, h) -> {
+                Mat matrix = Mat.eye(2, 3, CvType.CV_64F);
+                matrix.put(0, 2, index);
+                matrices[index] = matrix;
+                return new TransformCache.Transform(matrix, new Size(w, h));
+            });
+        }
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        assertTrue(matrices[0].empty());
+        assertFalse(matrices[2].empty());
+
+        cache.clear();
+        assertEquals(0, cache.getBytes());
+        assertTrue(matrices[2].empty());
+    }
+
+    @Test
+    public void testRotateImageUsesSharedCache() {
+        ImageProcessor processor = new ImageProcessor();
+        Mat src = testImage();
+        long hits = TransformCache.shared().getHits();
+
+        Mat first = processor.rotateImage(src, 17, true);
+        Mat second = processor.rotateImage(src, 17, true);
+
+        assertEquals(ImageProcessor.getRotatedSize(160, 120, 17), first.size());
+        assertTrue(TransformCache.shared().getHits() > hits);
+        assertTrue(Core.norm(first, second, Core.NORM_INF) <= 2);
+    }
+}